@@ -169,6 +169,10 @@ public final class TextsKeys {
      * Key for title of the tree view.
      */
     public static final String KEY_TREEVIEW = "TreeView";
+    /**
+     * Key for the information about a file of the tree view.
+     */
+    public static final String KEY_FILEINFORMATION = "FileInformation";
     /**
      * Key for the parameters.
      */
@@ -268,6 +272,18 @@ public final class TextsKeys {
      * Key for parameters files extension.
      */
     public static final String KEY_FILESTLDESCRIPTION = "FileSTLDescription";
+    /**
+     * Key for PLY files description.
+     */
+    public static final String KEY_FILEPLYDESCRIPTION = "FilePLYDescription";
+    /**
+     * Key for OBJ files description.
+     */
+    public static final String KEY_FILEOBJDESCRIPTION = "FileOBJDescription";
+    /**
+     * Key for the option saving each building in its own file.
+     */
+    public static final String KEY_SAVEBYBUILDING = "SaveByBuilding";
     /**
      * Key for parameters files extension description.
      */
@@ -569,6 +569,15 @@ public class BuildingsIsletController {
                 .parseFile(fileName)));
     }
 
+    /**
+     * Builds the first step of the BuildingIslet with a mesh already parsed.
+     * @param mesh
+     *            the mesh of the islet
+     */
+    public final void readMesh(final Mesh mesh) {
+        this.islet.setBiStep0(new BuildingsIsletStep0(mesh));
+    }
+
     /**
      * Reads the file containing the gravity normal and put it in this gravity
      * normal.
@@ -612,7 +621,29 @@ public class BuildingsIsletController {
         return this.islet.returnNode();
     }
 
-    public final void saveFinalResults(final String fileName) {
+    /**
+     * Saves the results of each building in its own file, using as many
+     * threads as processors.
+     * @param fileName
+     *            the name of the file, used to build the names of the files
+     * @throws IOException
+     *             if some files could not be written
+     */
+    public final void saveBuildingsResults(final String fileName)
+            throws IOException {
+        this.islet.saveBuildingsResults(fileName, Runtime.getRuntime()
+                .availableProcessors());
+    }
+
+    /**
+     * Saves the results in one file.
+     * @param fileName
+     *            the name of the file
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public final void saveFinalResults(final String fileName)
+            throws IOException {
         this.islet.saveFinalResults(fileName);
     }
 
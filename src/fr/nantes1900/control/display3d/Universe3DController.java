@@ -7,17 +7,25 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.media.j3d.BranchGroup;
+import javax.media.j3d.Geometry;
+import javax.media.j3d.Node;
+import javax.media.j3d.PickRay;
+import javax.media.j3d.Transform3D;
 import javax.swing.event.EventListenerList;
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
 
 import com.sun.j3d.utils.picking.PickCanvas;
-import com.sun.j3d.utils.picking.PickIntersection;
 import com.sun.j3d.utils.picking.PickResult;
 import com.sun.j3d.utils.picking.PickTool;
 
 import fr.nantes1900.listener.ElementsSelectedListener;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.SubMesh;
 import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.basis.TriangleFilter;
+import fr.nantes1900.models.basis.TriangleTree;
 import fr.nantes1900.models.extended.Surface;
 import fr.nantes1900.view.display3d.MeshView;
 import fr.nantes1900.view.display3d.SurfaceView;
@@ -464,17 +472,15 @@ public class Universe3DController implements MouseListener, MouseMotionListener
     public final void mouseClicked(final MouseEvent e) {
 
         int buttonDown = e.getButton();
-        if (this.pickCanvas != null) {
+        if (this.pickCanvas != null && buttonDown == MouseEvent.BUTTON1) {
 
-            this.pickCanvas.setShapeLocation(e);
-            PickResult result = this.pickCanvas.pickClosest();
+            if (this.selectionMode == SELECTION_TRIANGLE_MODE) {
+                this.treatTriangleSelection(e);
 
-            if (buttonDown == MouseEvent.BUTTON1 && result != null) {
-
-                if (this.selectionMode == SELECTION_TRIANGLE_MODE) {
-                    this.treatTriangleSelection(e, result);
-
-                } else if (this.selectionMode == SELECTION_SURFACE_MODE) {
+            } else if (this.selectionMode == SELECTION_SURFACE_MODE) {
+                this.pickCanvas.setShapeLocation(e);
+                PickResult result = this.pickCanvas.pickClosest();
+                if (result != null) {
                     this.treatSurfaceSelection(e, result);
                 }
             }
@@ -862,38 +868,83 @@ public class Universe3DController implements MouseListener, MouseMotionListener
      * selection mode is set to triangle.
      * @param e
      *            the mouse event get from the MouseListener.
-     * @param result
-     *            the PickResult get from the MouseListener.
      */
-    private void treatTriangleSelection(final MouseEvent e,
-            final PickResult result) {
+    private void treatTriangleSelection(final MouseEvent e) {
+
+        // Picks the surfaces by their bounds only : the triangle picked is
+        // found by the tree of the triangles of each mesh, instead of
+        // intersecting the ray with every triangle displayed.
+        this.pickCanvas.setMode(PickTool.BOUNDS);
+        this.pickCanvas.setShapeLocation(e);
+        PickResult[] results = this.pickCanvas.pickAll();
+        this.pickCanvas.setMode(PickTool.GEOMETRY_INTERSECT_INFO);
 
-        PickIntersection pickIntersection = result.getIntersection(0);
-
-        // Gets the meshView picked.
-        MeshView meshView = (MeshView) pickIntersection.getGeometryArray();
-        // Gets the the triangle picked.
-        int[] pointIndex = pickIntersection.getPrimitiveVertexIndices();
-
-        Triangle trianglePicked = meshView
-                .getTriangleFromArrayPosition(pointIndex[0]
-                        / MeshView.TRIANGLE_POINTS_COUNT);
-
-        // Computes the neighbours of the triangle picked.
-        Mesh oriented = meshView.getMesh().orientedAs(
-                trianglePicked.getNormal(), this.orientationTolerance);
-        Mesh neighbours = new Mesh();
-        trianglePicked.returnNeighbours(neighbours, oriented);
-
-        // Limit the neigbours only to the neighbours at a distance to the
-        // trianglePicked less than triangleSelectionDistance variable
-        Mesh neighboursLimited = new Mesh();
-        for (Triangle t : neighbours) {
-            if (t.getP1().distance(trianglePicked.getP1()) < triangleSelectionDistance) {
-                neighboursLimited.add(t);
+        if (results == null
+                || !(this.pickCanvas.getPickShape() instanceof PickRay)) {
+            return;
+        }
+        Point3d origin = new Point3d();
+        Vector3d direction = new Vector3d();
+        ((PickRay) this.pickCanvas.getPickShape()).get(origin, direction);
+
+        MeshView meshView = null;
+        Triangle trianglePicked = null;
+        double distanceMin = Double.POSITIVE_INFINITY;
+        for (PickResult result : results) {
+            Node node = result.getNode(PickResult.SHAPE3D);
+            if (!(node instanceof SurfaceView)) {
+                continue;
+            }
+            Geometry geometry = ((SurfaceView) node).getGeometry();
+            if (!(geometry instanceof MeshView)) {
+                continue;
+            }
+            MeshView view = (MeshView) geometry;
+
+            // Expresses the ray in the coordinates of the mesh.
+            Transform3D toLocal = new Transform3D(result.getLocalToVworld());
+            toLocal.invert();
+            Point3d localOrigin = new Point3d(origin);
+            Vector3d localDirection = new Vector3d(direction);
+            toLocal.transform(localOrigin);
+            toLocal.transform(localDirection);
+            Point start = new Point(localOrigin.x, localOrigin.y,
+                    localOrigin.z);
+
+            Triangle hit = view.getMesh().returnTriangleTree()
+                    .intersect(start, localDirection);
+            if (hit != null) {
+                // Compares the distances in the coordinates of the universe,
+                // because each mesh can have its own transformation.
+                Point3d hitPoint = new Point3d(localDirection);
+                hitPoint.scale(TriangleTree.intersection(hit, start,
+                        localDirection));
+                hitPoint.add(localOrigin);
+                result.getLocalToVworld().transform(hitPoint);
+                double distance = hitPoint.distance(origin);
+                if (distance < distanceMin) {
+                    distanceMin = distance;
+                    meshView = view;
+                    trianglePicked = hit;
+                }
             }
         }
-        neighbours = new Mesh(neighboursLimited);
+        if (trianglePicked == null) {
+            return;
+        }
+
+        // Computes the neighbours of the triangle picked which are oriented
+        // as it, and at a distance to it less than the
+        // triangleSelectionDistance variable.
+        Mesh mesh = meshView.getMesh();
+        SubMesh part = new SubMesh(mesh.returnAdjacency(), mesh);
+        TriangleFilter filter = TriangleFilter.and(TriangleFilter.orientedAs(
+                trianglePicked.getNormal(), this.orientationTolerance),
+                TriangleFilter.closeTo(trianglePicked.getP1(),
+                        this.triangleSelectionDistance));
+        Mesh neighbours = part.returnNeighbours(
+                part.getAdjacency().getID(trianglePicked), filter)
+                .returnMesh();
 
         if (e.isControlDown()) {
             if (this.trianglesSelected.contains(trianglePicked)) {
@@ -3,14 +3,18 @@ package fr.nantes1900.control.isletprocess;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.IOException;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
 import javax.swing.JToolBar;
 import javax.swing.filechooser.FileFilter;
 
 import fr.nantes1900.constants.TextsKeys;
 import fr.nantes1900.control.isletprocess.IsletProcessController.UnexistingStepException;
 import fr.nantes1900.utils.FileTools;
+import fr.nantes1900.utils.WriterSTL;
 import fr.nantes1900.view.isletprocess.NavigationBarView;
 
 /**
@@ -93,16 +97,42 @@ public class NavigationBarController extends JToolBar {
             @Override
             public void actionPerformed(final ActionEvent arg0) {
                 ResultsFileChooser fileChooser = new ResultsFileChooser();
+                fileChooser.addChoosableFileFilter(new ResultsFileFilter(
+                        "ply", TextsKeys.KEY_FILEPLYDESCRIPTION));
+                fileChooser.addChoosableFileFilter(new ResultsFileFilter(
+                        "obj", TextsKeys.KEY_FILEOBJDESCRIPTION));
                 fileChooser.setFileFilter(new ResultsFileFilter());
                 fileChooser.setAcceptAllFileFilterUsed(false);
+                JCheckBox byBuilding = new JCheckBox(FileTools
+                        .readElementText(TextsKeys.KEY_SAVEBYBUILDING));
+                fileChooser.setAccessory(byBuilding);
 
                 fileChooser.setDialogType(JFileChooser.SAVE_DIALOG);
 
                 if (fileChooser.showSaveDialog(NavigationBarController.this
                         .getView()) == JFileChooser.APPROVE_OPTION) {
                     String fileName = fileChooser.getSelectedFile().getPath();
-                    NavigationBarController.this.getParentController()
-                            .getBiController().saveFinalResults(fileName);
+                    try {
+                        if (byBuilding.isSelected()) {
+                            NavigationBarController.this
+                                    .getParentController().getBiController()
+                                    .saveBuildingsResults(fileName);
+                        } else {
+                            NavigationBarController.this
+                                    .getParentController().getBiController()
+                                    .saveFinalResults(fileName);
+                        }
+                    } catch (IOException e) {
+                        JOptionPane.showMessageDialog(
+                                NavigationBarController.this.getView(),
+                                FileTools.readInformationMessage(
+                                        TextsKeys.KEY_ERROR_IOEXCEPTION,
+                                        TextsKeys.MESSAGETYPE_MESSAGE),
+                                FileTools.readInformationMessage(
+                                        TextsKeys.KEY_ERROR_IOEXCEPTION,
+                                        TextsKeys.MESSAGETYPE_TITLE),
+                                JOptionPane.ERROR_MESSAGE);
+                    }
                 }
             }
         });
@@ -145,7 +175,9 @@ public class NavigationBarController extends JToolBar {
 
             ResultsFileFilter filter = (ResultsFileFilter) super
                     .getFileFilter();
-            if (!absolutetPath.endsWith(filter.getExtension())) {
+            if (!absolutetPath.endsWith(filter.getExtension())
+                    && !absolutetPath.endsWith(filter.getExtension()
+                            + WriterSTL.GZIP_EXTENSION)) {
                 absolutetPath += "." + filter.getExtension();
             }
             super.setSelectedFile(new File(absolutetPath));
@@ -160,24 +192,45 @@ public class NavigationBarController extends JToolBar {
     public class ResultsFileFilter extends FileFilter {
 
         /**
-         * STL files extension.
+         * Results files extension.
          */
         private String extension = "stl";
 
         /**
-         * STL file description.
+         * Results file description.
          */
         private String description = FileTools
                 .readElementText(TextsKeys.KEY_FILESTLDESCRIPTION);
 
+        /**
+         * Constructor of the filter of the STL files.
+         */
+        public ResultsFileFilter() {
+        }
+
+        /**
+         * Constructor.
+         * @param extensionIn
+         *            the extension of the results files
+         * @param descriptionKey
+         *            the key of the description of the results files
+         */
+        public ResultsFileFilter(final String extensionIn,
+                final String descriptionKey) {
+            this.extension = extensionIn;
+            this.description = FileTools.readElementText(descriptionKey);
+        }
+
         /*
          * (non-Javadoc)
          * @see javax.swing.filechooser.FileFilter#accept(java.io.File)
          */
         @Override
         public final boolean accept(final File file) {
-            return (file.isDirectory() || file.getName().endsWith(
-                    this.extension));
+            return (file.isDirectory()
+                    || file.getName().endsWith(this.extension) || file
+                    .getName().endsWith(
+                            this.extension + WriterSTL.GZIP_EXTENSION));
         }
 
         /*
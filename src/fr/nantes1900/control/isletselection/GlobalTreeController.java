@@ -5,8 +5,14 @@ package fr.nantes1900.control.isletselection;
 
 import java.io.File;
 import java.io.IOException;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -14,13 +20,20 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import fr.nantes1900.constants.TextsKeys;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.utils.FileTools;
+import fr.nantes1900.utils.ParserSTL;
 import fr.nantes1900.view.isletselection.GlobalTreeView;
+import fr.nantes1900.view.isletselection.GlobalTreeView.FileNode;
 
 /**
  * @author Camille Bouquet, Luc Jallerat
  */
 public class GlobalTreeController {
 
+    /**
+     * Number of bytes in a megabyte.
+     */
+    private static final double MEGABYTE = 1 << 20;
+
     /**
      * View of the tree.
      */
@@ -31,6 +44,11 @@ public class GlobalTreeController {
      */
     private IsletSelectionController parentController;
 
+    /**
+     * The task probing the STL files of the tree in the background.
+     */
+    private SwingWorker<Void, DefaultMutableTreeNode> probeWorker;
+
     /**
      * Creates a new controller to handle the tree used to select and view an
      * islet.
@@ -59,6 +77,98 @@ public class GlobalTreeController {
         return this.parentController;
     }
 
+    /**
+     * Probes the STL files of the tree in the background, and displays the
+     * number of triangles and the size of each file when it is known. The
+     * files are not parsed : only their header and some parts are read.
+     */
+    private void probeFiles() {
+        if (this.probeWorker != null) {
+            this.probeWorker.cancel(true);
+        }
+
+        final List<DefaultMutableTreeNode> nodes = this.returnFileNodes();
+
+        final String pattern = FileTools
+                .readElementText(TextsKeys.KEY_FILEINFORMATION);
+
+        this.probeWorker = new SwingWorker<Void, DefaultMutableTreeNode>() {
+
+            @Override
+            protected Void doInBackground() {
+                final NumberFormat format = NumberFormat.getIntegerInstance();
+
+                for (final DefaultMutableTreeNode node : nodes) {
+                    if (this.isCancelled()) {
+                        return null;
+                    }
+                    final FileNode file = (FileNode) node.getUserObject();
+                    try {
+                        final ParserSTL.Probe probe = new ParserSTL(file
+                                .getEntireName()).probe();
+
+                        // The number of triangles of the big ASCII files is
+                        // estimated.
+                        String triangles = format.format(probe
+                                .getTrianglesNumber());
+                        if (probe.isASCII() && probe.isSampled()) {
+                            triangles = "~" + triangles;
+                        }
+
+                        file.setInformation(MessageFormat.format(pattern,
+                                triangles, Double.valueOf(probe.getFileSize()
+                                        / GlobalTreeController.MEGABYTE)));
+                        this.publish(node);
+                    } catch (final IOException e) {
+                        // The file cannot be read : no information is
+                        // displayed.
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(final List<DefaultMutableTreeNode> chunks) {
+                for (final DefaultMutableTreeNode node : chunks) {
+                    GlobalTreeController.this.gtView.refreshNode(node);
+                }
+            }
+        };
+        this.probeWorker.execute();
+    }
+
+    /**
+     * Returns the names of the STL files of the tree.
+     * @return the list of the entire names of the files
+     */
+    public final List<String> returnFileNames() {
+        final List<String> fileNames = new ArrayList<>();
+        for (final DefaultMutableTreeNode node : this.returnFileNodes()) {
+            fileNames.add(((FileNode) node.getUserObject()).getEntireName());
+        }
+        return fileNames;
+    }
+
+    /**
+     * Returns the nodes of the tree which are files, in the order of a
+     * breadth-first enumeration.
+     * @return the list of the nodes of the files
+     */
+    private List<DefaultMutableTreeNode> returnFileNodes() {
+        final List<DefaultMutableTreeNode> nodes = new ArrayList<>();
+        final DefaultMutableTreeNode root = (DefaultMutableTreeNode) this.gtView
+                .getTree().getModel().getRoot();
+        final Enumeration<?> enumeration = root.breadthFirstEnumeration();
+        while (enumeration.hasMoreElements()) {
+            final DefaultMutableTreeNode node = (DefaultMutableTreeNode) enumeration
+                    .nextElement();
+            if (((FileNode) node.getUserObject()).isFile()) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
     /**
      * Updates the root directory.
      * @param newDirectory
@@ -66,6 +176,7 @@ public class GlobalTreeController {
      */
     public final void updateDirectory(final File newDirectory) {
         this.gtView.displayDirectory(newDirectory);
+        this.probeFiles();
         this.gtView.getTree().addTreeSelectionListener(
                 new TreeSelectionListener() {
 
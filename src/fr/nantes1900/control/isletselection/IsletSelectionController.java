@@ -15,6 +15,7 @@ import fr.nantes1900.control.display3d.Universe3DController;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.utils.FileTools;
+import fr.nantes1900.utils.PreloaderSTL;
 import fr.nantes1900.utils.WriterSTL;
 import fr.nantes1900.view.isletselection.GlobalTreeView.FileNode;
 import fr.nantes1900.view.isletselection.IsletSelectionView;
@@ -68,6 +69,18 @@ public class IsletSelectionController {
      */
     private GlobalController parentController;
 
+    /**
+     * The preloader parsing the files of the opened directory in the
+     * background.
+     */
+    private PreloaderSTL preloader;
+
+    /**
+     * The maximum number of bytes used by the meshes preloaded. By default,
+     * half of the maximum memory of the virtual machine.
+     */
+    private long preloadingMemory = Runtime.getRuntime().maxMemory() / 2;
+
     /**
      * Creates a new controller to handle the islet selection window.
      * @param parentControllerIn
@@ -99,11 +112,20 @@ public class IsletSelectionController {
             WriterSTL writer = new WriterSTL(this.openedDirectory.getPath()
                     + "/gravity_normal.stl");
             writer.setMesh(new Mesh(this.u3DController.getTrianglesSelected()));
-            writer.write();
-            this.biController.getIslet().setGravityNormal(
-                    new Mesh(this.u3DController.getTrianglesSelected())
-                            .averageNormal());
-            normalSaved = true;
+            try {
+                writer.write();
+                this.biController.getIslet().setGravityNormal(
+                        new Mesh(this.u3DController.getTrianglesSelected())
+                                .averageNormal());
+                normalSaved = true;
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(this.isView, FileTools
+                        .readHelpMessage(TextsKeys.KEY_ERROR_IOEXCEPTION,
+                                TextsKeys.MESSAGETYPE_MESSAGE), FileTools
+                        .readHelpMessage(TextsKeys.KEY_ERROR_IOEXCEPTION,
+                                TextsKeys.MESSAGETYPE_TITLE),
+                        JOptionPane.ERROR_MESSAGE);
+            }
         } else {
             JOptionPane.showMessageDialog(this.isView, FileTools
                     .readHelpMessage(TextsKeys.KEY_COMPUTEGRAVITY,
@@ -140,7 +162,12 @@ public class IsletSelectionController {
         FileNode fileNode = (FileNode) node.getUserObject();
 
         if (fileNode.isFile()) {
-            this.biController.readFile(fileNode.getEntireName());
+            if (this.preloader == null) {
+                this.biController.readFile(fileNode.getEntireName());
+            } else {
+                this.biController.readMesh(this.preloader.take(fileNode
+                        .getEntireName()));
+            }
             this.selectedFile = fileNode;
             this.biController.display();
         }
@@ -155,6 +182,14 @@ public class IsletSelectionController {
         return this.biController;
     }
 
+    /**
+     * Getter.
+     * @return the maximum number of bytes used by the meshes preloaded
+     */
+    public final long getPreloadingMemory() {
+        return this.preloadingMemory;
+    }
+
     /**
      * Gets the islet selection view.
      * @return the islet selection view
@@ -193,6 +228,30 @@ public class IsletSelectionController {
         return processLaunched;
     }
 
+    /**
+     * Starts the parsing of all the files of the opened directory in the
+     * background, with one thread per processor, so that the islets are
+     * displayed without waiting when they are selected. The files loaded
+     * before are forgotten.
+     */
+    private void preloadFiles() {
+        if (this.preloader != null) {
+            this.preloader.shutdown();
+        }
+        this.preloader = new PreloaderSTL(this.preloadingMemory, Runtime
+                .getRuntime().availableProcessors());
+        this.preloader.load(this.gtController.returnFileNames());
+    }
+
+    /**
+     * Setter. Used by the next directory opened.
+     * @param memory
+     *            the maximum number of bytes used by the meshes preloaded
+     */
+    public final void setPreloadingMemory(final long memory) {
+        this.preloadingMemory = memory;
+    }
+
     /**
      * Updates the directory containing the files of islets.
      * @param newDirectory
@@ -201,6 +260,7 @@ public class IsletSelectionController {
     public final void updateMockupDirectory(final File newDirectory) {
         this.openedDirectory = newDirectory;
         this.gtController.updateDirectory(this.openedDirectory);
+        this.preloadFiles();
 
         // checks if the gravity normal already exists
         File gravityNormal = new File(this.openedDirectory.getPath()
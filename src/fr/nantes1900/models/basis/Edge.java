@@ -481,7 +481,7 @@ public class Edge {
      */
     public final void setP1(final Point point) {
         this.points[0] = point;
-
+        Point.countModification();
     }
 
     /**
@@ -491,6 +491,7 @@ public class Edge {
      */
     public final void setP2(final Point point) {
         this.points[1] = point;
+        Point.countModification();
     }
 
     /**
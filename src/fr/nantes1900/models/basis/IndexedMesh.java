@@ -0,0 +1,422 @@
+package fr.nantes1900.models.basis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.utils.VertexWelder;
+
+/**
+ * Implements a mesh stored in arrays of primitives, instead of objects : the
+ * coordinates of the vertices, the indices of the vertices of each triangle,
+ * the normals of the triangles and the neighbours of the triangles. A
+ * triangle takes around fifty bytes, against several hundreds in a Mesh : it
+ * can hold the big islets, and be converted in Mesh by parts, to use the
+ * algorithms working on the Mesh.
+ * @author Daniel Lefevre
+ */
+public final class IndexedMesh {
+
+    /**
+     * Number of vertices of a triangle.
+     */
+    public static final int NB_VERTICES = 3;
+
+    /**
+     * Number of coordinates of a point or of a normal.
+     */
+    private static final int NB_COORDINATES = 3;
+
+    /**
+     * Default number of triangles expected.
+     */
+    private static final int DEFAULT_SIZE = 1 << 10;
+
+    /**
+     * Value of the empty slots in the table of the edges.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Value of the edges already shared by two triangles in the table of the
+     * edges.
+     */
+    private static final int FULL = -1;
+
+    /**
+     * Constant used to mix the bits of the keys of the edges.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The coordinates of the vertices : three double per vertex.
+     */
+    private double[] coordinates;
+
+    /**
+     * The number of vertices.
+     */
+    private int verticesNumber;
+
+    /**
+     * The indices of the vertices of the triangles : three int per triangle.
+     */
+    private int[] vertices;
+
+    /**
+     * The normals of the triangles : three float per triangle.
+     */
+    private float[] normals;
+
+    /**
+     * The number of triangles.
+     */
+    private int trianglesNumber;
+
+    /**
+     * The neighbours of the triangles : for each triangle, the index of the
+     * triangle sharing its edge going from the vertex k to the vertex k + 1,
+     * or -1 if this edge is a bound. Computed when needed, and forgotten when
+     * a triangle is added.
+     */
+    private int[] neighbours;
+
+    /**
+     * Void constructor.
+     */
+    public IndexedMesh() {
+        this(IndexedMesh.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param expectedSize
+     *            the number of triangles expected : the arrays will not be
+     *            resized until this number is reached
+     */
+    public IndexedMesh(final int expectedSize) {
+        final int capacity = Math.max(expectedSize, 1);
+        this.coordinates = new double[capacity * IndexedMesh.NB_COORDINATES];
+        this.vertices = new int[capacity * IndexedMesh.NB_VERTICES];
+        this.normals = new float[capacity * IndexedMesh.NB_COORDINATES];
+    }
+
+    /**
+     * Constructor from a mesh. The points having the same values receive the
+     * same index, as in the parser.
+     * @param mesh
+     *            the mesh to copy
+     */
+    public IndexedMesh(final Mesh mesh) {
+        this(mesh.size());
+        final VertexWelder welder = new VertexWelder(mesh.size());
+        final int[] indices = new int[IndexedMesh.NB_VERTICES];
+
+        for (final Triangle t : mesh) {
+            final Point[] points = {t.getP1(), t.getP2(), t.getP3()};
+            for (int k = 0; k < IndexedMesh.NB_VERTICES; k = k + 1) {
+                indices[k] = welder.weld(points[k]);
+                if (indices[k] == this.verticesNumber) {
+                    this.addVertex(points[k].getX(), points[k].getY(),
+                            points[k].getZ());
+                }
+            }
+            final Vector3d normal = t.getNormal();
+            this.addTriangle(indices[0], indices[1], indices[2], normal.x,
+                    normal.y, normal.z);
+        }
+    }
+
+    /**
+     * Adds a triangle.
+     * @param vertex1
+     *            the index of the first vertex
+     * @param vertex2
+     *            the index of the second vertex
+     * @param vertex3
+     *            the index of the third vertex
+     * @param normalX
+     *            the x coordinate of the normal
+     * @param normalY
+     *            the y coordinate of the normal
+     * @param normalZ
+     *            the z coordinate of the normal
+     * @return the index of the triangle
+     */
+    public int addTriangle(final int vertex1, final int vertex2,
+            final int vertex3, final double normalX, final double normalY,
+            final double normalZ) {
+        final int index = this.trianglesNumber;
+        if (index * IndexedMesh.NB_VERTICES == this.vertices.length) {
+            final int capacity = index * 2;
+            this.vertices = Arrays.copyOf(this.vertices, capacity
+                    * IndexedMesh.NB_VERTICES);
+            this.normals = Arrays.copyOf(this.normals, capacity
+                    * IndexedMesh.NB_COORDINATES);
+        }
+
+        final int k = index * IndexedMesh.NB_VERTICES;
+        this.vertices[k] = vertex1;
+        this.vertices[k + 1] = vertex2;
+        this.vertices[k + 2] = vertex3;
+        this.normals[k] = (float) normalX;
+        this.normals[k + 1] = (float) normalY;
+        this.normals[k + 2] = (float) normalZ;
+        this.trianglesNumber = index + 1;
+        this.neighbours = null;
+
+        return index;
+    }
+
+    /**
+     * Adds a vertex.
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param z
+     *            the z coordinate
+     * @return the index of the vertex
+     */
+    public int addVertex(final double x, final double y, final double z) {
+        final int index = this.verticesNumber;
+        if (index * IndexedMesh.NB_COORDINATES == this.coordinates.length) {
+            this.coordinates = Arrays.copyOf(this.coordinates, Math.max(
+                    index * 2, 1) * IndexedMesh.NB_COORDINATES);
+        }
+
+        final int k = index * IndexedMesh.NB_COORDINATES;
+        this.coordinates[k] = x;
+        this.coordinates[k + 1] = y;
+        this.coordinates[k + 2] = z;
+        this.verticesNumber = index + 1;
+
+        return index;
+    }
+
+    /**
+     * Computes the neighbours of the triangles. The edges are identified by
+     * the indices of their vertices, and kept in an open-addressing table of
+     * long : the first triangle of an edge waits in the table for the second
+     * one. A third triangle on the same edge has no neighbour on this edge.
+     */
+    private void computeNeighbours() {
+        final int sides = this.trianglesNumber * IndexedMesh.NB_VERTICES;
+        final int[] result = new int[sides];
+        Arrays.fill(result, -1);
+
+        // The table is at most half full, even if no edge is shared.
+        final int length = Integer.highestOneBit(Math.max(sides, 1)) << 2;
+        final int mask = length - 1;
+        final long[] keys = new long[length];
+        final int[] waiting = new int[length];
+        Arrays.fill(keys, IndexedMesh.EMPTY);
+
+        for (int side = 0; side < sides; side = side + 1) {
+            final int next;
+            if (side % IndexedMesh.NB_VERTICES == IndexedMesh.NB_VERTICES - 1) {
+                next = side - IndexedMesh.NB_VERTICES + 1;
+            } else {
+                next = side + 1;
+            }
+            final long key = IndexedMesh.edgeKey(this.vertices[side],
+                    this.vertices[next]);
+
+            int slot = IndexedMesh.hash(key) & mask;
+            while (keys[slot] != IndexedMesh.EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (keys[slot] == IndexedMesh.EMPTY) {
+                keys[slot] = key;
+                waiting[slot] = side;
+            } else if (waiting[slot] != IndexedMesh.FULL) {
+                final int other = waiting[slot];
+                result[side] = other / IndexedMesh.NB_VERTICES;
+                result[other] = side / IndexedMesh.NB_VERTICES;
+                waiting[slot] = IndexedMesh.FULL;
+            }
+        }
+
+        this.neighbours = result;
+    }
+
+    /**
+     * Returns the key of an edge, whatever the order of its vertices.
+     * @param vertex1
+     *            the index of one vertex
+     * @param vertex2
+     *            the index of the other vertex
+     * @return the key of the edge
+     */
+    private static long edgeKey(final int vertex1, final int vertex2) {
+        if (vertex1 < vertex2) {
+            return ((long) vertex1 << Integer.SIZE) | vertex2;
+        }
+        return ((long) vertex2 << Integer.SIZE) | vertex1;
+    }
+
+    /**
+     * Returns the neighbour of a triangle through one of its edges. The
+     * neighbours are computed at the first call after the adding of
+     * triangles.
+     * @param triangle
+     *            the index of the triangle
+     * @param side
+     *            the index of the edge : 0 for the edge between the first and
+     *            the second vertex, 1 and 2 for the next ones
+     * @return the index of the neighbour, or -1 if this edge is a bound
+     */
+    public int getNeighbour(final int triangle, final int side) {
+        if (this.neighbours == null) {
+            this.computeNeighbours();
+        }
+        return this.neighbours[triangle * IndexedMesh.NB_VERTICES + side];
+    }
+
+    /**
+     * Getter.
+     * @param triangle
+     *            the index of the triangle
+     * @return a copy of the normal of the triangle
+     */
+    public Vector3d getNormal(final int triangle) {
+        final int k = triangle * IndexedMesh.NB_COORDINATES;
+        return new Vector3d(this.normals[k], this.normals[k + 1],
+                this.normals[k + 2]);
+    }
+
+    /**
+     * Getter.
+     * @param triangle
+     *            the index of the triangle
+     * @param k
+     *            the rank of the vertex in the triangle : 0, 1 or 2
+     * @return the index of the vertex
+     */
+    public int getVertex(final int triangle, final int k) {
+        return this.vertices[triangle * IndexedMesh.NB_VERTICES + k];
+    }
+
+    /**
+     * Getter.
+     * @return the number of vertices
+     */
+    public int getVerticesNumber() {
+        return this.verticesNumber;
+    }
+
+    /**
+     * Getter.
+     * @param vertex
+     *            the index of the vertex
+     * @return the x coordinate of the vertex
+     */
+    public double getX(final int vertex) {
+        return this.coordinates[vertex * IndexedMesh.NB_COORDINATES];
+    }
+
+    /**
+     * Getter.
+     * @param vertex
+     *            the index of the vertex
+     * @return the y coordinate of the vertex
+     */
+    public double getY(final int vertex) {
+        return this.coordinates[vertex * IndexedMesh.NB_COORDINATES + 1];
+    }
+
+    /**
+     * Getter.
+     * @param vertex
+     *            the index of the vertex
+     * @return the z coordinate of the vertex
+     */
+    public double getZ(final int vertex) {
+        return this.coordinates[vertex * IndexedMesh.NB_COORDINATES + 2];
+    }
+
+    /**
+     * Mixes the bits of a key of edge.
+     * @param key
+     *            the key
+     * @return the hash of the key
+     */
+    private static int hash(final long key) {
+        final long h = key * IndexedMesh.MIX;
+        return (int) (h ^ (h >>> Integer.SIZE));
+    }
+
+    /**
+     * Converts all the triangles in a mesh.
+     * @return the mesh containing all the triangles
+     */
+    public Mesh returnMesh() {
+        final int[] triangles = new int[this.trianglesNumber];
+        for (int i = 0; i < this.trianglesNumber; i = i + 1) {
+            triangles[i] = i;
+        }
+        return this.returnMesh(triangles, this.trianglesNumber);
+    }
+
+    /**
+     * Converts some triangles in a mesh. The triangles sharing a vertex or an
+     * edge share the same point or the same edge in the mesh, as in the
+     * meshes parsed.
+     * @param triangles
+     *            the array containing the indices of the triangles to convert
+     * @param number
+     *            the number of indices to read in the array
+     * @return the mesh containing these triangles
+     */
+    public Mesh returnMesh(final int[] triangles, final int number) {
+        final Mesh mesh = new Mesh();
+        final Map<Integer, Point> points = new HashMap<>();
+        final Map<Long, Edge> edges = new HashMap<>();
+        final Point[] p = new Point[IndexedMesh.NB_VERTICES];
+        final Edge[] e = new Edge[IndexedMesh.NB_VERTICES];
+
+        for (int i = 0; i < number; i = i + 1) {
+            final int triangle = triangles[i];
+
+            for (int k = 0; k < IndexedMesh.NB_VERTICES; k = k + 1) {
+                final Integer vertex = Integer.valueOf(this.getVertex(
+                        triangle, k));
+                p[k] = points.get(vertex);
+                if (p[k] == null) {
+                    p[k] = new Point(this.getX(vertex.intValue()),
+                            this.getY(vertex.intValue()),
+                            this.getZ(vertex.intValue()));
+                    points.put(vertex, p[k]);
+                }
+            }
+
+            for (int k = 0; k < IndexedMesh.NB_VERTICES; k = k + 1) {
+                final int next = (k + 1) % IndexedMesh.NB_VERTICES;
+                final Long key = Long.valueOf(IndexedMesh.edgeKey(
+                        this.getVertex(triangle, k),
+                        this.getVertex(triangle, next)));
+                e[k] = edges.get(key);
+                if (e[k] == null) {
+                    e[k] = new Edge(p[k], p[next]);
+                    edges.put(key, e[k]);
+                }
+            }
+
+            mesh.add(new Triangle(p[0], p[1], p[2], e[0], e[1], e[2], this
+                    .getNormal(triangle)));
+        }
+
+        return mesh;
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles
+     */
+    public int size() {
+        return this.trianglesNumber;
+    }
+}
@@ -1,8 +1,16 @@
 package fr.nantes1900.models.basis;
 
+import java.io.IOException;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.vecmath.Vector3d;
@@ -32,6 +40,30 @@ public class Mesh extends HashSet<Triangle> {
      */
     private final int iD;
 
+    /**
+     * The summary of the geometry of this mesh, or null if it must be
+     * computed again.
+     */
+    private transient Summary summary;
+
+    /**
+     * The tree of the points of the bounds of this mesh, or null if it must
+     * be computed again.
+     */
+    private transient PointTree boundsTree;
+
+    /**
+     * The tree of the triangles of this mesh, or null if it must be built
+     * again.
+     */
+    private transient TriangleTree triangleTree;
+
+    /**
+     * The adjacency of the triangles of this mesh, or null if it must be
+     * computed again.
+     */
+    private transient MeshAdjacency adjacency;
+
     /**
      * Void constructor.
      */
@@ -50,21 +82,61 @@ public class Mesh extends HashSet<Triangle> {
         this.iD = ++Mesh.currentID;
     }
 
+    /*
+     * (non-Javadoc)
+     * @see java.util.HashSet#add(java.lang.Object)
+     */
+    @Override
+    public final boolean add(final Triangle triangle) {
+        final boolean added = super.add(triangle);
+        if (added) {
+            this.boundsTree = null;
+            this.triangleTree = null;
+            this.adjacency = null;
+        }
+        // The summary is still null when the constructor of HashSet adds the
+        // triangles of the collection.
+        if (added && this.summary != null) {
+            if (this.summary.isValid()) {
+                this.summary.add(triangle);
+            } else {
+                this.summary = null;
+            }
+        }
+        return added;
+    }
+
     /**
      * Computes the average normal of all triangles composing this mesh.
      * @return average The average Vector3d normal.
      */
     public final Vector3d averageNormal() {
-        final int n = this.size();
-        final Vector3d average = new Vector3d();
-        for (final Triangle face : this) {
-            average.add(face.getNormal());
-        }
-        average.scale(1 / (double) n);
-
+        final Vector3d average = new Vector3d(this.returnSummary().normalSum);
+        average.scale(1 / (double) this.size());
         return average;
     }
 
+    /**
+     * Returns a mesh containing only the triangles strictly between two
+     * values along an axis, found with the tree of the triangles.
+     * @param axis
+     *            the axis : 0, 1 or 2 for x, y or z
+     * @param m1
+     *            the first bound
+     * @param m2
+     *            the second bound
+     * @return the mesh containing the triangles
+     */
+    private Mesh between(final int axis, final double m1, final double m2) {
+        final double[] min = {Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        final double[] max = {Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        min[axis] = Math.min(m1, m2);
+        max[axis] = Math.max(m1, m2);
+        return new Mesh(this.returnTriangleTree().inBox(min, max));
+    }
+
     /**
      * Changes the base of all the points contained in the mesh.
      * @param matrix
@@ -93,6 +165,19 @@ public class Mesh extends HashSet<Triangle> {
         this.addAll(mesh);
     }
 
+    /*
+     * (non-Javadoc)
+     * @see java.util.HashSet#clear()
+     */
+    @Override
+    public final void clear() {
+        super.clear();
+        this.summary = null;
+        this.boundsTree = null;
+        this.triangleTree = null;
+        this.adjacency = null;
+    }
+
     /**
      * Checks if an edge is contained in this.
      * @param e
@@ -117,12 +202,11 @@ public class Mesh extends HashSet<Triangle> {
      * @return the first triangle found which is under zMax
      */
     public final Triangle faceUnderZ(final double zMax) {
-        for (final Triangle t : this) {
-            if (t.zMax() < zMax) {
-                return t;
-            }
-        }
-        return null;
+        final double[] min = {Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        final double[] max = {Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY, zMax};
+        return this.returnTriangleTree().oneInBox(min, max);
     }
 
     /**
@@ -260,30 +344,67 @@ public class Mesh extends HashSet<Triangle> {
                 / convertDegreesToRadian;
     }
 
+    /*
+     * (non-Javadoc)
+     * @see java.util.HashSet#iterator()
+     */
+    @Override
+    public final Iterator<Triangle> iterator() {
+        final Iterator<Triangle> iterator = super.iterator();
+        return new Iterator<Triangle>() {
+            /**
+             * The last triangle returned by next.
+             */
+            private Triangle last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Triangle next() {
+                this.last = iterator.next();
+                return this.last;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                Mesh.this.summary = null;
+                Mesh.this.boundsTree = null;
+                Mesh.this.adjacency = null;
+                if (Mesh.this.triangleTree != null) {
+                    Mesh.this.triangleTree.remove(this.last);
+                }
+            }
+        };
+    }
+
     /**
      * Returns the minimal distance between two meshes. Searches for all the
-     * points the one which are the closest and returns their distance.
+     * points of the bounds the one which are the closest and returns their
+     * distance. For each point of the smaller bounds, the closest point of
+     * the other bounds is found with the tree of the other mesh.
      * @param mesh
      *            the other mesh
      * @return the minimal distance between those two meshes
      */
     public final double minimalDistance(final Mesh mesh) {
-
-        final Set<Point> hash1 = new HashSet<>();
-        final Polygon poly1 = this.returnUnsortedBounds();
-        hash1.addAll(poly1.getPointList());
-
-        final Set<Point> hash2 = new HashSet<>();
-        final Polygon poly2 = mesh.returnUnsortedBounds();
-        hash2.addAll(poly2.getPointList());
+        PointTree tree1 = this.returnBoundsTree();
+        PointTree tree2 = mesh.returnBoundsTree();
+        if (tree1.size() > tree2.size()) {
+            final PointTree swap = tree1;
+            tree1 = tree2;
+            tree2 = swap;
+        }
 
         double minDistance = Double.POSITIVE_INFINITY;
 
-        for (final Point p1 : hash1) {
-            for (final Point p2 : hash2) {
-                if (p1.distance(p2) < minDistance) {
-                    minDistance = p1.distance(p2);
-                }
+        for (final Point p1 : tree1.getPoints()) {
+            final Point p2 = tree2.nearest(p1);
+            if (p2 != null && p1.distance(p2) < minDistance) {
+                minDistance = p1.distance(p2);
             }
         }
 
@@ -329,6 +450,33 @@ public class Mesh extends HashSet<Triangle> {
         return ret;
     }
 
+    /*
+     * (non-Javadoc)
+     * @see java.util.HashSet#remove(java.lang.Object)
+     */
+    @Override
+    public final boolean remove(final Object o) {
+        final boolean removed = super.remove(o);
+        if (removed) {
+            this.boundsTree = null;
+            this.adjacency = null;
+            if (this.triangleTree != null) {
+                this.triangleTree.remove((Triangle) o);
+            }
+        }
+        if (removed && this.summary != null) {
+            final Triangle triangle = (Triangle) o;
+            // The bounds can not be updated if the triangle was on one of
+            // them.
+            if (this.summary.isValid() && !this.summary.isOnBounds(triangle)) {
+                this.summary.remove(triangle);
+            } else {
+                this.summary = null;
+            }
+        }
+        return removed;
+    }
+
     /**
      * Removes from this mesh the triangles contained in the mesh.
      * @param m
@@ -339,25 +487,158 @@ public class Mesh extends HashSet<Triangle> {
     }
 
     /**
-     * Searches for all the edges which belong to the bounds. If an edge
-     * contains only one triangle in this mesh, then it is part of the bounds.
-     * @return the polyline containing these edges
+     * Returns the adjacency of the triangles of this mesh : the neighbours of
+     * each triangle in this mesh, kept in an array. It is computed at the
+     * first call, and kept until this mesh is modified.
+     * @return the adjacency of this mesh
      */
-    public final Polygon returnUnsortedBounds() {
-        final Polygon bounds = new Polygon();
+    public final MeshAdjacency returnAdjacency() {
+        if (this.adjacency == null) {
+            this.adjacency = new MeshAdjacency(this);
+        }
+        return this.adjacency;
+    }
 
-        // Select every edges of the mesh.
+    /**
+     * Searches for the edges which belong to the bounds, in one pass over the
+     * triangles : an edge is part of the bounds if it is used by only one
+     * triangle of this mesh, as in Edge.isBound.
+     * @return the edges of the bounds, without duplicates, in the order of the
+     *         triangles
+     */
+    private Set<Edge> returnBoundEdges() {
+        // Counts the triangles of this mesh using each edge.
+        final Map<Edge, Integer> uses = new IdentityHashMap<>();
         for (final Triangle tri : this) {
             for (final Edge edge : tri.getEdges()) {
-                if (edge.isBound(this)) {
-                    bounds.add(edge);
+                final Integer counter = uses.get(edge);
+                if (counter == null) {
+                    uses.put(edge, Integer.valueOf(1));
+                } else {
+                    uses.put(edge, Integer.valueOf(counter.intValue() + 1));
                 }
             }
         }
 
+        final Set<Edge> bounds = new LinkedHashSet<>();
+        for (final Triangle tri : this) {
+            for (final Edge edge : tri.getEdges()) {
+                if (uses.get(edge).intValue() == 1) {
+                    bounds.add(edge);
+                }
+            }
+        }
         return bounds;
     }
 
+    /**
+     * Returns the tree of the points of the bounds of this mesh, to find the
+     * closest points of the bounds. The tree is kept until this mesh or one
+     * of the points is modified.
+     * @return the tree of the points of the bounds
+     */
+    public final PointTree returnBoundsTree() {
+        if (this.boundsTree == null || !this.boundsTree.isValid()) {
+            this.boundsTree = new PointTree(this.returnUnsortedBounds()
+                    .getPointList());
+        }
+        return this.boundsTree;
+    }
+
+    /**
+     * Searches for the bounds of this mesh, and orders them in loops : each
+     * polyline returned contains its edges and its points in the order of a
+     * walk along the bounds. A mesh with holes gives several loops. The
+     * chains which are not closed begin at one of their ends.
+     * @return the list of the loops of the bounds
+     */
+    public final List<Polygon> returnSortedBounds() {
+        final Set<Edge> edges = this.returnBoundEdges();
+
+        // For each point, makes the list of the edges which contain it.
+        final Map<Point, List<Edge>> incidences = new LinkedHashMap<>();
+        for (final Edge e : edges) {
+            for (final Point p : e.getPoints()) {
+                List<Edge> list = incidences.get(p);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    incidences.put(p, list);
+                }
+                list.add(e);
+            }
+        }
+
+        final Set<Edge> visited = new HashSet<>();
+        final List<Polygon> loops = new ArrayList<>();
+
+        // The chains which are not closed begin at a point belonging to an
+        // odd number of edges.
+        for (final Map.Entry<Point, List<Edge>> entry : incidences.entrySet()) {
+            if (entry.getValue().size() % 2 == 1) {
+                for (final Edge e : entry.getValue()) {
+                    if (!visited.contains(e)) {
+                        loops.add(Mesh.walkBounds(entry.getKey(), e,
+                                incidences, visited));
+                    }
+                }
+            }
+        }
+        for (final Edge e : edges) {
+            if (!visited.contains(e)) {
+                loops.add(Mesh.walkBounds(e.getP1(), e, incidences, visited));
+            }
+        }
+
+        return loops;
+    }
+
+    /**
+     * Returns the summary of the geometry of this mesh, computed again in one
+     * pass over the triangles if it is not valid.
+     * @return the summary
+     */
+    private Summary returnSummary() {
+        if (this.summary == null || !this.summary.isValid()) {
+            this.summary = new Summary();
+            for (final Triangle t : this) {
+                this.summary.add(t);
+            }
+        }
+        return this.summary;
+    }
+
+    /**
+     * Returns the tree of the triangles of this mesh, to find the triangles
+     * in a box or hit by a ray without checking all the triangles. The tree
+     * is built again when a triangle is added, a triangle removed is removed
+     * from the tree, and the boxes of the tree are computed again when a
+     * point has moved.
+     * @return the tree of the triangles
+     */
+    public final TriangleTree returnTriangleTree() {
+        if (this.triangleTree == null) {
+            this.triangleTree = new TriangleTree(this);
+        } else if (!this.triangleTree.isValid()) {
+            this.triangleTree.refit();
+        }
+        return this.triangleTree;
+    }
+
+    /**
+     * Searches for all the edges which belong to the bounds. If an edge
+     * contains only one triangle in this mesh, then it is part of the bounds.
+     * @return the polyline containing these edges
+     */
+    public final Polygon returnUnsortedBounds() {
+        final Set<Edge> edges = this.returnBoundEdges();
+        final Set<Point> points = new LinkedHashSet<>();
+        for (final Edge edge : edges) {
+            points.add(edge.getP1());
+            points.add(edge.getP2());
+        }
+        return new Polygon(edges, points);
+    }
+
     /*
      * (non-Javadoc)
      * @see java.util.AbstractCollection#toString()
@@ -367,12 +648,59 @@ public class Mesh extends HashSet<Triangle> {
         return "Mesh " + this.iD;
     }
 
+    /**
+     * Walks along the bounds from an edge, until the walk comes back to its
+     * beginning or reaches the end of a chain. At each point, the walk
+     * continues with an edge not visited yet.
+     * @param start
+     *            the point where the walk begins, contained in first
+     * @param first
+     *            the first edge of the walk
+     * @param incidences
+     *            the edges of the bounds containing each point
+     * @param visited
+     *            the edges already walked along, completed by this method
+     * @return the polyline containing the edges and the points in the order
+     *         of the walk
+     */
+    private static Polygon walkBounds(final Point start, final Edge first,
+            final Map<Point, List<Edge>> incidences, final Set<Edge> visited) {
+        final List<Edge> edges = new ArrayList<>();
+        final Set<Point> points = new LinkedHashSet<>();
+        Point p = start;
+        Edge e = first;
+
+        while (e != null) {
+            visited.add(e);
+            edges.add(e);
+            points.add(p);
+            if (e.getP1().equals(p)) {
+                p = e.getP2();
+            } else {
+                p = e.getP1();
+            }
+
+            e = null;
+            for (final Edge next : incidences.get(p)) {
+                if (!visited.contains(next)) {
+                    e = next;
+                    break;
+                }
+            }
+        }
+        points.add(p);
+
+        return new Polygon(edges, points);
+    }
+
     /**
      * Writes the mesh in a STL file using the ParserSTL class.
      * @param fileName
      *            the name of the file
+     * @throws IOException
+     *             if the file cannot be written
      */
-    public final void writeSTL(final String fileName) {
+    public final void writeSTL(final String fileName) throws IOException {
         final WriterSTL writer = new WriterSTL(fileName);
         writer.setMesh(this);
         writer.write();
@@ -384,11 +712,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the average x-coordinate of all points
      */
     public final double xAverage() {
-        double xAverage = 0;
-        for (final Triangle face : this) {
-            xAverage += face.xAverage();
-        }
-        return xAverage / this.size();
+        return this.returnSummary().xSum / this.size();
     }
 
     /**
@@ -401,13 +725,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the mesh containing the triangles
      */
     public final Mesh xBetween(final double m1, final double m2) {
-        final Mesh ens = new Mesh();
-        for (final Triangle t : this) {
-            if (t.xMax() < Math.max(m1, m2) && t.xMin() > Math.min(m1, m2)) {
-                ens.add(t);
-            }
-        }
-        return ens;
+        return this.between(0, m1, m2);
     }
 
     /**
@@ -415,13 +733,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the x-maximum of all points of all faces from this mesh
      */
     public final double xMax() {
-        double xMaxi = Double.NEGATIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.xMax() > xMaxi) {
-                xMaxi = face.xMax();
-            }
-        }
-        return xMaxi;
+        return this.returnSummary().xMax;
     }
 
     /**
@@ -429,13 +741,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the x-minimum of all points of all faces from this mesh
      */
     public final double xMin() {
-        double xMini = Double.POSITIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.xMin() < xMini) {
-                xMini = face.xMin();
-            }
-        }
-        return xMini;
+        return this.returnSummary().xMin;
     }
 
     /**
@@ -444,11 +750,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the average y-coordinate of all points
      */
     public final double yAverage() {
-        double yAverage = 0;
-        for (final Triangle face : this) {
-            yAverage += face.yAverage();
-        }
-        return yAverage / this.size();
+        return this.returnSummary().ySum / this.size();
     }
 
     /**
@@ -461,13 +763,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the mesh containing the triangles
      */
     public final Mesh yBetween(final double m1, final double m2) {
-        final Mesh ens = new Mesh();
-        for (final Triangle t : this) {
-            if (t.yMax() < Math.max(m1, m2) && t.yMin() > Math.min(m1, m2)) {
-                ens.add(t);
-            }
-        }
-        return ens;
+        return this.between(1, m1, m2);
     }
 
     /**
@@ -475,13 +771,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the y-maximum of all points of all faces from this mesh
      */
     public final double yMax() {
-        double yMaxi = Double.NEGATIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.yMax() > yMaxi) {
-                yMaxi = face.yMax();
-            }
-        }
-        return yMaxi;
+        return this.returnSummary().yMax;
     }
 
     /**
@@ -489,13 +779,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the y-minimum of all points of all faces from this mesh
      */
     public final double yMin() {
-        double yMini = Double.POSITIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.yMin() < yMini) {
-                yMini = face.yMin();
-            }
-        }
-        return yMini;
+        return this.returnSummary().yMin;
     }
 
     /**
@@ -504,11 +788,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the average z-coordinate of all points
      */
     public final double zAverage() {
-        double zAverage = 0;
-        for (final Triangle face : this) {
-            zAverage += face.zAverage();
-        }
-        return zAverage / this.size();
+        return this.returnSummary().zSum / this.size();
     }
 
     /**
@@ -521,13 +801,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the mesh containing the triangles
      */
     public final Mesh zBetween(final double m1, final double m2) {
-        final Mesh ens = new Mesh();
-        for (final Triangle t : this) {
-            if (t.zMax() < Math.max(m1, m2) && t.zMin() > Math.min(m1, m2)) {
-                ens.add(t);
-            }
-        }
-        return ens;
+        return this.between(2, m1, m2);
     }
 
     /**
@@ -535,13 +809,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the z-maximum of all points of all faces from this mesh
      */
     public final double zMax() {
-        double zMaxi = Double.NEGATIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.zMax() > zMaxi) {
-                zMaxi = face.zMax();
-            }
-        }
-        return zMaxi;
+        return this.returnSummary().zMax;
     }
 
     /**
@@ -549,13 +817,7 @@ public class Mesh extends HashSet<Triangle> {
      * @return the z-minimum of all points of all faces from this mesh
      */
     public final double zMin() {
-        double zMini = Double.POSITIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.zMin() < zMini) {
-                zMini = face.zMin();
-            }
-        }
-        return zMini;
+        return this.returnSummary().zMin;
     }
 
     /**
@@ -563,17 +825,127 @@ public class Mesh extends HashSet<Triangle> {
      * @return the triangle which has the lowest z
      */
     public final Triangle zMinFace() {
-        Triangle t = null;
         if (this.isEmpty()) {
             throw new InvalidParameterException();
         }
-        double zMini = Double.POSITIVE_INFINITY;
-        for (final Triangle face : this) {
-            if (face.zMin() < zMini) {
-                t = face;
-                zMini = face.zMin();
-            }
+        return this.returnTriangleTree().minimum(2);
+    }
+
+    /**
+     * Implements a summary of the geometry of a mesh, computed in one pass
+     * over its triangles : the bounds, the sums of the averages of the
+     * coordinates, and the sum of the normals. It is updated when a triangle
+     * is added, and when a triangle which is not on the bounds is removed.
+     * It is not valid anymore when a point is moved, because the points are
+     * shared between the meshes. The normals are supposed to change only
+     * with the points, as in changeBase.
+     */
+    private static final class Summary {
+
+        /**
+         * The number of modifications of the points when this summary was
+         * computed.
+         */
+        private final long modifications = Point.getModifications();
+
+        /**
+         * The x-minimum.
+         */
+        private double xMin = Double.POSITIVE_INFINITY;
+
+        /**
+         * The x-maximum.
+         */
+        private double xMax = Double.NEGATIVE_INFINITY;
+
+        /**
+         * The y-minimum.
+         */
+        private double yMin = Double.POSITIVE_INFINITY;
+
+        /**
+         * The y-maximum.
+         */
+        private double yMax = Double.NEGATIVE_INFINITY;
+
+        /**
+         * The z-minimum.
+         */
+        private double zMin = Double.POSITIVE_INFINITY;
+
+        /**
+         * The z-maximum.
+         */
+        private double zMax = Double.NEGATIVE_INFINITY;
+
+        /**
+         * The sum of the average x-coordinates of the triangles.
+         */
+        private double xSum;
+
+        /**
+         * The sum of the average y-coordinates of the triangles.
+         */
+        private double ySum;
+
+        /**
+         * The sum of the average z-coordinates of the triangles.
+         */
+        private double zSum;
+
+        /**
+         * The sum of the normals of the triangles.
+         */
+        private final Vector3d normalSum = new Vector3d();
+
+        /**
+         * Adds a triangle to this summary.
+         * @param t
+         *            the triangle
+         */
+        public void add(final Triangle t) {
+            this.xMin = Math.min(this.xMin, t.xMin());
+            this.xMax = Math.max(this.xMax, t.xMax());
+            this.yMin = Math.min(this.yMin, t.yMin());
+            this.yMax = Math.max(this.yMax, t.yMax());
+            this.zMin = Math.min(this.zMin, t.zMin());
+            this.zMax = Math.max(this.zMax, t.zMax());
+            this.xSum = this.xSum + t.xAverage();
+            this.ySum = this.ySum + t.yAverage();
+            this.zSum = this.zSum + t.zAverage();
+            this.normalSum.add(t.getNormal());
+        }
+
+        /**
+         * Checks if a triangle touches one of the bounds of this summary.
+         * @param t
+         *            the triangle
+         * @return true if one of the bounds is reached by the triangle
+         */
+        public boolean isOnBounds(final Triangle t) {
+            return t.xMin() <= this.xMin || t.xMax() >= this.xMax
+                    || t.yMin() <= this.yMin || t.yMax() >= this.yMax
+                    || t.zMin() <= this.zMin || t.zMax() >= this.zMax;
+        }
+
+        /**
+         * Checks if no point has been moved since this summary was computed.
+         * @return true if this summary is valid, false otherwise
+         */
+        public boolean isValid() {
+            return this.modifications == Point.getModifications();
+        }
+
+        /**
+         * Removes a triangle which is not on the bounds from this summary.
+         * @param t
+         *            the triangle
+         */
+        public void remove(final Triangle t) {
+            this.xSum = this.xSum - t.xAverage();
+            this.ySum = this.ySum - t.yAverage();
+            this.zSum = this.zSum - t.zAverage();
+            this.normalSum.sub(t.getNormal());
         }
-        return t;
     }
 }
@@ -0,0 +1,138 @@
+package fr.nantes1900.models.basis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements the adjacency of the triangles of a mesh, computed once : each
+ * triangle receives an ID, and the IDs of its three neighbours in the mesh
+ * are kept in an array of int. The neighbours are then found by array lookups,
+ * without walking through the lists of triangles of the edges. The adjacency
+ * is a snapshot of the mesh : it must be computed again if the mesh is
+ * modified.
+ * @author Daniel Lefevre
+ */
+public final class MeshAdjacency {
+
+    /**
+     * Number of edges of a triangle.
+     */
+    public static final int NB_EDGES = 3;
+
+    /**
+     * The triangles, indexed by their ID.
+     */
+    private final Triangle[] triangles;
+
+    /**
+     * The IDs of the triangles.
+     */
+    private final Map<Triangle, Integer> iDs;
+
+    /**
+     * The IDs of the neighbours of each triangle : for each triangle, the ID
+     * of the triangle sharing its first, second and third edge, or -1 if this
+     * edge is a bound of the mesh.
+     */
+    private final int[] neighbours;
+
+    /**
+     * Constructor.
+     * @param mesh
+     *            the mesh whose adjacency is computed
+     */
+    public MeshAdjacency(final Mesh mesh) {
+        this(Collections.singletonList(mesh));
+    }
+
+    /**
+     * Constructor from several meshes, considered as one mesh : the
+     * triangles of the first mesh receive the first IDs, and so on. A
+     * triangle contained in several meshes receives one ID.
+     * @param meshes
+     *            the meshes whose adjacency is computed
+     */
+    public MeshAdjacency(final List<Mesh> meshes) {
+        int capacity = 0;
+        for (final Mesh mesh : meshes) {
+            capacity = capacity + mesh.size();
+        }
+
+        final Triangle[] array = new Triangle[capacity];
+        this.iDs = new HashMap<>(capacity * 2);
+        int number = 0;
+        for (final Mesh mesh : meshes) {
+            for (final Triangle t : mesh) {
+                if (!this.iDs.containsKey(t)) {
+                    this.iDs.put(t, Integer.valueOf(number));
+                    array[number] = t;
+                    number = number + 1;
+                }
+            }
+        }
+        this.triangles = Arrays.copyOf(array, number);
+
+        this.neighbours = new int[number * MeshAdjacency.NB_EDGES];
+        for (int i = 0; i < number; i = i + 1) {
+            final Triangle t = this.triangles[i];
+            final Edge[] edges = {t.getE1(), t.getE2(), t.getE3()};
+            for (int k = 0; k < MeshAdjacency.NB_EDGES; k = k + 1) {
+                final Triangle other = edges[k].returnOther(t);
+                this.neighbours[i * MeshAdjacency.NB_EDGES + k] = this
+                        .getID(other);
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of a triangle.
+     * @param triangle
+     *            the triangle
+     * @return the ID of the triangle, or -1 if it is not in the mesh
+     */
+    public int getID(final Triangle triangle) {
+        if (triangle == null) {
+            return -1;
+        }
+        final Integer iD = this.iDs.get(triangle);
+        if (iD == null) {
+            return -1;
+        }
+        return iD.intValue();
+    }
+
+    /**
+     * Returns the neighbour of a triangle through one of its edges.
+     * @param iD
+     *            the ID of the triangle
+     * @param side
+     *            the index of the edge : 0, 1 or 2 for the first, the second
+     *            or the third edge of the triangle
+     * @return the ID of the neighbour, or -1 if this edge is a bound of the
+     *         mesh
+     */
+    public int getNeighbour(final int iD, final int side) {
+        return this.neighbours[iD * MeshAdjacency.NB_EDGES + side];
+    }
+
+    /**
+     * Getter.
+     * @param iD
+     *            the ID of the triangle
+     * @return the triangle having this ID
+     */
+    public Triangle getTriangle(final int iD) {
+        return this.triangles[iD];
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles
+     */
+    public int size() {
+        return this.triangles.length;
+    }
+}
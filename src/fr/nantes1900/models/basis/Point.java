@@ -1,5 +1,7 @@
 package fr.nantes1900.models.basis;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import fr.nantes1900.utils.MatrixMethod;
 
 /**
@@ -8,6 +10,13 @@ import fr.nantes1900.utils.MatrixMethod;
  */
 public class Point {
 
+    /**
+     * Number of modifications of the coordinates of all the points, and of
+     * the points of the edges. It is used by the meshes and by the polylines
+     * to know if their summary and their indexes are still valid.
+     */
+    private static final AtomicLong MODIFICATIONS = new AtomicLong();
+
     /**
      * x coordinate.
      */
@@ -62,6 +71,14 @@ public class Point {
         this.set(MatrixMethod.changeBase(coords, matrix));
     }
 
+    /**
+     * Counts a modification of the geometry which does not change the
+     * coordinates of a point, as the replacement of a point in an edge.
+     */
+    static void countModification() {
+        Point.MODIFICATIONS.incrementAndGet();
+    }
+
     /**
      * Calculates the distance between two points.
      * @param p
@@ -104,6 +121,15 @@ public class Point {
         return true;
     }
 
+    /**
+     * Getter.
+     * @return the number of modifications of the coordinates of all the
+     *         points
+     */
+    static long getModifications() {
+        return Point.MODIFICATIONS.get();
+    }
+
     /**
      * Getter of the coordinates of the point.
      * @return an array of doubles
@@ -170,6 +196,7 @@ public class Point {
         this.x = xNew;
         this.y = yNew;
         this.z = zNew;
+        Point.MODIFICATIONS.incrementAndGet();
     }
 
     /**
@@ -190,6 +217,7 @@ public class Point {
      */
     public final void setX(final double xNew) {
         this.x = xNew;
+        Point.MODIFICATIONS.incrementAndGet();
     }
 
     /**
@@ -199,6 +227,7 @@ public class Point {
      */
     public final void setY(final double yNew) {
         this.y = yNew;
+        Point.MODIFICATIONS.incrementAndGet();
     }
 
     /**
@@ -208,6 +237,7 @@ public class Point {
      */
     public final void setZ(final double zNew) {
         this.z = zNew;
+        Point.MODIFICATIONS.incrementAndGet();
     }
 
     /*
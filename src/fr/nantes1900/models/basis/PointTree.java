@@ -0,0 +1,253 @@
+package fr.nantes1900.models.basis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implements a KD-tree over a set of points, to find the closest point of a
+ * point, and the points near a point, without comparing all the points. The
+ * tree is kept in an array : the root of a part of the array is its middle,
+ * the points before are on one side of the root along one axis, and the
+ * points after are on the other side. The axis changes at each level. The
+ * tree is a snapshot of the points : it must be built again if they move.
+ * @author Daniel Lefevre
+ */
+public final class PointTree {
+
+    /**
+     * Number of coordinates of a point.
+     */
+    private static final int NB_COORDINATES = 3;
+
+    /**
+     * The points, in the order of the tree.
+     */
+    private final Point[] points;
+
+    /**
+     * The number of modifications of the points when this tree was built.
+     */
+    private final long modifications = Point.getModifications();
+
+    /**
+     * Constructor.
+     * @param pointsIn
+     *            the points of the tree
+     */
+    public PointTree(final Collection<Point> pointsIn) {
+        this.points = pointsIn.toArray(new Point[pointsIn.size()]);
+        this.build(0, this.points.length, 0);
+    }
+
+    /**
+     * Returns a comparator of the points along an axis.
+     * @param axis
+     *            the axis : 0, 1 or 2 for x, y or z
+     * @return the comparator
+     */
+    private static Comparator<Point> comparator(final int axis) {
+        return new Comparator<Point>() {
+            @Override
+            public int compare(final Point p1, final Point p2) {
+                return Double.compare(PointTree.coordinate(p1, axis),
+                        PointTree.coordinate(p2, axis));
+            }
+        };
+    }
+
+    /**
+     * Returns one coordinate of a point.
+     * @param p
+     *            the point
+     * @param axis
+     *            the axis : 0, 1 or 2 for x, y or z
+     * @return the coordinate
+     */
+    private static double coordinate(final Point p, final int axis) {
+        if (axis == 0) {
+            return p.getX();
+        } else if (axis == 1) {
+            return p.getY();
+        } else {
+            return p.getZ();
+        }
+    }
+
+    /**
+     * Computes the square of the distance between two points.
+     * @param p1
+     *            the first point
+     * @param p2
+     *            the second point
+     * @return the square of the distance
+     */
+    private static double squaredDistance(final Point p1, final Point p2) {
+        final double dx = p1.getX() - p2.getX();
+        final double dy = p1.getY() - p2.getY();
+        final double dz = p1.getZ() - p2.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Builds the tree in a part of the array : sorts the part along the axis,
+     * and builds the two halves along the next axis.
+     * @param from
+     *            the first index of the part
+     * @param to
+     *            the index after the last index of the part
+     * @param axis
+     *            the axis of the root of the part
+     */
+    private void build(final int from, final int to, final int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        Arrays.sort(this.points, from, to, PointTree.comparator(axis));
+        final int middle = (from + to) >>> 1;
+        final int next = (axis + 1) % PointTree.NB_COORDINATES;
+        this.build(from, middle, next);
+        this.build(middle + 1, to, next);
+    }
+
+    /**
+     * Getter.
+     * @return the points of the tree, in the order of the tree, in a list
+     *         which can not be modified
+     */
+    public List<Point> getPoints() {
+        return Collections.unmodifiableList(Arrays.asList(this.points));
+    }
+
+    /**
+     * Returns the points whose distance to a point is lower or equal to a
+     * radius.
+     * @param p
+     *            the point
+     * @param radius
+     *            the radius
+     * @return the list of the points found, in the order of the tree
+     */
+    public List<Point> inRadius(final Point p, final double radius) {
+        final List<Point> found = new ArrayList<>();
+        this.inRadius(0, this.points.length, 0, p, radius * radius, found);
+        return found;
+    }
+
+    /**
+     * Searches in a part of the array for the points near a point.
+     * @param from
+     *            the first index of the part
+     * @param to
+     *            the index after the last index of the part
+     * @param axis
+     *            the axis of the root of the part
+     * @param p
+     *            the point
+     * @param squaredRadius
+     *            the square of the radius
+     * @param found
+     *            the list of the points found, completed by this method
+     */
+    private void inRadius(final int from, final int to, final int axis,
+            final Point p, final double squaredRadius, final List<Point> found) {
+        if (from >= to) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        final Point root = this.points[middle];
+        final double difference = PointTree.coordinate(p, axis)
+                - PointTree.coordinate(root, axis);
+        final int next = (axis + 1) % PointTree.NB_COORDINATES;
+
+        if (difference <= 0 || difference * difference <= squaredRadius) {
+            this.inRadius(from, middle, next, p, squaredRadius, found);
+        }
+        if (PointTree.squaredDistance(root, p) <= squaredRadius) {
+            found.add(root);
+        }
+        if (difference >= 0 || difference * difference <= squaredRadius) {
+            this.inRadius(middle + 1, to, next, p, squaredRadius, found);
+        }
+    }
+
+    /**
+     * Checks if no point has been moved since this tree was built.
+     * @return true if this tree is valid, false otherwise
+     */
+    boolean isValid() {
+        return this.modifications == Point.getModifications();
+    }
+
+    /**
+     * Returns the closest point of a point.
+     * @param p
+     *            the point
+     * @return the point of the tree closest to p, or null if the tree is
+     *         empty
+     */
+    public Point nearest(final Point p) {
+        final Point[] best = new Point[1];
+        final double[] bestDistance = {Double.POSITIVE_INFINITY};
+        this.nearest(0, this.points.length, 0, p, best, bestDistance);
+        return best[0];
+    }
+
+    /**
+     * Searches in a part of the array for the closest point of a point. The
+     * half containing the point is searched first, and the other half only
+     * if it can contain a closer point.
+     * @param from
+     *            the first index of the part
+     * @param to
+     *            the index after the last index of the part
+     * @param axis
+     *            the axis of the root of the part
+     * @param p
+     *            the point
+     * @param best
+     *            the closest point found, updated by this method
+     * @param bestDistance
+     *            the square of the distance of the closest point found,
+     *            updated by this method
+     */
+    private void nearest(final int from, final int to, final int axis,
+            final Point p, final Point[] best, final double[] bestDistance) {
+        if (from >= to) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        final Point root = this.points[middle];
+        final double distance = PointTree.squaredDistance(root, p);
+        if (distance < bestDistance[0]) {
+            best[0] = root;
+            bestDistance[0] = distance;
+        }
+
+        final double difference = PointTree.coordinate(p, axis)
+                - PointTree.coordinate(root, axis);
+        final int next = (axis + 1) % PointTree.NB_COORDINATES;
+        if (difference < 0) {
+            this.nearest(from, middle, next, p, best, bestDistance);
+            if (difference * difference < bestDistance[0]) {
+                this.nearest(middle + 1, to, next, p, best, bestDistance);
+            }
+        } else {
+            this.nearest(middle + 1, to, next, p, best, bestDistance);
+            if (difference * difference < bestDistance[0]) {
+                this.nearest(from, middle, next, p, best, bestDistance);
+            }
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the number of points of the tree
+     */
+    public int size() {
+        return this.points.length;
+    }
+}
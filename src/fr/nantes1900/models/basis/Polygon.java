@@ -2,12 +2,21 @@ package fr.nantes1900.models.basis;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.vecmath.Vector3d;
 
 /**
- * Implements a polyline : a suite of edges.
+ * Implements a polyline : a suite of edges. The edges and the points are kept
+ * in lists, in the order of their insertion, and indexed by hash tables
+ * computed when needed : the membership tests and the search of the edges
+ * containing a point do not scan the lists.
  * @author Daniel Lefevre
  */
 public class Polygon {
@@ -20,12 +29,12 @@ public class Polygon {
     /**
      * List of the points of the polyline.
      */
-    private final List<Point> pointList = new ArrayList<>();
+    private final TrackedList<Point> pointList = new TrackedList<>();
 
     /**
      * List of the edges of the polyline.
      */
-    private final List<Edge> edgeList = new ArrayList<>();
+    private final TrackedList<Edge> edgeList = new TrackedList<>();
 
     /**
      * Normal of the polyline.
@@ -37,6 +46,12 @@ public class Polygon {
      */
     private final int iD;
 
+    /**
+     * The indexes of the edges and of the points, or null if they must be
+     * computed.
+     */
+    private Index index;
+
     /**
      * Void constructor.
      */
@@ -50,19 +65,24 @@ public class Polygon {
      *            the list of edges
      */
     public Polygon(final List<Edge> a) {
-        for (final Edge e : a) {
-            // Checks if the objects added are not already contained in the
-            // list.
-            if (!this.edgeList.contains(e)) {
-                this.edgeList.add(e);
-            }
-            if (!this.pointList.contains(e.getP1())) {
-                this.pointList.add(e.getP1());
-            }
-            if (!this.pointList.contains(e.getP2())) {
-                this.pointList.add(e.getP2());
-            }
-        }
+        // Checks if the objects added are not already contained in the list.
+        this.addAll(a);
+
+        this.iD = ++Polygon.currentID;
+    }
+
+    /**
+     * Constructor from edges and points already without duplicates, as the
+     * bounds computed by a mesh : the lists are filled without checking the
+     * duplicates.
+     * @param edges
+     *            the edges, without duplicates
+     * @param points
+     *            the points of the edges, without duplicates
+     */
+    Polygon(final Collection<Edge> edges, final Collection<Point> points) {
+        this.edgeList.addAll(edges);
+        this.pointList.addAll(points);
 
         this.iD = ++Polygon.currentID;
     }
@@ -109,8 +129,11 @@ public class Polygon {
      *            the edge to add
      */
     public final void add(final Edge e) {
-        if (!this.edgeList.contains(e)) {
+        final Index indexes = this.returnIndex();
+        if (indexes.edges.add(e)) {
             this.edgeList.add(e);
+            indexes.addNeighbour(e);
+            indexes.listModifications = this.returnListModifications();
         }
         this.add(e.getP1());
         this.add(e.getP2());
@@ -122,8 +145,10 @@ public class Polygon {
      *            the point to add
      */
     public final void add(final Point p) {
-        if (!this.pointList.contains(p)) {
+        final Index indexes = this.returnIndex();
+        if (indexes.points.add(p)) {
             this.pointList.add(p);
+            indexes.listModifications = this.returnListModifications();
         }
     }
 
@@ -162,6 +187,7 @@ public class Polygon {
     public final void clear() {
         this.edgeList.clear();
         this.pointList.clear();
+        this.index = null;
     }
 
     /**
@@ -171,7 +197,7 @@ public class Polygon {
      * @return true if it is contained and false otherwise
      */
     public final boolean contains(final Edge e) {
-        return this.edgeList.contains(e);
+        return this.returnIndex().edges.contains(e);
     }
 
     /**
@@ -181,7 +207,7 @@ public class Polygon {
      * @return true if it is contained and false otherwise
      */
     public final boolean contains(final Point p) {
-        return this.pointList.contains(p);
+        return this.returnIndex().points.contains(p);
     }
 
     /**
@@ -242,13 +268,7 @@ public class Polygon {
             throw new InvalidParameterException();
         }
 
-        final List<Edge> list = new ArrayList<>();
-        for (final Edge e : this.edgeList) {
-            if (e.contains(p)) {
-                list.add(e);
-            }
-        }
-        return list;
+        return new ArrayList<>(this.returnIndex().returnNeighbours(p));
     }
 
     /**
@@ -266,13 +286,7 @@ public class Polygon {
      * @return the number of edges contained in this that contain the point p
      */
     public final int getNumNeighbours(final Point p) {
-        int counter = 0;
-        for (final Edge e : this.edgeList) {
-            if (e.contains(p)) {
-                counter = counter + 1;
-            }
-        }
-        return counter;
+        return this.returnIndex().returnNeighbours(p).size();
     }
 
     /**
@@ -410,9 +424,11 @@ public class Polygon {
      *            the list of edges to remove
      */
     public final void remove(final Polygon p) {
-        final List<Edge> edges = new ArrayList<>(this.edgeList);
-        for (final Edge e : p.edgeList) {
-            edges.remove(e);
+        final List<Edge> edges = new ArrayList<>();
+        for (final Edge e : this.edgeList) {
+            if (!p.contains(e)) {
+                edges.add(e);
+            }
         }
         this.clear();
         this.addAll(edges);
@@ -508,6 +524,38 @@ public class Polygon {
         return ens;
     }
 
+    /**
+     * Returns the indexes of the edges and of the points, computed again if
+     * the lists have been modified outside of the methods of this polyline,
+     * or if a point has been moved, because the hashCodes of the points and
+     * of the edges depend on the coordinates.
+     * @return the indexes
+     */
+    private Index returnIndex() {
+        if (this.index == null
+                || this.index.modifications != Point.getModifications()
+                || this.index.listModifications != this
+                        .returnListModifications()) {
+            this.index = new Index();
+            for (final Edge e : this.edgeList) {
+                this.index.edges.add(e);
+                this.index.addNeighbour(e);
+            }
+            this.index.points.addAll(this.pointList);
+            this.index.listModifications = this.returnListModifications();
+        }
+        return this.index;
+    }
+
+    /**
+     * Returns the number of modifications of the two lists.
+     * @return the sum of the numbers of modifications of the lists
+     */
+    private int returnListModifications() {
+        return this.edgeList.getModifications()
+                + this.pointList.getModifications();
+    }
+
     /**
      * Setter.
      * @param normalNew
@@ -793,4 +841,118 @@ public class Polygon {
         public BadFormedPolylineException() {
         }
     }
+
+    /**
+     * Implements the indexes of a polyline : the sets of its edges and of its
+     * points, and the edges containing each point.
+     */
+    private static final class Index {
+
+        /**
+         * The number of modifications of the points when the indexes were
+         * computed.
+         */
+        private final long modifications = Point.getModifications();
+
+        /**
+         * The number of modifications of the lists of the polyline followed
+         * by the indexes.
+         */
+        private int listModifications;
+
+        /**
+         * The set of the edges.
+         */
+        private final Set<Edge> edges = new HashSet<>();
+
+        /**
+         * The set of the points.
+         */
+        private final Set<Point> points = new HashSet<>();
+
+        /**
+         * The edges containing each point, in the order of the list of edges.
+         * As in Edge.contains, the points are compared by reference.
+         */
+        private final Map<Point, List<Edge>> byPoint = new IdentityHashMap<>();
+
+        /**
+         * Adds an edge to the lists of edges of its points.
+         * @param e
+         *            the edge
+         */
+        public void addNeighbour(final Edge e) {
+            for (final Point p : e.getPoints()) {
+                List<Edge> list = this.byPoint.get(p);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    this.byPoint.put(p, list);
+                }
+                if (list.isEmpty() || list.get(list.size() - 1) != e) {
+                    list.add(e);
+                }
+            }
+        }
+
+        /**
+         * Returns the edges containing a point.
+         * @param p
+         *            the point
+         * @return the list of the edges, which must not be modified
+         */
+        public List<Edge> returnNeighbours(final Point p) {
+            final List<Edge> list = this.byPoint.get(p);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Implements a list which gives its number of modifications. The lists of
+     * the polyline are returned by the getters, and can be modified outside
+     * of the polyline : this number tells if the indexes are still valid.
+     * The replacements of elements are counted too, though ArrayList does not
+     * count them in modCount : Collections.swap and Collections.reverse
+     * replace the elements without changing the size.
+     * @param <E>
+     *            the type of the elements
+     */
+    private static final class TrackedList<E> extends ArrayList<E> {
+
+        /**
+         * Version attribute.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Number of replacements of elements. It is kept apart from modCount,
+         * which the iterators check : incrementing modCount would make
+         * ListIterator.set throw a ConcurrentModificationException.
+         */
+        private int replacements = 0;
+
+        /**
+         * Getter.
+         * @return the number of modifications of this list
+         */
+        public int getModifications() {
+            return this.modCount + this.replacements;
+        }
+
+        /**
+         * Replaces an element, and counts this replacement.
+         * @param i
+         *            the index of the element
+         * @param element
+         *            the new element
+         * @return the element replaced
+         */
+        @Override
+        public E set(final int i, final E element) {
+            this.replacements = this.replacements + 1;
+            return super.set(i, element);
+        }
+    }
 }
@@ -0,0 +1,310 @@
+package fr.nantes1900.models.basis;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Implements a part of a mesh as a set of bits over the IDs of the triangles
+ * of the mesh, given by its adjacency. The membership is a bit test, and the
+ * union and the difference are operations on words : a part costs one bit per
+ * triangle of the mesh, and the triangles are not copied.
+ * @author Daniel Lefevre
+ */
+public final class SubMesh {
+
+    /**
+     * Default size of the queue used to find the blocks of neighbours.
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 1 << 6;
+
+    /**
+     * The adjacency of the mesh containing this part.
+     */
+    private final MeshAdjacency adjacency;
+
+    /**
+     * The IDs of the triangles of this part.
+     */
+    private final BitSet iDs;
+
+    /**
+     * Constructor of an empty part.
+     * @param adjacencyIn
+     *            the adjacency of the mesh containing this part
+     */
+    public SubMesh(final MeshAdjacency adjacencyIn) {
+        this.adjacency = adjacencyIn;
+        this.iDs = new BitSet();
+    }
+
+    /**
+     * Constructor of a part containing the triangles of a mesh. The triangles
+     * of the mesh which are not in the adjacency are ignored.
+     * @param adjacencyIn
+     *            the adjacency of the mesh containing this part
+     * @param mesh
+     *            the triangles of the part
+     */
+    public SubMesh(final MeshAdjacency adjacencyIn, final Mesh mesh) {
+        this(adjacencyIn);
+        this.add(mesh);
+    }
+
+    /**
+     * Adds a triangle.
+     * @param iD
+     *            the ID of the triangle
+     */
+    public void add(final int iD) {
+        this.iDs.set(iD);
+    }
+
+    /**
+     * Adds the triangles of a mesh. The triangles which are not in the
+     * adjacency are ignored.
+     * @param mesh
+     *            the mesh to add
+     */
+    public void add(final Mesh mesh) {
+        for (final Triangle t : mesh) {
+            final int iD = this.adjacency.getID(t);
+            if (iD >= 0) {
+                this.iDs.set(iD);
+            }
+        }
+    }
+
+    /**
+     * Adds the triangles of another part of the same mesh.
+     * @param part
+     *            the part to add
+     */
+    public void addAll(final SubMesh part) {
+        this.iDs.or(part.iDs);
+    }
+
+    /**
+     * Removes all the triangles.
+     */
+    public void clear() {
+        this.iDs.clear();
+    }
+
+    /**
+     * Checks if a triangle is in this part.
+     * @param iD
+     *            the ID of the triangle
+     * @return true if the triangle is in this part, false otherwise
+     */
+    public boolean contains(final int iD) {
+        return iD >= 0 && this.iDs.get(iD);
+    }
+
+    /**
+     * Getter.
+     * @return the adjacency of the mesh containing this part
+     */
+    public MeshAdjacency getAdjacency() {
+        return this.adjacency;
+    }
+
+    /**
+     * Checks if this part is empty.
+     * @return true if this part contains no triangle
+     */
+    public boolean isEmpty() {
+        return this.iDs.isEmpty();
+    }
+
+    /**
+     * Returns the ID of the next triangle of this part, to iterate on the
+     * triangles : for (int i = part.nextID(0); i >= 0; i = part.nextID(i +
+     * 1)).
+     * @param from
+     *            the ID where the search begins
+     * @return the smallest ID of a triangle of this part greater or equal to
+     *         from, or -1 if there is none
+     */
+    public int nextID(final int from) {
+        return this.iDs.nextSetBit(from);
+    }
+
+    /**
+     * Removes the triangles of another part of the same mesh.
+     * @param part
+     *            the part to remove
+     */
+    public void removeAll(final SubMesh part) {
+        this.iDs.andNot(part.iDs);
+    }
+
+    /**
+     * Removes the block of neighbours of a triangle from this part, keeping
+     * only the triangles accepted by a filter, and returns their IDs. It is
+     * used to divide a part in blocks : the part itself marks the triangles
+     * not yet visited, so that each block costs the size of the block, and
+     * not one bit per triangle of the mesh as returnNeighbours.
+     * @param iD
+     *            the ID of the first triangle of the block, which is always
+     *            in the block
+     * @param filter
+     *            the filter, or null to keep all the triangles
+     * @return the IDs of the triangles of the block
+     */
+    public int[] removeNeighbours(final int iD, final TriangleFilter filter) {
+        int[] queue = new int[SubMesh.DEFAULT_QUEUE_SIZE];
+        int queueSize = 1;
+        queue[0] = iD;
+        this.iDs.clear(iD);
+
+        for (int current = 0; current < queueSize; current = current + 1) {
+            for (int k = 0; k < MeshAdjacency.NB_EDGES; k = k + 1) {
+                final int neighbour = this.adjacency.getNeighbour(
+                        queue[current], k);
+                if (!this.contains(neighbour)) {
+                    continue;
+                }
+                if (filter != null
+                        && !filter.accept(this.adjacency
+                                .getTriangle(neighbour))) {
+                    continue;
+                }
+
+                if (queueSize == queue.length) {
+                    queue = Arrays.copyOf(queue, queueSize * 2);
+                }
+                queue[queueSize] = neighbour;
+                queueSize = queueSize + 1;
+                this.iDs.clear(neighbour);
+            }
+        }
+
+        return Arrays.copyOf(queue, queueSize);
+    }
+    /**
+     * Converts this part in a mesh.
+     * @return a mesh containing the triangles of this part
+     */
+    public Mesh returnMesh() {
+        final Mesh mesh = new Mesh();
+        for (int i = this.nextID(0); i >= 0; i = this.nextID(i + 1)) {
+            mesh.add(this.adjacency.getTriangle(i));
+        }
+        return mesh;
+    }
+
+    /**
+     * Converts triangles of the mesh containing this part in a mesh.
+     * @param triangleIDs
+     *            the IDs of the triangles, as returned by removeNeighbours
+     * @return a mesh containing these triangles
+     */
+    public Mesh returnMesh(final int[] triangleIDs) {
+        final Mesh mesh = new Mesh();
+        for (final int iD : triangleIDs) {
+            mesh.add(this.adjacency.getTriangle(iD));
+        }
+        return mesh;
+    }
+
+    /**
+     * Returns the block of neighbours of a triangle in this part : the
+     * triangle, its neighbours in this part, the neighbours of these
+     * neighbours...
+     * @param iD
+     *            the ID of the first triangle of the block
+     * @return the block of neighbours
+     */
+    public SubMesh returnNeighbours(final int iD) {
+        return this.returnNeighbours(iD, null, null);
+    }
+
+    /**
+     * Returns the block of neighbours of a triangle in the union of this part
+     * and of another part, without computing the union.
+     * @param iD
+     *            the ID of the first triangle of the block
+     * @param other
+     *            the other part
+     * @return the block of neighbours
+     */
+    public SubMesh returnNeighbours(final int iD, final SubMesh other) {
+        return this.returnNeighbours(iD, other, null);
+    }
+
+    /**
+     * Returns the block of neighbours of a triangle in the union of this part
+     * and of another part, keeping only the triangles accepted by a filter.
+     * The block grows from the first triangle without recursion : the IDs of
+     * the triangles to visit are kept in an array used as a queue, and the
+     * block itself marks the triangles already visited.
+     * @param iD
+     *            the ID of the first triangle of the block, which is always
+     *            in the block
+     * @param other
+     *            the other part, or null to search only in this part
+     * @param filter
+     *            the filter, or null to keep all the triangles
+     * @return the block of neighbours
+     */
+    private SubMesh returnNeighbours(final int iD, final SubMesh other,
+            final TriangleFilter filter) {
+        final SubMesh block = new SubMesh(this.adjacency);
+        int[] queue = new int[SubMesh.DEFAULT_QUEUE_SIZE];
+        int queueSize = 1;
+        queue[0] = iD;
+        block.add(iD);
+
+        for (int current = 0; current < queueSize; current = current + 1) {
+            for (int k = 0; k < MeshAdjacency.NB_EDGES; k = k + 1) {
+                final int neighbour = this.adjacency.getNeighbour(
+                        queue[current], k);
+                if (neighbour < 0 || block.contains(neighbour)) {
+                    continue;
+                }
+                if (!this.contains(neighbour)
+                        && (other == null || !other.contains(neighbour))) {
+                    continue;
+                }
+                if (filter != null
+                        && !filter.accept(this.adjacency
+                                .getTriangle(neighbour))) {
+                    continue;
+                }
+
+                if (queueSize == queue.length) {
+                    queue = Arrays.copyOf(queue, queueSize * 2);
+                }
+                queue[queueSize] = neighbour;
+                queueSize = queueSize + 1;
+                block.add(neighbour);
+            }
+        }
+
+        return block;
+    }
+
+    /**
+     * Returns the block of neighbours of a triangle in this part, keeping
+     * only the triangles accepted by a filter. It gives the same block as
+     * returnNeighbours on the part accepted by the filter, without computing
+     * this part.
+     * @param iD
+     *            the ID of the first triangle of the block
+     * @param filter
+     *            the filter : orientation, distance to planes, distance to
+     *            the first triangle...
+     * @return the block of neighbours
+     */
+    public SubMesh returnNeighbours(final int iD, final TriangleFilter filter) {
+        return this.returnNeighbours(iD, null, filter);
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles of this part
+     */
+    public int size() {
+        return this.iDs.cardinality();
+    }
+}
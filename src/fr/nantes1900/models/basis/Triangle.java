@@ -1,8 +1,10 @@
 package fr.nantes1900.models.basis;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 
 import javax.vecmath.Vector3d;
@@ -357,30 +359,34 @@ public class Triangle {
     }
 
     /**
-     * Recursive method which returns in ret all the neighbours (and the
-     * neighbours of these neighbours...) of this triangle which belong to the
-     * container.
+     * Returns in ret all the neighbours (and the neighbours of these
+     * neighbours...) of this triangle which belong to the container. The
+     * neighbours are visited with a queue instead of recursive calls : the
+     * big blocks don't overflow the stack. To search several blocks in the
+     * same mesh, SubMesh.returnNeighbours uses an adjacency computed once.
      * @param ret
      *            the mesh in which are returned the triangles
      * @param container
      *            the mesh which must contain all the triangles
      */
     public final void returnNeighbours(final Mesh ret, final Mesh container) {
+        final Deque<Triangle> queue = new ArrayDeque<>();
 
         // Add this triangle.
         ret.add(this);
-
-        Triangle other;
-
-        // For each neighbour, ...
-        for (final Edge e : this.edges) {
-            other = e.returnOther(this);
-            // ... Which is not yet in ret, and which belongs to container ...
-            if (other != null && container.contains(other)
-                    && !ret.contains(other)) {
-
-                // ... Calls this method on this neighbour.
-                other.returnNeighbours(ret, container);
+        queue.add(this);
+
+        while (!queue.isEmpty()) {
+            final Triangle current = queue.poll();
+
+            // For each neighbour which belongs to container, and which is
+            // not yet in ret, adds it and visits it later.
+            for (final Edge e : current.edges) {
+                final Triangle other = e.returnOther(current);
+                if (other != null && container.contains(other)
+                        && ret.add(other)) {
+                    queue.add(other);
+                }
             }
         }
     }
@@ -0,0 +1,99 @@
+package fr.nantes1900.models.basis;
+
+import javax.vecmath.Vector3d;
+
+/**
+ * Implements a condition on the triangles, used to choose the triangles added
+ * to a block of neighbours. The usual conditions are given by the static
+ * methods, and can be combined with the method and.
+ * @author Daniel Lefevre
+ */
+public abstract class TriangleFilter {
+
+    /**
+     * Checks if a triangle is accepted by this filter.
+     * @param triangle
+     *            the triangle to check
+     * @return true if the triangle is accepted, false otherwise
+     */
+    public abstract boolean accept(final Triangle triangle);
+
+    /**
+     * Returns a filter accepting the triangles accepted by two filters.
+     * @param filter1
+     *            the first filter
+     * @param filter2
+     *            the second filter, checked only if the first one accepts
+     *            the triangle
+     * @return the filter
+     */
+    public static TriangleFilter and(final TriangleFilter filter1,
+            final TriangleFilter filter2) {
+        return new TriangleFilter() {
+            @Override
+            public boolean accept(final Triangle triangle) {
+                return filter1.accept(triangle) && filter2.accept(triangle);
+            }
+        };
+    }
+
+    /**
+     * Returns a filter accepting the triangles whose first point is near a
+     * point.
+     * @param point
+     *            the point, in general the first point of the first triangle
+     *            of the block
+     * @param distance
+     *            the maximum distance, excluded
+     * @return the filter
+     */
+    public static TriangleFilter closeTo(final Point point,
+            final double distance) {
+        return new TriangleFilter() {
+            @Override
+            public boolean accept(final Triangle triangle) {
+                return triangle.getP1().distance(point) < distance;
+            }
+        };
+    }
+
+    /**
+     * Returns a filter accepting the triangles located between two planes, as
+     * Mesh.inPlanes.
+     * @param normal
+     *            the vector normal of the two planes
+     * @param point
+     *            the point which locates the planes
+     * @param error
+     *            the distance between the point and each plane
+     * @return the filter
+     */
+    public static TriangleFilter inPlanes(final Vector3d normal,
+            final Point point, final double error) {
+        return new TriangleFilter() {
+            @Override
+            public boolean accept(final Triangle triangle) {
+                return triangle.isInPlanes(normal, point, error);
+            }
+        };
+    }
+
+    /**
+     * Returns a filter accepting the triangles oriented as a normal, as
+     * Mesh.orientedAs.
+     * @param normal
+     *            the normal
+     * @param error
+     *            the orientation error, in degrees
+     * @return the filter
+     */
+    public static TriangleFilter orientedAs(final Vector3d normal,
+            final double error) {
+        return new TriangleFilter() {
+            @Override
+            public boolean accept(final Triangle triangle) {
+                return triangle.angularTolerance(normal, error);
+            }
+        };
+    }
+}
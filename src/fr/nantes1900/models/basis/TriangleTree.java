@@ -0,0 +1,904 @@
+package fr.nantes1900.models.basis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.vecmath.Vector3d;
+
+/**
+ * Implements a bounding volume hierarchy over a set of triangles : each node
+ * keeps the box containing its triangles, and the queries visit only the
+ * nodes whose box can contain a result. The triangles are kept in an array :
+ * a node contains a part of the array, and its two children contain the two
+ * halves, split at the median along the longest axis of its box. The index
+ * of each node depends only on its part of the array, so the two halves are
+ * built in parallel for the big sets of triangles.
+ * <p>
+ * A triangle removed from the set is removed from the tree without changing
+ * the boxes, which still contain the other triangles. When the points move,
+ * the boxes must be computed again with refit.
+ * @author Daniel Lefevre
+ */
+public final class TriangleTree {
+
+    /**
+     * Number of coordinates of a point.
+     */
+    private static final int NB_COORDINATES = 3;
+
+    /**
+     * Number of bounds of a box : the minimum then the maximum along each
+     * axis.
+     */
+    private static final int NB_BOUNDS = 2 * TriangleTree.NB_COORDINATES;
+
+    /**
+     * Maximum number of triangles of a leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Minimum number of triangles of a part built by a parallel task.
+     */
+    private static final int TASK_TRIANGLES = 1 << 14;
+
+    /**
+     * Threshold under which a ray is considered as parallel to a triangle.
+     */
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * The pool building the big trees, shared by all the trees instead of
+     * starting threads for each one. Its threads are daemons : it does not
+     * prevent the application from exiting.
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+
+    /**
+     * The triangles, in the order of the tree, or null for the triangles
+     * removed.
+     */
+    private final Triangle[] triangles;
+
+    /**
+     * The boxes of the nodes : the node n is the box of index n. The root is
+     * the node 0, the first child of a node n is the node n + 1, and the
+     * second child is the node n + 2 * (number of triangles of the first
+     * child).
+     */
+    private final double[] bounds;
+
+    /**
+     * The positions of the triangles in the array.
+     */
+    private final Map<Triangle, Integer> positions;
+
+    /**
+     * The number of triangles not removed.
+     */
+    private int size;
+
+    /**
+     * The number of modifications of the points when the boxes were
+     * computed.
+     */
+    private long modifications = Point.getModifications();
+
+    /**
+     * Constructor.
+     * @param trianglesIn
+     *            the triangles of the tree
+     */
+    public TriangleTree(final Collection<Triangle> trianglesIn) {
+        this.triangles = trianglesIn.toArray(new Triangle[trianglesIn.size()]);
+        this.size = this.triangles.length;
+        this.bounds = new double[Math.max(1, 2 * this.size)
+                * TriangleTree.NB_BOUNDS];
+
+        if (this.size > TriangleTree.TASK_TRIANGLES) {
+            TriangleTree.POOL.invoke(new BuildTask(0, 0, this.size));
+        } else {
+            this.build(0, 0, this.size);
+        }
+
+        this.positions = new HashMap<>(this.size * 2);
+        for (int i = 0; i < this.size; i = i + 1) {
+            this.positions.put(this.triangles[i], Integer.valueOf(i));
+        }
+    }
+
+    /**
+     * Returns one coordinate of the centroid of a triangle.
+     * @param t
+     *            the triangle
+     * @param axis
+     *            the axis : 0, 1 or 2 for x, y or z
+     * @return the coordinate of the centroid
+     */
+    private static double centroid(final Triangle t, final int axis) {
+        if (axis == 0) {
+            return t.xAverage();
+        } else if (axis == 1) {
+            return t.yAverage();
+        } else {
+            return t.zAverage();
+        }
+    }
+
+    /**
+     * Computes the parameter of the intersection of a ray with a triangle,
+     * with the algorithm of Moller and Trumbore. The two sides of the
+     * triangle are hit.
+     * @param t
+     *            the triangle
+     * @param origin
+     *            the origin of the ray
+     * @param direction
+     *            the direction of the ray
+     * @return the parameter k such as the intersection is origin + k *
+     *         direction, or positive infinity if the ray does not hit the
+     *         triangle
+     */
+    public static double intersection(final Triangle t, final Point origin,
+            final Vector3d direction) {
+        final Vector3d edge1 = new Vector3d(t.getP2().getX()
+                - t.getP1().getX(), t.getP2().getY() - t.getP1().getY(), t
+                .getP2().getZ() - t.getP1().getZ());
+        final Vector3d edge2 = new Vector3d(t.getP3().getX()
+                - t.getP1().getX(), t.getP3().getY() - t.getP1().getY(), t
+                .getP3().getZ() - t.getP1().getZ());
+
+        final Vector3d p = new Vector3d();
+        p.cross(direction, edge2);
+        final double determinant = edge1.dot(p);
+        if (Math.abs(determinant) < TriangleTree.EPSILON) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double inverse = 1 / determinant;
+
+        final Vector3d s = new Vector3d(origin.getX() - t.getP1().getX(),
+                origin.getY() - t.getP1().getY(), origin.getZ()
+                        - t.getP1().getZ());
+        final double u = s.dot(p) * inverse;
+        if (u < 0 || u > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        final Vector3d q = new Vector3d();
+        q.cross(s, edge1);
+        final double v = direction.dot(q) * inverse;
+        if (v < 0 || u + v > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        final double k = edge2.dot(q) * inverse;
+        if (k < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return k;
+    }
+
+    /**
+     * Checks if a triangle is strictly inside a box.
+     * @param t
+     *            the triangle
+     * @param min
+     *            the minimum along each axis
+     * @param max
+     *            the maximum along each axis
+     * @return true if the triangle is inside the box, false otherwise
+     */
+    private static boolean isInBox(final Triangle t, final double[] min,
+            final double[] max) {
+        return t.xMin() > min[0] && t.xMax() < max[0] && t.yMin() > min[1]
+                && t.yMax() < max[1] && t.zMin() > min[2] && t.zMax() < max[2];
+    }
+
+    /**
+     * Returns one of the bounds of a triangle.
+     * @param t
+     *            the triangle
+     * @param bound
+     *            the bound : 0, 1 or 2 for the minimum along x, y or z, 3, 4
+     *            or 5 for the maximum along x, y or z
+     * @return the bound
+     */
+    private static double triangleBound(final Triangle t, final int bound) {
+        switch (bound) {
+        case 0:
+            return t.xMin();
+        case 1:
+            return t.yMin();
+        case 2:
+            return t.zMin();
+        case 3:
+            return t.xMax();
+        case 4:
+            return t.yMax();
+        default:
+            return t.zMax();
+        }
+    }
+
+    /**
+     * Builds a node : computes its box, and if it is not a leaf, sorts its
+     * triangles and builds its two children.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     */
+    private void build(final int node, final int from, final int to) {
+        if (to - from <= TriangleTree.LEAF_SIZE) {
+            this.fit(node, from, to);
+            return;
+        }
+        final int middle = this.split(node, from, to);
+        this.build(node + 1, from, middle);
+        this.build(node + 2 * (middle - from), middle, to);
+    }
+
+    /**
+     * Computes the square of the distance between a point and the box of a
+     * node.
+     * @param node
+     *            the index of the node
+     * @param p
+     *            the point
+     * @return the square of the distance, 0 if the point is in the box
+     */
+    private double distanceToBox(final int node, final Point p) {
+        final int b = node * TriangleTree.NB_BOUNDS;
+        final double[] coordinates = {p.getX(), p.getY(), p.getZ()};
+        double distance = 0;
+        for (int a = 0; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+            final double min = this.bounds[b + a];
+            final double max = this.bounds[b + TriangleTree.NB_COORDINATES
+                    + a];
+            double difference = 0;
+            if (coordinates[a] < min) {
+                difference = min - coordinates[a];
+            } else if (coordinates[a] > max) {
+                difference = coordinates[a] - max;
+            }
+            distance = distance + difference * difference;
+        }
+        return distance;
+    }
+
+    /**
+     * Computes the box of a node from its triangles.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     */
+    private void fit(final int node, final int from, final int to) {
+        final int b = node * TriangleTree.NB_BOUNDS;
+        for (int a = 0; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+            this.bounds[b + a] = Double.POSITIVE_INFINITY;
+            this.bounds[b + TriangleTree.NB_COORDINATES + a] =
+                    Double.NEGATIVE_INFINITY;
+        }
+        for (int i = from; i < to; i = i + 1) {
+            final Triangle t = this.triangles[i];
+            if (t != null) {
+                for (int a = 0; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+                    this.bounds[b + a] = Math.min(this.bounds[b + a],
+                            TriangleTree.triangleBound(t, a));
+                    final int m = TriangleTree.NB_COORDINATES + a;
+                    this.bounds[b + m] = Math.max(this.bounds[b + m],
+                            TriangleTree.triangleBound(t, m));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the triangles strictly inside a box.
+     * @param min
+     *            the minimum along each axis, which can be negative infinity
+     * @param max
+     *            the maximum along each axis, which can be positive infinity
+     * @return the list of the triangles found
+     */
+    public List<Triangle> inBox(final double[] min, final double[] max) {
+        final List<Triangle> found = new ArrayList<>();
+        this.inBox(0, 0, this.triangles.length, min, max, found,
+                Integer.MAX_VALUE);
+        return found;
+    }
+
+    /**
+     * Searches in a node for the triangles strictly inside a box. The nodes
+     * outside of the box are ignored, and the triangles of the nodes inside
+     * the box are added without checking them.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     * @param min
+     *            the minimum along each axis
+     * @param max
+     *            the maximum along each axis
+     * @param found
+     *            the list of the triangles found, completed by this method
+     * @param limit
+     *            the number of triangles after which the search stops
+     */
+    private void inBox(final int node, final int from, final int to,
+            final double[] min, final double[] max,
+            final List<Triangle> found, final int limit) {
+        if (from >= to || found.size() >= limit) {
+            return;
+        }
+        final int b = node * TriangleTree.NB_BOUNDS;
+        boolean inside = true;
+        for (int a = 0; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+            final double nodeMin = this.bounds[b + a];
+            final double nodeMax = this.bounds[b + TriangleTree.NB_COORDINATES
+                    + a];
+            if (nodeMax <= min[a] || nodeMin >= max[a]) {
+                return;
+            }
+            if (nodeMin <= min[a] || nodeMax >= max[a]) {
+                inside = false;
+            }
+        }
+
+        if (inside || to - from <= TriangleTree.LEAF_SIZE) {
+            for (int i = from; i < to && found.size() < limit; i = i + 1) {
+                final Triangle t = this.triangles[i];
+                if (t != null
+                        && (inside || TriangleTree.isInBox(t, min, max))) {
+                    found.add(t);
+                }
+            }
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        this.inBox(node + 1, from, middle, min, max, found, limit);
+        this.inBox(node + 2 * (middle - from), middle, to, min, max, found,
+                limit);
+    }
+
+    /**
+     * Returns the first triangle hit by a ray.
+     * @param origin
+     *            the origin of the ray
+     * @param direction
+     *            the direction of the ray
+     * @return the triangle hit the closest to the origin, or null if the ray
+     *         does not hit any triangle
+     */
+    public Triangle intersect(final Point origin, final Vector3d direction) {
+        final Triangle[] best = new Triangle[1];
+        final double[] bestParameter = {Double.POSITIVE_INFINITY};
+        this.intersect(0, 0, this.triangles.length, origin, direction, best,
+                bestParameter);
+        return best[0];
+    }
+
+    /**
+     * Searches in a node for the first triangle hit by a ray. The child whose
+     * box is hit first is searched first, and a node is ignored if its box is
+     * hit after the closest triangle found.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     * @param origin
+     *            the origin of the ray
+     * @param direction
+     *            the direction of the ray
+     * @param best
+     *            the closest triangle found, updated by this method
+     * @param bestParameter
+     *            the parameter of the intersection with the closest triangle
+     *            found, updated by this method
+     */
+    private void intersect(final int node, final int from, final int to,
+            final Point origin, final Vector3d direction,
+            final Triangle[] best, final double[] bestParameter) {
+        if (from >= to) {
+            return;
+        }
+        if (this.intersectBox(node, origin, direction) >= bestParameter[0]) {
+            return;
+        }
+
+        if (to - from <= TriangleTree.LEAF_SIZE) {
+            for (int i = from; i < to; i = i + 1) {
+                final Triangle t = this.triangles[i];
+                if (t != null) {
+                    final double k = TriangleTree.intersection(t, origin,
+                            direction);
+                    if (k < bestParameter[0]) {
+                        best[0] = t;
+                        bestParameter[0] = k;
+                    }
+                }
+            }
+            return;
+        }
+
+        final int middle = (from + to) >>> 1;
+        final int first = node + 1;
+        final int second = node + 2 * (middle - from);
+        if (this.intersectBox(first, origin, direction) <= this.intersectBox(
+                second, origin, direction)) {
+            this.intersect(first, from, middle, origin, direction, best,
+                    bestParameter);
+            this.intersect(second, middle, to, origin, direction, best,
+                    bestParameter);
+        } else {
+            this.intersect(second, middle, to, origin, direction, best,
+                    bestParameter);
+            this.intersect(first, from, middle, origin, direction, best,
+                    bestParameter);
+        }
+    }
+
+    /**
+     * Computes the parameter where a ray enters the box of a node, with the
+     * slabs method.
+     * @param node
+     *            the index of the node
+     * @param origin
+     *            the origin of the ray
+     * @param direction
+     *            the direction of the ray
+     * @return the parameter where the ray enters the box, 0 if the origin is
+     *         in the box, or positive infinity if the ray does not hit the
+     *         box
+     */
+    private double intersectBox(final int node, final Point origin,
+            final Vector3d direction) {
+        final int b = node * TriangleTree.NB_BOUNDS;
+        final double[] start = {origin.getX(), origin.getY(), origin.getZ()};
+        final double[] vector = {direction.getX(), direction.getY(),
+                direction.getZ()};
+        double enter = 0;
+        double exit = Double.POSITIVE_INFINITY;
+
+        for (int a = 0; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+            final double min = this.bounds[b + a];
+            final double max = this.bounds[b + TriangleTree.NB_COORDINATES
+                    + a];
+            if (vector[a] == 0) {
+                if (start[a] < min || start[a] > max) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            } else {
+                final double k1 = (min - start[a]) / vector[a];
+                final double k2 = (max - start[a]) / vector[a];
+                enter = Math.max(enter, Math.min(k1, k2));
+                exit = Math.min(exit, Math.max(k1, k2));
+            }
+        }
+
+        if (enter > exit) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return enter;
+    }
+
+    /**
+     * Checks if no point has been moved since the boxes were computed.
+     * @return true if the boxes are valid, false otherwise
+     */
+    boolean isValid() {
+        return this.modifications == Point.getModifications();
+    }
+
+    /**
+     * Returns the triangle having the smallest minimum along an axis.
+     * @param axis
+     *            the axis : 0, 1 or 2 for x, y or z
+     * @return the triangle found, or null if the tree is empty
+     */
+    public Triangle minimum(final int axis) {
+        final Triangle[] best = new Triangle[1];
+        final double[] bestValue = {Double.POSITIVE_INFINITY};
+        this.minimum(0, 0, this.triangles.length, axis, best, bestValue);
+        return best[0];
+    }
+
+    /**
+     * Searches in a node for the triangle having the smallest minimum along
+     * an axis. A node is ignored if its box begins after the best triangle
+     * found.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     * @param axis
+     *            the axis
+     * @param best
+     *            the best triangle found, updated by this method
+     * @param bestValue
+     *            the minimum of the best triangle found, updated by this
+     *            method
+     */
+    private void minimum(final int node, final int from, final int to,
+            final int axis, final Triangle[] best, final double[] bestValue) {
+        if (from >= to) {
+            return;
+        }
+        if (this.bounds[node * TriangleTree.NB_BOUNDS + axis] >= bestValue[0]) {
+            return;
+        }
+
+        if (to - from <= TriangleTree.LEAF_SIZE) {
+            for (int i = from; i < to; i = i + 1) {
+                final Triangle t = this.triangles[i];
+                if (t != null
+                        && TriangleTree.triangleBound(t, axis) < bestValue[0]) {
+                    best[0] = t;
+                    bestValue[0] = TriangleTree.triangleBound(t, axis);
+                }
+            }
+            return;
+        }
+
+        final int middle = (from + to) >>> 1;
+        this.minimum(node + 1, from, middle, axis, best, bestValue);
+        this.minimum(node + 2 * (middle - from), middle, to, axis, best,
+                bestValue);
+    }
+
+    /**
+     * Returns the triangles whose centroids are the closest to a point.
+     * @param p
+     *            the point
+     * @param k
+     *            the number of triangles to return
+     * @return the k triangles (or less if the tree contains less triangles)
+     *         whose centroids are the closest to p, from the closest
+     */
+    public List<Triangle> nearest(final Point p, final int k) {
+        final PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        if (k > 0) {
+            this.nearest(0, 0, this.triangles.length, p, k, candidates);
+        }
+
+        final Triangle[] sorted = new Triangle[candidates.size()];
+        for (int i = sorted.length - 1; i >= 0; i = i - 1) {
+            sorted[i] = candidates.poll().triangle;
+        }
+        return Arrays.asList(sorted);
+    }
+
+    /**
+     * Searches in a node for the triangles whose centroids are the closest to
+     * a point. A node is ignored if its box is further than the k-th
+     * triangle found.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     * @param p
+     *            the point
+     * @param k
+     *            the number of triangles to find
+     * @param candidates
+     *            the best triangles found, with the furthest at the head,
+     *            updated by this method
+     */
+    private void nearest(final int node, final int from, final int to,
+            final Point p, final int k,
+            final PriorityQueue<Candidate> candidates) {
+        if (from >= to
+                || candidates.size() == k
+                && this.distanceToBox(node, p) >= candidates.peek().distance) {
+            return;
+        }
+
+        if (to - from <= TriangleTree.LEAF_SIZE) {
+            for (int i = from; i < to; i = i + 1) {
+                final Triangle t = this.triangles[i];
+                if (t != null) {
+                    final double dx = t.xAverage() - p.getX();
+                    final double dy = t.yAverage() - p.getY();
+                    final double dz = t.zAverage() - p.getZ();
+                    final double distance = dx * dx + dy * dy + dz * dz;
+                    if (candidates.size() < k) {
+                        candidates.add(new Candidate(t, distance));
+                    } else if (distance < candidates.peek().distance) {
+                        candidates.poll();
+                        candidates.add(new Candidate(t, distance));
+                    }
+                }
+            }
+            return;
+        }
+
+        final int middle = (from + to) >>> 1;
+        final int first = node + 1;
+        final int second = node + 2 * (middle - from);
+        if (this.distanceToBox(first, p) <= this.distanceToBox(second, p)) {
+            this.nearest(first, from, middle, p, k, candidates);
+            this.nearest(second, middle, to, p, k, candidates);
+        } else {
+            this.nearest(second, middle, to, p, k, candidates);
+            this.nearest(first, from, middle, p, k, candidates);
+        }
+    }
+
+    /**
+     * Returns one triangle strictly inside a box.
+     * @param min
+     *            the minimum along each axis, which can be negative infinity
+     * @param max
+     *            the maximum along each axis, which can be positive infinity
+     * @return the first triangle found, or null if there is none
+     */
+    public Triangle oneInBox(final double[] min, final double[] max) {
+        final List<Triangle> found = new ArrayList<>(1);
+        this.inBox(0, 0, this.triangles.length, min, max, found, 1);
+        if (found.isEmpty()) {
+            return null;
+        }
+        return found.get(0);
+    }
+
+    /**
+     * Computes the boxes of a node and of its children from the triangles,
+     * without sorting the triangles again.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     */
+    private void refit(final int node, final int from, final int to) {
+        if (to - from <= TriangleTree.LEAF_SIZE) {
+            this.fit(node, from, to);
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        final int first = node + 1;
+        final int second = node + 2 * (middle - from);
+        this.refit(first, from, middle);
+        this.refit(second, middle, to);
+
+        final int b = node * TriangleTree.NB_BOUNDS;
+        final int b1 = first * TriangleTree.NB_BOUNDS;
+        final int b2 = second * TriangleTree.NB_BOUNDS;
+        for (int a = 0; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+            this.bounds[b + a] = Math.min(this.bounds[b1 + a],
+                    this.bounds[b2 + a]);
+            final int m = TriangleTree.NB_COORDINATES + a;
+            this.bounds[b + m] = Math.max(this.bounds[b1 + m],
+                    this.bounds[b2 + m]);
+        }
+    }
+
+    /**
+     * Computes again the boxes of the nodes, after some points have moved.
+     * The order of the triangles is kept : the queries stay right, but can
+     * be slower if the points have moved a lot.
+     */
+    public void refit() {
+        this.refit(0, 0, this.triangles.length);
+        this.modifications = Point.getModifications();
+    }
+
+    /**
+     * Removes a triangle from the tree. The boxes are not changed.
+     * @param t
+     *            the triangle to remove
+     */
+    public void remove(final Triangle t) {
+        final Integer position = this.positions.remove(t);
+        if (position != null) {
+            this.triangles[position.intValue()] = null;
+            this.size = this.size - 1;
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles of the tree
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Computes the box of a node, then splits its triangles at the median
+     * along the longest axis of the box.
+     * @param node
+     *            the index of the node
+     * @param from
+     *            the first triangle of the node
+     * @param to
+     *            the triangle after the last triangle of the node
+     * @return the index of the first triangle of the second child
+     */
+    private int split(final int node, final int from, final int to) {
+        this.fit(node, from, to);
+        final int b = node * TriangleTree.NB_BOUNDS;
+        int axis = 0;
+        for (int a = 1; a < TriangleTree.NB_COORDINATES; a = a + 1) {
+            if (this.bounds[b + TriangleTree.NB_COORDINATES + a]
+                    - this.bounds[b + a] > this.bounds[b
+                    + TriangleTree.NB_COORDINATES + axis]
+                    - this.bounds[b + axis]) {
+                axis = a;
+            }
+        }
+        final int middle = (from + to) >>> 1;
+        this.select(from, to, middle, axis);
+        return middle;
+    }
+
+    /**
+     * Moves the triangles of a part of the array, so that the triangle at a
+     * position is the one which would be there if the part was sorted along
+     * an axis, with no triangle after it before this position and no
+     * triangle before it after this position. It is enough to split a node,
+     * and faster than sorting the part.
+     * @param from
+     *            the first triangle of the part
+     * @param to
+     *            the triangle after the last triangle of the part
+     * @param position
+     *            the position
+     * @param axis
+     *            the axis : 0, 1 or 2 for x, y or z
+     */
+    private void select(final int from, final int to, final int position,
+            final int axis) {
+        int left = from;
+        int right = to - 1;
+        while (left < right) {
+            final double pivot = TriangleTree.centroid(
+                    this.triangles[(left + right) >>> 1], axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (TriangleTree.centroid(this.triangles[i], axis) < pivot) {
+                    i = i + 1;
+                }
+                while (TriangleTree.centroid(this.triangles[j], axis) > pivot) {
+                    j = j - 1;
+                }
+                if (i <= j) {
+                    final Triangle swap = this.triangles[i];
+                    this.triangles[i] = this.triangles[j];
+                    this.triangles[j] = swap;
+                    i = i + 1;
+                    j = j - 1;
+                }
+            }
+            if (position <= j) {
+                right = j;
+            } else if (position >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Implements a task building a node of the tree and its children, which
+     * divides itself while the node is big.
+     * @author Daniel Lefevre
+     */
+    private final class BuildTask extends RecursiveAction {
+
+        /**
+         * Version attribute.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The index of the node.
+         */
+        private final int node;
+
+        /**
+         * The first triangle of the node.
+         */
+        private final int from;
+
+        /**
+         * The triangle after the last triangle of the node.
+         */
+        private final int to;
+
+        /**
+         * Constructor.
+         * @param nodeIn
+         *            the index of the node
+         * @param fromIn
+         *            the first triangle of the node
+         * @param toIn
+         *            the triangle after the last triangle of the node
+         */
+        public BuildTask(final int nodeIn, final int fromIn, final int toIn) {
+            this.node = nodeIn;
+            this.from = fromIn;
+            this.to = toIn;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= TriangleTree.TASK_TRIANGLES) {
+                TriangleTree.this.build(this.node, this.from, this.to);
+                return;
+            }
+            final int middle = TriangleTree.this.split(this.node, this.from,
+                    this.to);
+            RecursiveAction.invokeAll(new BuildTask(this.node + 1, this.from,
+                    middle), new BuildTask(this.node + 2
+                    * (middle - this.from), middle, this.to));
+        }
+    }
+
+    /**
+     * Implements a triangle found by the search of the closest triangles,
+     * ordered from the furthest.
+     * @author Daniel Lefevre
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+
+        /**
+         * The triangle.
+         */
+        private final Triangle triangle;
+
+        /**
+         * The square of the distance between the centroid of the triangle
+         * and the point searched.
+         */
+        private final double distance;
+
+        /**
+         * Constructor.
+         * @param triangleIn
+         *            the triangle
+         * @param distanceIn
+         *            the square of the distance
+         */
+        public Candidate(final Triangle triangleIn, final double distanceIn) {
+            this.triangle = triangleIn;
+            this.distance = distanceIn;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        @Override
+        public int compareTo(final Candidate other) {
+            return Double.compare(other.distance, this.distance);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package fr.nantes1900.models.extended;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
@@ -15,6 +16,7 @@ import fr.nantes1900.models.basis.Triangle;
 import fr.nantes1900.models.coefficients.SimplificationSurfaces;
 import fr.nantes1900.models.extended.steps.BuildingStep5;
 import fr.nantes1900.utils.MatrixMethod.SingularMatrixException;
+import fr.nantes1900.utils.VertexWelder;
 
 /**
  * Implements a surface, extending a mesh, and containing a list of surfaces as
@@ -110,15 +112,15 @@ public class Surface {
      * With four planes (the three in parameters plus this), builds an edge.
      * Computes the intersection of the first three planes, and the three next.
      * If one plane is wall, rectifies its normal to be vertical. If one point
-     * has already been created before, use the hashmap to find it.
+     * has already been created before, use the welder of points to find it.
      * @param s1
      *            the first plane
      * @param s2
      *            the second plane
      * @param s3
      *            the third plane
-     * @param pointMap
-     *            the map of existing points
+     * @param pointWelder
+     *            the welder of existing points
      * @param wallList
      *            the list of the walls
      * @param normalGround
@@ -128,7 +130,7 @@ public class Surface {
      *             if the algorithm cannot comput the edge
      */
     private Edge createEdge(final Surface s1, final Surface s2,
-            final Surface s3, final Map<Point, Point> pointMap,
+            final Surface s3, final VertexWelder pointWelder,
             final List<Wall> wallList, final Vector3d normalGround)
             throws InvalidSurfaceException {
         final List<Surface> surfaces = new ArrayList<>();
@@ -179,22 +181,12 @@ public class Surface {
             Point p2 = surface.getMesh().intersection(list.get(1).getMesh(),
                     list.get(2).getMesh());
 
-            // Searches in the map to find if another point with the same value
-            // doesn't already exist.
-            Point pTemp = pointMap.get(p1);
-            if (pTemp == null) {
-                pointMap.put(p1, p1);
-            } else {
-                p1 = pTemp;
-            }
+            // Searches in the welder to find if another point with the same
+            // value doesn't already exist.
+            p1 = pointWelder.weldPoint(p1);
 
             // Idem.
-            pTemp = pointMap.get(p2);
-            if (pTemp == null) {
-                pointMap.put(p2, p2);
-            } else {
-                p2 = pTemp;
-            }
+            p2 = pointWelder.weldPoint(p2);
 
             final Edge e = new Edge(p1, p2);
 
@@ -214,8 +206,8 @@ public class Surface {
      * polyline with the edges returned.
      * @param wallList
      *            the list of walls to check if the surface is a wall or not
-     * @param pointMap
-     *            the map of points
+     * @param pointWelder
+     *            the welder of points
      * @param normalGround
      *            the normal to the ground
      * @return a polyline made from all the edges of this surface, and which
@@ -224,7 +216,7 @@ public class Surface {
      *             if a problem happened
      */
     public final Polygon findEdges(final List<Wall> wallList,
-            final Map<Point, Point> pointMap, final Vector3d normalGround)
+            final VertexWelder pointWelder, final Vector3d normalGround)
             throws InvalidSurfaceException {
 
         if (this.getNeighbours().size() < BuildingStep5.NUMBER_MIN_OF_NEIGHBOURS) {
@@ -239,7 +231,7 @@ public class Surface {
 
             edges.add(this.createEdge(this.getNeighbours().get(i), this
                     .getNeighbours().get(i + 1), this.getNeighbours()
-                    .get(i + 2), pointMap, wallList, normalGround));
+                    .get(i + 2), pointWelder, wallList, normalGround));
         }
 
         final int size = this.getNeighbours().size();
@@ -248,11 +240,11 @@ public class Surface {
         // loop.
         edges.add(this.createEdge(this.getNeighbours().get(size - 2), this
                 .getNeighbours().get(size - 1), this.getNeighbours().get(0),
-                pointMap, wallList, normalGround));
+                pointWelder, wallList, normalGround));
 
         edges.add(this.createEdge(this.getNeighbours().get(size - 1), this
-                .getNeighbours().get(0), this.getNeighbours().get(1), pointMap,
-                wallList, normalGround));
+                .getNeighbours().get(0), this.getNeighbours().get(1),
+                pointWelder, wallList, normalGround));
 
         edges.setNormal(this.getMesh().averageNormal());
 
@@ -279,10 +271,12 @@ public class Surface {
         for (final Surface s : this.getNeighbours()) {
             if (!neighboursOrdered.contains(s)
                     && !current.getNeighbours().contains(s)) {
-                if (current.getMesh().minimalDistance(s.getMesh()) < distanceMin) {
+                // The meshes keep the trees of the points of their bounds.
+                final double distance = current.getMesh().minimalDistance(
+                        s.getMesh());
+                if (distance < distanceMin) {
                     possible = s;
-                    distanceMin = current.getMesh()
-                            .minimalDistance(s.getMesh());
+                    distanceMin = distance;
                 }
             }
         }
@@ -438,7 +432,8 @@ public class Surface {
 
     /**
      * Returns the meshes belonging to the list contain which are neighbours of
-     * this in the list ret. Recursive method.
+     * this in the list ret. The neighbours are visited with a queue, instead
+     * of recursive calls.
      * @param ret
      *            the list returned which contains the neighbours
      * @param contain
@@ -446,16 +441,20 @@ public class Surface {
      */
     public final void returnNeighbours(final List<Surface> ret,
             final List<Surface> contain) {
+        final Deque<Surface> queue = new ArrayDeque<>();
 
         // Add this to the ret list.
         ret.add(this);
-
-        // If this is not contained by ret and if this is contained in
-        // contain,
-        // then call this method.
-        for (final Surface m : this.getNeighbours()) {
-            if (!ret.contains(m) && contain.contains(m)) {
-                m.returnNeighbours(ret, contain);
+        queue.add(this);
+
+        // If a neighbour is not contained by ret and if it is contained in
+        // contain, then adds it and visits it later.
+        while (!queue.isEmpty()) {
+            for (final Surface m : queue.poll().getNeighbours()) {
+                if (!ret.contains(m) && contain.contains(m)) {
+                    ret.add(m);
+                    queue.add(m);
+                }
             }
         }
     }
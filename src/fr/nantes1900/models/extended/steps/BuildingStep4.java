@@ -1,13 +1,13 @@
 package fr.nantes1900.models.extended.steps;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.basis.Mesh;
-import fr.nantes1900.models.basis.Polygon;
 import fr.nantes1900.models.coefficients.SeparationWallsSeparationRoofs;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.extended.Ground;
@@ -181,12 +181,10 @@ public class BuildingStep4 extends AbstractBuildingStep {
 
     /**
      * Searches for every surfaces to check if it shares an edge with another
-     * surface : then they are neighbours.
+     * surface : then they are neighbours. The grounds are the last mesh given
+     * to Algos.blockNeighbours, which finds all the neighbours in one pass.
      */
     private void searchForNeighbours() {
-        final Polygon groundsBounds = this.grounds.getMesh()
-                .returnUnsortedBounds();
-
         final List<Surface> wholeList = new ArrayList<>();
         wholeList.addAll(this.walls);
         wholeList.addAll(this.roofs);
@@ -198,26 +196,26 @@ public class BuildingStep4 extends AbstractBuildingStep {
         // And we clear the neighbours of the grounds.
         this.grounds.getNeighbours().clear();
 
-        final List<Polygon> wholeBoundsList = new ArrayList<>();
-
-        // We compute the bounds to check if they share a common edge.
+        final List<Mesh> meshes = new ArrayList<>();
         for (final Surface m : wholeList) {
-            wholeBoundsList.add(m.getMesh().returnUnsortedBounds());
+            meshes.add(m.getMesh());
         }
+        meshes.add(this.grounds.getMesh());
 
         // Then we check every edge of the bounds to see if some are shared
         // by two meshes. If they do, they are neighbours.
-        for (int i = 0; i < wholeBoundsList.size(); i = i + 1) {
-            final Polygon polygone1 = wholeBoundsList.get(i);
+        final List<BitSet> neighbours = Algos.blockNeighbours(meshes);
+        final int groundsIndex = wholeList.size();
+        for (int i = 0; i < wholeList.size(); i = i + 1) {
+            final BitSet set = neighbours.get(i);
 
-            for (int j = i + 1; j < wholeBoundsList.size(); j = j + 1) {
-                final Polygon polygone2 = wholeBoundsList.get(j);
-                if (polygone1.isNeighbour(polygone2)) {
-                    wholeList.get(i).addNeighbour(wholeList.get(j));
-                }
+            int j = set.nextSetBit(i + 1);
+            while (j >= 0 && j < groundsIndex) {
+                wholeList.get(i).addNeighbour(wholeList.get(j));
+                j = set.nextSetBit(j + 1);
             }
 
-            if (polygone1.isNeighbour(groundsBounds)) {
+            if (set.get(groundsIndex)) {
                 wholeList.get(i).addNeighbour(this.grounds);
             }
         }
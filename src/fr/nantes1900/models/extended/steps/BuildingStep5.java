@@ -1,16 +1,13 @@
 package fr.nantes1900.models.extended.steps;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.basis.Mesh;
-import fr.nantes1900.models.basis.Point;
-import fr.nantes1900.models.basis.Polygon;
 import fr.nantes1900.models.coefficients.SeparationWallsSeparationRoofs;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.extended.Ground;
@@ -20,6 +17,7 @@ import fr.nantes1900.models.extended.Surface.ImpossibleNeighboursOrderException;
 import fr.nantes1900.models.extended.Surface.InvalidSurfaceException;
 import fr.nantes1900.models.extended.Wall;
 import fr.nantes1900.utils.Algos;
+import fr.nantes1900.utils.VertexWelder;
 
 /**
  * Implements a building step : a state of the building. This step is after
@@ -58,9 +56,9 @@ public class BuildingStep5 extends AbstractBuildingStep {
     private Ground ground;
 
     /**
-     * List of points used when finding the edges.
+     * Welder of the points used when finding the edges.
      */
-    private Map<Point, Point> pointMap;
+    private VertexWelder pointWelder;
 
     /**
      * Constructor.
@@ -108,7 +106,9 @@ public class BuildingStep5 extends AbstractBuildingStep {
     }
 
     /**
-     * Determinates the neighbours of a surface.
+     * Determinates the neighbours of a surface. The grounds are the last mesh
+     * given to Algos.blockNeighbours, which finds all the neighbours in one
+     * pass.
      * @param wallsIn
      *            the walls
      * @param roofsIn
@@ -116,9 +116,6 @@ public class BuildingStep5 extends AbstractBuildingStep {
      */
     public final void determinateNeighbours(final List<Wall> wallsIn,
             final List<Roof> roofsIn) {
-        final Polygon groundsBounds = this.ground.getMesh()
-                .returnUnsortedBounds();
-
         final List<Surface> wholeList = new ArrayList<>();
         wholeList.addAll(wallsIn);
         wholeList.addAll(roofsIn);
@@ -142,26 +139,23 @@ public class BuildingStep5 extends AbstractBuildingStep {
         // And we clear the neighbours of the grounds.
         this.ground.getNeighbours().clear();
 
-        // We compute the bounds to check if they share a common edge.
-        final List<Polygon> wholeBoundsList = new ArrayList<>();
-        for (final Mesh m : wholeListFakes) {
-            wholeBoundsList.add(m.returnUnsortedBounds());
-        }
+        final List<Mesh> meshes = new ArrayList<>(wholeListFakes);
+        meshes.add(this.ground.getMesh());
 
         // Then we check every edge of the bounds to see if some are shared by
         // two meshes. If they do, they are neighbours.
-        for (int i = 0; i < wholeBoundsList.size(); i = i + 1) {
-            final Polygon polygone1 = wholeBoundsList.get(i);
-
-            for (int j = i + 1; j < wholeBoundsList.size(); j = j + 1) {
-                final Polygon polygone2 = wholeBoundsList.get(j);
-
-                if (polygone1.isNeighbour(polygone2)) {
-                    wholeList.get(i).addNeighbour(wholeList.get(j));
-                }
+        final List<BitSet> neighbours = Algos.blockNeighbours(meshes);
+        final int groundIndex = wholeList.size();
+        for (int i = 0; i < wholeList.size(); i = i + 1) {
+            final BitSet set = neighbours.get(i);
+
+            int j = set.nextSetBit(i + 1);
+            while (j >= 0 && j < groundIndex) {
+                wholeList.get(i).addNeighbour(wholeList.get(j));
+                j = set.nextSetBit(j + 1);
             }
 
-            if (polygone1.isNeighbour(groundsBounds)) {
+            if (set.get(groundIndex)) {
                 wholeList.get(i).addNeighbour(this.ground);
             }
         }
@@ -174,7 +168,7 @@ public class BuildingStep5 extends AbstractBuildingStep {
      */
     public final void determinateOneContour(final Surface surface) {
         try {
-            surface.setPolygon(surface.findEdges(this.walls, this.pointMap,
+            surface.setPolygon(surface.findEdges(this.walls, this.pointWelder,
                     this.groundNormal));
         } catch (InvalidSurfaceException e) {
             // If there is a problem, we cannot continue the process.
@@ -242,10 +236,10 @@ public class BuildingStep5 extends AbstractBuildingStep {
      */
     public final void orderNeighboursAndDeterminateContours(
             final List<Wall> wallsIn, final List<Roof> roofsIn) {
-        // Creates the map where the points and edges will be put : if one
+        // Creates the welder where the points will be put : if one
         // point is created a second time, it will be given the same
         // reference as the other one having the same values.
-        this.pointMap = new HashMap<>();
+        this.pointWelder = new VertexWelder();
 
         // Adds all the surfaces
         final List<Surface> wholeList = new ArrayList<>();
@@ -261,7 +255,7 @@ public class BuildingStep5 extends AbstractBuildingStep {
 
                 // When the neighbours are sorted, finds the intersection of
                 // them to find the edges of this surface.
-                surface.setPolygon(surface.findEdges(wallsIn, this.pointMap,
+                surface.setPolygon(surface.findEdges(wallsIn, this.pointWelder,
                         this.groundNormal));
 
             } catch (final InvalidSurfaceException e) {
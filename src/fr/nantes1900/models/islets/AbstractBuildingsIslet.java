@@ -1,5 +1,17 @@
 package fr.nantes1900.models.islets;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
@@ -8,7 +20,9 @@ import fr.nantes1900.models.exceptions.InvalidCaseException;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Roof;
+import fr.nantes1900.models.extended.Surface;
 import fr.nantes1900.models.extended.Wall;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep0;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep1;
@@ -18,6 +32,7 @@ import fr.nantes1900.models.islets.steps.BuildingsIsletStep4;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep5;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep6;
 import fr.nantes1900.utils.MatrixMethod;
+import fr.nantes1900.utils.WriterIndexed;
 import fr.nantes1900.utils.WriterSTL;
 
 /**
@@ -315,39 +330,203 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet {
         }
     }
 
+    /**
+     * Builds the name of a file from another name, adding a suffix before the
+     * extension : for example results_ground.stl.gz from results.stl.gz.
+     * @param fileName
+     *            the name of the file
+     * @param suffix
+     *            the suffix to add
+     * @return the name of the new file
+     */
+    private static String returnFileName(final String fileName,
+            final String suffix) {
+        final int nameIndex = fileName.lastIndexOf(File.separatorChar) + 1;
+        final int dotIndex = fileName.indexOf('.', nameIndex);
+        if (dotIndex < 0) {
+            return fileName + "_" + suffix;
+        }
+        return fileName.substring(0, dotIndex) + "_" + suffix
+                + fileName.substring(dotIndex);
+    }
+
+    /**
+     * Returns the mesh to save of a surface : the centroid mesh of its
+     * polygon if it has one (it means it has been simplified), or its mesh.
+     * @param surface
+     *            the surface to save
+     * @return the mesh to save
+     */
+    private static Mesh returnFinalMesh(final Surface surface) {
+        if (surface.getPolygon() != null) {
+            return surface.getPolygon().returnCentroidMesh();
+        }
+        return surface.getMesh();
+    }
+
+    /**
+     * Saves the results of each building in its own file, and the grounds in
+     * another file. The files are written concurrently, by a bounded number of
+     * threads. The names of the files are built from the name given, adding
+     * the number of the building, or ground, before its extension : for
+     * example results_0.stl, results_1.stl and results_ground.stl for
+     * results.stl. The format depends on the extension, as in
+     * saveFinalResults. The method returns when all the files have been
+     * written, even if some of them failed.
+     * @param fileName
+     *            the name of the file, used to build the names of the files
+     * @param threadsNumber
+     *            the maximum number of files written at the same time
+     * @throws IOException
+     *             if some files could not be written : the errors are the
+     *             cause and the suppressed exceptions of this exception. An
+     *             InterruptedIOException is thrown if the thread is
+     *             interrupted while waiting for the files
+     */
+    public final void saveBuildingsResults(final String fileName,
+            final int threadsNumber) throws IOException {
+        final List<Building> buildings = this.getBiStep6().getBuildings();
+        final Ground grounds = this.getBiStep6().getGrounds();
+        final List<Building> noBuilding = Collections.emptyList();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math
+                .max(threadsNumber, 1));
+        final List<Future<Void>> futures = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+        try {
+            for (int i = 0; i < buildings.size(); i = i + 1) {
+                final List<Building> building = Collections
+                        .singletonList(buildings.get(i));
+                final String buildingFileName = AbstractBuildingsIslet
+                        .returnFileName(fileName, String.valueOf(i));
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        AbstractBuildingsIslet.saveResults(buildingFileName,
+                                building, null);
+                        return null;
+                    }
+                }));
+            }
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    AbstractBuildingsIslet.saveResults(AbstractBuildingsIslet
+                            .returnFileName(fileName, "ground"), noBuilding,
+                            grounds);
+                    return null;
+                }
+            }));
+
+            // Waits for all the files to be written, even after a failure :
+            // the other files are still being written.
+            for (final Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+        } catch (final InterruptedException e) {
+            // The files not written yet are not waited for : the caller must
+            // know that the results are incomplete.
+            Thread.currentThread().interrupt();
+            final InterruptedIOException exception = new InterruptedIOException(
+                    "Interrupted while writing the files of results");
+            exception.initCause(e);
+            throw exception;
+        } finally {
+            executor.shutdown();
+        }
+
+        if (!failures.isEmpty()) {
+            final IOException exception = new IOException(failures.size()
+                    + " of the " + futures.size()
+                    + " files of results could not be written",
+                    failures.get(0));
+            for (int i = 1; i < failures.size(); i = i + 1) {
+                exception.addSuppressed(failures.get(i));
+            }
+            throw exception;
+        }
+    }
+
     /**
      * Saves the results in the file (erase the file if it already exists).
      * Saves the polygons of the surface which have one (it means which have
-     * been simplified) or saves the meshes of the other surfaces.
+     * been simplified) or saves the meshes of the other surfaces. If the name
+     * of the file ends with the extension of the PLY or the OBJ files, the
+     * results are written as an indexed mesh, with the label of each face :
+     * ground, wall or roof. Otherwise they are written in a STL file. In both
+     * cases, the file is compressed if its name ends with the extension of
+     * gzip.
      * @param fileName
      *            the name of the file
+     * @throws IOException
+     *             if the file could not be written
      */
-    public final void saveFinalResults(final String fileName) {
-        Mesh totalSurface = new Mesh();
-
-        for (Building b : this.getBiStep6().getBuildings()) {
+    public final void saveFinalResults(final String fileName)
+            throws IOException {
+        AbstractBuildingsIslet.saveResults(fileName, this.getBiStep6()
+                .getBuildings(), this.getBiStep6().getGrounds());
+    }
 
-            for (Wall w : b.getbStep6().getWalls()) {
-                if (w.getPolygon() != null) {
-                    totalSurface.addAll(w.getPolygon().returnCentroidMesh());
-                } else {
-                    totalSurface.addAll(w.getMesh());
+    /**
+     * Saves the surfaces of buildings and grounds in one file. The meshes of
+     * the surfaces are given to the writer one after the other, without being
+     * merged in one mesh first.
+     * @param fileName
+     *            the name of the file : its extension gives the format
+     * @param buildings
+     *            the buildings to save
+     * @param grounds
+     *            the grounds to save, or null
+     * @throws IOException
+     *             if the file could not be written
+     */
+    private static void saveResults(final String fileName,
+            final List<Building> buildings, final Ground grounds)
+            throws IOException {
+        // The extension of gzip is ignored to find the format : city.ply.gz
+        // is a compressed PLY file.
+        final int mode = WriterIndexed.returnMode(fileName);
+        if (mode != WriterIndexed.NOT_INDEXED) {
+            // The points shared by the polygons of the surfaces, computed in
+            // the fifth step, are written once.
+            final WriterIndexed writer = new WriterIndexed(fileName, mode);
+
+            if (grounds != null) {
+                writer.addMesh(grounds.getMesh(), WriterIndexed.GROUND_LABEL);
+            }
+            for (Building b : buildings) {
+                for (Wall w : b.getbStep6().getWalls()) {
+                    writer.addMesh(AbstractBuildingsIslet.returnFinalMesh(w),
+                            WriterIndexed.WALL_LABEL);
+                }
+                for (Roof r : b.getbStep6().getRoofs()) {
+                    writer.addMesh(AbstractBuildingsIslet.returnFinalMesh(r),
+                            WriterIndexed.ROOF_LABEL);
                 }
             }
+            writer.write();
+            return;
+        }
 
+        final List<Mesh> meshes = new ArrayList<>();
+        for (Building b : buildings) {
+            for (Wall w : b.getbStep6().getWalls()) {
+                meshes.add(AbstractBuildingsIslet.returnFinalMesh(w));
+            }
             for (Roof r : b.getbStep6().getRoofs()) {
-                if (r.getPolygon() != null) {
-                    totalSurface.addAll(r.getPolygon().returnCentroidMesh());
-                } else {
-                    totalSurface.addAll(r.getMesh());
-                }
+                meshes.add(AbstractBuildingsIslet.returnFinalMesh(r));
             }
         }
-
-        totalSurface.addAll(this.getBiStep6().getGrounds().getMesh());
+        if (grounds != null) {
+            meshes.add(grounds.getMesh());
+        }
 
         WriterSTL writer = new WriterSTL(fileName);
-        writer.setMesh(totalSurface);
+        writer.setMeshes(meshes);
         writer.write();
     }
 
@@ -12,7 +12,10 @@ import fr.nantes1900.utils.ParserSTL;
 public abstract class AbstractIslet {
 
     /**
-     * Parses a STL file. Uses the ParserSTL class.
+     * Parses a STL file. Uses the ParserSTL class, mapping the binary files in
+     * memory and decoding them with one thread per processor : the islets files
+     * can be very big. The mesh is kept in a cache file beside the STL file, to
+     * be read faster the next time.
      * @param fileName
      *            the name of the file
      * @return the mesh parsed
@@ -21,7 +24,10 @@ public abstract class AbstractIslet {
      */
     public static final Mesh parseFile(final String fileName)
             throws IOException {
-        final ParserSTL parser = new ParserSTL(fileName);
+        final ParserSTL parser = new ParserSTL(fileName,
+                ParserSTL.MAPPED_MODE);
+        parser.setThreadsNumber(Runtime.getRuntime().availableProcessors());
+        parser.setCacheUsed(true);
         return parser.read();
     }
 }
@@ -116,21 +116,7 @@ public class BuildingsIsletStep1 extends AbstractBuildingsIsletStep {
 
         // If the new grounds are neighbours from the old ones, they are
         // added to the real grounds.
-        thingsList = new ArrayList<>();
-        for (final Mesh m : groundsList) {
-            final Mesh temp = new Mesh(m);
-            temp.addAll(meshOriented);
-            final Mesh ret = new Mesh();
-            m.getOne().returnNeighbours(ret, temp);
-            meshOriented.remove(ret);
-            thingsList.add(ret);
-        }
-        groundsList = thingsList;
-
-        wholeGround = new Mesh();
-        for (final Mesh f : groundsList) {
-            wholeGround.addAll(f);
-        }
+        wholeGround = Algos.blockTreatNoise(groundsList, meshOriented);
 
         return new Ground(wholeGround);
     }
@@ -1,12 +1,18 @@
 package fr.nantes1900.utils;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.IndexedMesh;
 import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.MeshAdjacency;
+import fr.nantes1900.models.basis.SubMesh;
 import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.basis.TriangleFilter;
 import fr.nantes1900.models.extended.Surface;
 import fr.nantes1900.models.islets.steps.ProgressComputer;
 
@@ -23,28 +29,123 @@ public final class Algos {
     }
 
     /**
-     * Divides the mesh in block of neighbours. This method uses
-     * returnNeighbours to find the neighbours of one triangle, and puts it into
-     * a new mesh into the arraylist. Thus, it takes another triangle and make
-     * again the same operation until there is no more triangle. This method
-     * does not destroy the mesh in parameter.
+     * Divides the mesh in block of neighbours. The blocks are removed from a
+     * part of the mesh containing the triangles not yet in a block : no copy
+     * of the mesh is made, and each block is found as the list of the IDs of
+     * its triangles. This method does not destroy the mesh in parameter.
      * @param m
      *            the mesh to divide
      * @return an array of the blocks-meshes
      */
     public static List<Mesh> blockExtract(final Mesh m) {
-        final Set<Mesh> thingsList = new HashSet<>();
-        final Mesh mesh = new Mesh(m);
+        final List<Mesh> thingsList = new ArrayList<>();
+        final SubMesh mesh = new SubMesh(m.returnAdjacency(), m);
+
+        // The triangles before the current one are already in a block.
+        for (int iD = mesh.nextID(0); iD >= 0; iD = mesh.nextID(iD + 1)) {
+            final int[] e = mesh.removeNeighbours(iD, null);
+            thingsList.add(mesh.returnMesh(e));
+        }
+
+        return thingsList;
+    }
+
+    /**
+     * Divides an indexed mesh in blocks of neighbours, and converts each block
+     * in a mesh. The blocks are found with the neighbours of the indexed
+     * mesh, with an array used as a queue : only the blocks are created as
+     * objects.
+     * @param m
+     *            the indexed mesh to divide
+     * @return an array of the blocks-meshes
+     */
+    public static List<Mesh> blockExtract(final IndexedMesh m) {
+        final List<Mesh> thingsList = new ArrayList<>();
+        final boolean[] visited = new boolean[m.size()];
+        final int[] block = new int[m.size()];
+
+        for (int i = 0; i < m.size(); i = i + 1) {
+            if (visited[i]) {
+                continue;
+            }
+
+            // The block array is filled in the order of the visit : the
+            // triangles after the current one are still to explore.
+            visited[i] = true;
+            block[0] = i;
+            int blockSize = 1;
+            for (int current = 0; current < blockSize; current = current + 1) {
+                for (int k = 0; k < IndexedMesh.NB_VERTICES; k = k + 1) {
+                    final int neighbour = m.getNeighbour(block[current], k);
+                    if (neighbour >= 0 && !visited[neighbour]) {
+                        visited[neighbour] = true;
+                        block[blockSize] = neighbour;
+                        blockSize = blockSize + 1;
+                    }
+                }
+            }
+
+            thingsList.add(m.returnMesh(block, blockSize));
+        }
+
+        return thingsList;
+    }
+
+    /**
+     * Searches for the meshes of a list which are neighbours : two meshes are
+     * neighbours if they share an edge of their bounds, as found by
+     * Mesh.returnUnsortedBounds. Each triangle is labelled with the index of
+     * its mesh, then each edge is visited once with the labels of the
+     * triangles using it : the meshes using it only once have this edge in
+     * their bounds. It replaces the comparison of the bounds of every pair of
+     * meshes by one pass over the triangles.
+     * @param list
+     *            the list of meshes
+     * @return for each mesh, the indexes in the list of its neighbours
+     */
+    public static List<BitSet> blockNeighbours(final List<Mesh> list) {
+        // For each edge, the labels of the triangles using it.
+        final Map<Edge, List<Integer>> labels = new HashMap<>();
+        for (int i = 0; i < list.size(); i = i + 1) {
+            final Integer label = Integer.valueOf(i);
+            for (final Triangle t : list.get(i)) {
+                for (final Edge e : t.getEdges()) {
+                    List<Integer> edgeLabels = labels.get(e);
+                    if (edgeLabels == null) {
+                        edgeLabels = new ArrayList<>(2);
+                        labels.put(e, edgeLabels);
+                    }
+                    edgeLabels.add(label);
+                }
+            }
+        }
+
+        final List<BitSet> neighbours = new ArrayList<>();
+        for (int i = 0; i < list.size(); i = i + 1) {
+            neighbours.add(new BitSet());
+        }
 
-        while (!mesh.isEmpty()) {
+        for (final List<Integer> edgeLabels : labels.values()) {
+            // Keeps the meshes for which this edge is a bound.
+            final List<Integer> bounds = new ArrayList<>(edgeLabels.size());
+            for (final Integer label : edgeLabels) {
+                if (edgeLabels.indexOf(label) == edgeLabels
+                        .lastIndexOf(label)) {
+                    bounds.add(label);
+                }
+            }
 
-            final Mesh e = new Mesh();
-            mesh.getOne().returnNeighbours(e, mesh);
-            mesh.remove(e);
-            thingsList.add(e);
+            for (int a = 0; a < bounds.size(); a = a + 1) {
+                for (int b = a + 1; b < bounds.size(); b = b + 1) {
+                    final int i = bounds.get(a).intValue();
+                    final int j = bounds.get(b).intValue();
+                    neighbours.get(i).set(j);
+                    neighbours.get(j).set(i);
+                }
+            }
         }
 
-        return new ArrayList<>(thingsList);
+        return neighbours;
     }
 
     /**
@@ -63,33 +164,23 @@ public final class Algos {
     public static List<Mesh> blockOrientedExtract(final Mesh m,
             final double angleNormalErrorFactor) {
         final List<Mesh> thingsList = new ArrayList<>();
-        final List<Mesh> meshList = Algos.blockExtract(m);
-
-        int counter = 0;
-        for (final Mesh mesh : meshList) {
-            counter += mesh.size();
-        }
+        final SubMesh mesh = new SubMesh(m.returnAdjacency(), m);
 
         ProgressComputer.initTrianglesCounter();
-        ProgressComputer.setTrianglesNumber(counter);
-
-        for (final Mesh mesh : meshList) {
-
-            while (!mesh.isEmpty()) {
+        ProgressComputer.setTrianglesNumber(mesh.size());
 
-                final Mesh e = new Mesh();
-                final Triangle tri = mesh.getOne();
+        // The triangles before the current one are already in a block.
+        for (int iD = mesh.nextID(0); iD >= 0; iD = mesh.nextID(iD + 1)) {
 
-                final Mesh oriented = mesh.orientedAs(tri.getNormal(),
-                        angleNormalErrorFactor);
+            // The block of the triangles oriented as the first one is found
+            // without computing the part oriented as this triangle.
+            final int[] e = mesh.removeNeighbours(iD, TriangleFilter
+                    .orientedAs(mesh.getAdjacency().getTriangle(iD)
+                            .getNormal(), angleNormalErrorFactor));
 
-                tri.returnNeighbours(e, oriented);
+            thingsList.add(mesh.returnMesh(e));
 
-                mesh.remove(e);
-                thingsList.add(e);
-
-                ProgressComputer.incTrianglesCounter(e.size());
-            }
+            ProgressComputer.incTrianglesCounter(e.length);
         }
 
         return thingsList;
@@ -106,23 +197,29 @@ public final class Algos {
      * @return the sum of every meshes
      */
     public static Mesh blockTreatNoise(final List<Mesh> list, final Mesh noise) {
-        final List<Mesh> m = new ArrayList<>();
-        final Mesh result = new Mesh();
+        final List<Mesh> meshes = new ArrayList<>(list);
+        meshes.add(noise);
+        final MeshAdjacency adjacency = new MeshAdjacency(meshes);
+        final SubMesh noisePart = new SubMesh(adjacency, noise);
+        final SubMesh meshPart = new SubMesh(adjacency);
+        final SubMesh removed = new SubMesh(adjacency);
+        final SubMesh result = new SubMesh(adjacency);
 
         for (final Mesh e : list) {
-            final Mesh meshAndNoise = new Mesh(e);
-            meshAndNoise.addAll(noise);
-            final Mesh mes = new Mesh();
-            e.getOne().returnNeighbours(mes, meshAndNoise);
-            m.add(mes);
-            noise.remove(mes);
+            // The union of the mesh and of the noise is not computed : the
+            // neighbours are searched in both parts.
+            meshPart.clear();
+            meshPart.add(e);
+            final SubMesh mes = meshPart.returnNeighbours(
+                    adjacency.getID(e.getOne()), noisePart);
+            result.addAll(mes);
+            noisePart.removeAll(mes);
+            removed.addAll(mes);
         }
 
-        for (Mesh mesh : m) {
-            result.addAll(mesh);
-        }
+        Algos.remove(noise, removed);
 
-        return result;
+        return result.returnMesh();
     }
 
     /**
@@ -140,19 +237,34 @@ public final class Algos {
     public static void blockTreatOrientedNoise(final List<Surface> surfaceList,
             final Mesh noise, final double largeAngleNormalErrorFactor) {
 
+        final List<Mesh> meshes = new ArrayList<>();
+        for (final Surface e : surfaceList) {
+            meshes.add(e.getMesh());
+        }
+        meshes.add(noise);
+        final MeshAdjacency adjacency = new MeshAdjacency(meshes);
+        final SubMesh noisePart = new SubMesh(adjacency, noise);
+        final SubMesh meshPart = new SubMesh(adjacency);
+        final SubMesh orientedPart = new SubMesh(adjacency);
+        final SubMesh removed = new SubMesh(adjacency);
+
         final List<Surface> list = new ArrayList<>();
 
         for (final Surface e : surfaceList) {
-            final Mesh meshAndNoise = new Mesh(e.getMesh());
-            meshAndNoise.addAll(noise.orientedAs(e.getMesh().averageNormal(),
-                    largeAngleNormalErrorFactor));
-            final Mesh mes = new Mesh();
-            e.getMesh().getOne().returnNeighbours(mes, meshAndNoise);
-            list.add(new Surface(mes));
-
-            noise.remove(mes);
+            meshPart.clear();
+            meshPart.add(e.getMesh());
+            Algos.select(noisePart, orientedPart, TriangleFilter.orientedAs(e
+                    .getMesh().averageNormal(), largeAngleNormalErrorFactor));
+            final SubMesh mes = meshPart.returnNeighbours(
+                    adjacency.getID(e.getMesh().getOne()), orientedPart);
+            list.add(new Surface(mes.returnMesh()));
+
+            noisePart.removeAll(mes);
+            removed.addAll(mes);
         }
 
+        Algos.remove(noise, removed);
+
         surfaceList.clear();
         surfaceList.addAll(list);
     }
@@ -172,19 +284,68 @@ public final class Algos {
     public static void blockTreatPlanedNoise(final List<Mesh> list,
             final Mesh noise, final double errorPlanes) {
 
+        final List<Mesh> meshes = new ArrayList<>(list);
+        meshes.add(noise);
+        final MeshAdjacency adjacency = new MeshAdjacency(meshes);
+        final SubMesh noisePart = new SubMesh(adjacency, noise);
+        final SubMesh meshPart = new SubMesh(adjacency);
+        final SubMesh planedPart = new SubMesh(adjacency);
+        final SubMesh removed = new SubMesh(adjacency);
+
         final List<Mesh> m = new ArrayList<>();
 
         for (final Mesh e : list) {
-            final Mesh meshAndNoise = new Mesh(e);
-            meshAndNoise.addAll(noise.inPlanes(e.averageNormal(),
-                    e.getCentroid(), errorPlanes));
-            final Mesh mes = new Mesh();
-            e.getOne().returnNeighbours(mes, meshAndNoise);
-            m.add(mes);
-            noise.remove(mes);
+            meshPart.clear();
+            meshPart.add(e);
+
+            Algos.select(noisePart, planedPart, TriangleFilter.inPlanes(
+                    e.averageNormal(), e.getCentroid(), errorPlanes));
+            final SubMesh mes = meshPart.returnNeighbours(
+                    adjacency.getID(e.getOne()), planedPart);
+            m.add(mes.returnMesh());
+            noisePart.removeAll(mes);
+            removed.addAll(mes);
         }
 
+        Algos.remove(noise, removed);
+
         list.clear();
         list.addAll(m);
     }
+
+    /**
+     * Removes from a mesh the triangles of a part.
+     * @param mesh
+     *            the mesh to modify
+     * @param part
+     *            the part containing the triangles to remove
+     */
+    private static void remove(final Mesh mesh, final SubMesh part) {
+        final MeshAdjacency adjacency = part.getAdjacency();
+        for (int i = part.nextID(0); i >= 0; i = part.nextID(i + 1)) {
+            mesh.remove(adjacency.getTriangle(i));
+        }
+    }
+
+    /**
+     * Selects the triangles of a part accepted by a filter, in another part
+     * which is cleared before : the same part can receive the selections of
+     * all the meshes.
+     * @param part
+     *            the part containing the triangles to select
+     * @param selected
+     *            the part receiving the triangles selected
+     * @param filter
+     *            the filter
+     */
+    private static void select(final SubMesh part, final SubMesh selected,
+            final TriangleFilter filter) {
+        final MeshAdjacency adjacency = part.getAdjacency();
+        selected.clear();
+        for (int i = part.nextID(0); i >= 0; i = part.nextID(i + 1)) {
+            if (filter.accept(adjacency.getTriangle(i))) {
+                selected.add(i);
+            }
+        }
+    }
 }
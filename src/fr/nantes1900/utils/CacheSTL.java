@@ -0,0 +1,549 @@
+package fr.nantes1900.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Implements a cache of the meshes parsed in STL files. The cache file is
+ * written beside the STL file, and contains the mesh already welded : the
+ * array of the points, the array of the edges as pairs of points, and the
+ * triangles as indices of points and edges with their normals. It is valid
+ * while the size, the date of modification and the hash of the STL file are
+ * unchanged : the hash is computed on samples of the content, to check the
+ * cache of a big file in a fraction of a second.
+ * @author Daniel Lefevre
+ */
+public final class CacheSTL {
+
+    /**
+     * Extension added to the name of the STL file to name the cache file.
+     */
+    public static final String EXTENSION = ".cache";
+
+    /**
+     * First int of a cache file.
+     */
+    private static final int MAGIC = 0x4E313943;
+
+    /**
+     * Version of the format of the cache file.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Size of the buffer used to read and write the cache file.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Size of the biggest record of the cache file : a triangle.
+     */
+    private static final int RECORD_SIZE = 6 * (Integer.SIZE / Byte.SIZE) + 3
+            * (Double.SIZE / Byte.SIZE);
+
+    /**
+     * Size of the samples of the STL file read to compute its hash.
+     */
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    /**
+     * Number of samples of the STL file read to compute its hash, including
+     * the first and the last bytes of the file.
+     */
+    private static final int SAMPLES = 16;
+
+    /**
+     * Size of a point in the cache file : three floats.
+     */
+    private static final int POINT_SIZE = 3 * (Float.SIZE / Byte.SIZE);
+
+    /**
+     * Size of an edge in the cache file : two indices.
+     */
+    private static final int EDGE_SIZE = 2 * (Integer.SIZE / Byte.SIZE);
+
+    /**
+     * Constant used to mix the bits of the hash.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Private constructor.
+     */
+    private CacheSTL() {
+    }
+
+    /**
+     * Returns the name of the cache file of a STL file.
+     * @param fileName
+     *            the name of the STL file
+     * @return the name of the cache file
+     */
+    public static String cacheName(final String fileName) {
+        return fileName + CacheSTL.EXTENSION;
+    }
+
+    /**
+     * Checks the header of the cache file : it must be a cache file, whose
+     * size, date of modification and hash are the ones of the STL file.
+     * @param fileName
+     *            the name of the STL file
+     * @param channel
+     *            the channel of the cache file, at its beginning
+     * @param bBuf
+     *            the little-endian buffer used to read the cache file, empty
+     * @return true if the cache file is valid, false otherwise
+     * @throws IOException
+     *             if there is an error during the reading of the files
+     */
+    private static boolean checkHeader(final String fileName,
+            final ReadableByteChannel channel, final ByteBuffer bBuf)
+            throws IOException {
+        final int headerSize = 2 * (Integer.SIZE / Byte.SIZE) + 3
+                * (Long.SIZE / Byte.SIZE);
+        CacheSTL.ensureRemaining(channel, bBuf, headerSize);
+        if (bBuf.getInt() != CacheSTL.MAGIC
+                || bBuf.getInt() != CacheSTL.VERSION) {
+            return false;
+        }
+        final long size = bBuf.getLong();
+        final long modified = bBuf.getLong();
+        final long hash = bBuf.getLong();
+
+        final File file = new File(fileName);
+        return size == file.length() && modified == file.lastModified()
+                && hash == CacheSTL.sourceHash(fileName);
+    }
+
+    /**
+     * Makes sure that the buffer contains a number of bytes, reading the
+     * channel if necessary.
+     * @param channel
+     *            the channel to read in
+     * @param bBuf
+     *            the buffer to fill
+     * @param size
+     *            the number of bytes needed
+     * @throws IOException
+     *             if the channel throws an error or if the end of the channel
+     *             is reached
+     */
+    private static void ensureRemaining(final ReadableByteChannel channel,
+            final ByteBuffer bBuf, final int size) throws IOException {
+        if (bBuf.remaining() >= size) {
+            return;
+        }
+        bBuf.compact();
+        while (bBuf.position() < size) {
+            if (channel.read(bBuf) < 0) {
+                throw new IOException("Unexpected end of the cache file");
+            }
+        }
+        bBuf.flip();
+    }
+
+    /**
+     * Writes the content of the buffer in the channel if it doesn't have a
+     * number of bytes remaining.
+     * @param channel
+     *            the channel to write in
+     * @param bBuf
+     *            the buffer to write
+     * @param size
+     *            the number of bytes to put in the buffer
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    private static void flush(final WritableByteChannel channel,
+            final ByteBuffer bBuf, final int size) throws IOException {
+        if (bBuf.remaining() >= size) {
+            return;
+        }
+        bBuf.flip();
+        while (bBuf.hasRemaining()) {
+            channel.write(bBuf);
+        }
+        bBuf.clear();
+    }
+
+    /**
+     * Computes the hash of a file, from its size and from samples of its
+     * content regularly spaced, from the first bytes containing the header of
+     * the file to the last bytes : the time of the hash doesn't depend on the
+     * size of the file. A small file is entirely hashed.
+     * @param channel
+     *            the channel of the file
+     * @return the hash of the content
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static long hash(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        long h = size;
+
+        final ByteBuffer bBuf = ByteBuffer.allocate(CacheSTL.SAMPLE_SIZE);
+        bBuf.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (size <= (long) CacheSTL.SAMPLES * CacheSTL.SAMPLE_SIZE) {
+            for (long start = 0; start < size; start += CacheSTL.SAMPLE_SIZE) {
+                h = CacheSTL.hashSample(channel, bBuf, start, h);
+            }
+        } else {
+            final long last = size - CacheSTL.SAMPLE_SIZE;
+            for (int i = 0; i < CacheSTL.SAMPLES; i = i + 1) {
+                h = CacheSTL.hashSample(channel, bBuf, last * i
+                        / (CacheSTL.SAMPLES - 1), h);
+            }
+        }
+
+        return h;
+    }
+
+    /**
+     * Reads a sample of a file, and mixes its content in a hash.
+     * @param channel
+     *            the channel of the file
+     * @param bBuf
+     *            the little-endian buffer used to read the sample, whose
+     *            capacity is the size of the sample
+     * @param position
+     *            the position of the sample in the file
+     * @param hash
+     *            the hash of the previous samples
+     * @return the hash including the sample
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static long hashSample(final FileChannel channel,
+            final ByteBuffer bBuf, final long position, final long hash)
+            throws IOException {
+        bBuf.clear();
+        while (bBuf.hasRemaining()
+                && channel.read(bBuf, position + bBuf.position()) >= 0) {
+            // Reads the whole sample, or until the end of the file.
+        }
+        bBuf.flip();
+
+        long h = hash;
+        while (bBuf.remaining() >= Long.SIZE / Byte.SIZE) {
+            h = (h ^ bBuf.getLong()) * CacheSTL.MIX;
+            h = h ^ (h >>> (Long.SIZE / 2));
+        }
+        while (bBuf.hasRemaining()) {
+            h = (h ^ bBuf.get()) * CacheSTL.MIX;
+        }
+        return h;
+    }
+
+    /**
+     * Checks if the cache of a STL file exists and is valid, without reading
+     * the mesh.
+     * @param fileName
+     *            the name of the STL file
+     * @return true if the cache can be read, false otherwise
+     * @throws IOException
+     *             if there is an error during the reading of the files
+     */
+    public static boolean isValid(final String fileName) throws IOException {
+        final File cacheFile = new File(CacheSTL.cacheName(fileName));
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+
+        final RandomAccessFile cache = new RandomAccessFile(cacheFile, "r");
+        try {
+            final ByteBuffer bBuf = ByteBuffer
+                    .allocate(CacheSTL.BUFFER_SIZE);
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
+            bBuf.flip();
+            return CacheSTL.checkHeader(fileName, cache.getChannel(), bBuf);
+        } catch (final IOException e) {
+            // The cache file is too short : it is damaged.
+            return false;
+        } finally {
+            cache.close();
+        }
+    }
+
+    /**
+     * Reads the cache of a STL file.
+     * @param fileName
+     *            the name of the STL file
+     * @return the mesh contained in the cache, or null if there is no cache
+     *         or if it is not valid anymore
+     * @throws IOException
+     *             if there is an error during the reading of the files
+     */
+    public static Mesh read(final String fileName) throws IOException {
+        final File cacheFile = new File(CacheSTL.cacheName(fileName));
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        final RandomAccessFile cache = new RandomAccessFile(cacheFile, "r");
+        try {
+            final FileChannel channel = cache.getChannel();
+            final ByteBuffer bBuf = ByteBuffer
+                    .allocate(CacheSTL.BUFFER_SIZE);
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
+            bBuf.flip();
+
+            // Checks the header before reading the mesh.
+            if (!CacheSTL.checkHeader(fileName, channel, bBuf)) {
+                return null;
+            }
+
+            return CacheSTL.readMesh(channel, bBuf);
+        } finally {
+            cache.close();
+        }
+    }
+
+    /**
+     * Reads a number of records of the cache file, and checks that the rest
+     * of the file can contain them.
+     * @param channel
+     *            the channel to read in
+     * @param bBuf
+     *            the buffer containing the next bytes of the channel
+     * @param recordSize
+     *            the size of one record
+     * @return the number of records
+     * @throws IOException
+     *             if there is an error during the reading, or if the number
+     *             is negative or too big : the cache file is damaged
+     */
+    private static int readCount(final FileChannel channel,
+            final ByteBuffer bBuf, final int recordSize) throws IOException {
+        CacheSTL.ensureRemaining(channel, bBuf, Integer.SIZE / Byte.SIZE);
+        final int count = bBuf.getInt();
+        final long available = channel.size() - channel.position()
+                + bBuf.remaining();
+        if (count < 0 || (long) count * recordSize > available) {
+            throw new IOException("Damaged cache file");
+        }
+        return count;
+    }
+
+    /**
+     * Reads an index of the cache file, and returns the element of the array
+     * at this index.
+     * @param <E>
+     *            the type of the elements
+     * @param bBuf
+     *            the buffer containing the index
+     * @param array
+     *            the array of elements
+     * @return the element at the index read
+     * @throws IOException
+     *             if the index is out of the array : the cache file is
+     *             damaged
+     */
+    private static <E> E readIndex(final ByteBuffer bBuf, final E[] array)
+            throws IOException {
+        final int index = bBuf.getInt();
+        if (index < 0 || index >= array.length) {
+            throw new IOException("Damaged cache file");
+        }
+        return array[index];
+    }
+
+    /**
+     * Reads the mesh after the header of the cache file. The numbers and the
+     * indices read are checked, so that a damaged cache file only throws an
+     * IOException.
+     * @param channel
+     *            the channel to read in
+     * @param bBuf
+     *            the buffer containing the next bytes of the channel
+     * @return the mesh read
+     * @throws IOException
+     *             if there is an error during the reading, or if the cache
+     *             file is damaged
+     */
+    private static Mesh readMesh(final FileChannel channel,
+            final ByteBuffer bBuf) throws IOException {
+        final Point[] points = new Point[CacheSTL.readCount(channel, bBuf,
+                CacheSTL.POINT_SIZE)];
+        for (int i = 0; i < points.length; i = i + 1) {
+            CacheSTL.ensureRemaining(channel, bBuf, CacheSTL.POINT_SIZE);
+            points[i] = new Point(bBuf.getFloat(), bBuf.getFloat(),
+                    bBuf.getFloat());
+        }
+
+        final Edge[] edges = new Edge[CacheSTL.readCount(channel, bBuf,
+                CacheSTL.EDGE_SIZE)];
+        for (int i = 0; i < edges.length; i = i + 1) {
+            CacheSTL.ensureRemaining(channel, bBuf, CacheSTL.EDGE_SIZE);
+            edges[i] = new Edge(CacheSTL.readIndex(bBuf, points),
+                    CacheSTL.readIndex(bBuf, points));
+        }
+
+        final int trianglesNumber = CacheSTL.readCount(channel, bBuf,
+                CacheSTL.RECORD_SIZE);
+        final List<Triangle> triangles = new ArrayList<>(trianglesNumber);
+        for (int i = 0; i < trianglesNumber; i = i + 1) {
+            CacheSTL.ensureRemaining(channel, bBuf, CacheSTL.RECORD_SIZE);
+            final Point p1 = CacheSTL.readIndex(bBuf, points);
+            final Point p2 = CacheSTL.readIndex(bBuf, points);
+            final Point p3 = CacheSTL.readIndex(bBuf, points);
+            final Edge e1 = CacheSTL.readIndex(bBuf, edges);
+            final Edge e2 = CacheSTL.readIndex(bBuf, edges);
+            final Edge e3 = CacheSTL.readIndex(bBuf, edges);
+            final Vector3d norm = new Vector3d(bBuf.getDouble(),
+                    bBuf.getDouble(), bBuf.getDouble());
+            triangles.add(new Triangle(p1, p2, p3, e1, e2, e3, norm));
+        }
+
+        return new Mesh(triangles);
+    }
+
+    /**
+     * Computes the hash of the content of a STL file.
+     * @param fileName
+     *            the name of the STL file
+     * @return the hash of its content
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static long sourceHash(final String fileName) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try {
+            return CacheSTL.hash(file.getChannel());
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Writes the cache of a STL file. The cache is written in a temporary file
+     * with a unique name first, and then replaces the old cache : two
+     * writings of the same cache don't mix their bytes.
+     * @param fileName
+     *            the name of the STL file
+     * @param mesh
+     *            the mesh parsed in the STL file, whose points have the
+     *            precision of a float
+     * @throws IOException
+     *             if there is an error during the writing
+     */
+    public static void write(final String fileName, final Mesh mesh)
+            throws IOException {
+        final File file = new File(fileName);
+        final long size = file.length();
+        final long modified = file.lastModified();
+        final long hash = CacheSTL.sourceHash(fileName);
+
+        // Gives an index to every point and every edge.
+        final Map<Point, Integer> pointIndices = new IdentityHashMap<>();
+        final List<Point> points = new ArrayList<>();
+        final Map<Edge, Integer> edgeIndices = new IdentityHashMap<>();
+        final List<Edge> edges = new ArrayList<>();
+        for (final Triangle t : mesh) {
+            for (final Point p : t.getPoints()) {
+                if (!pointIndices.containsKey(p)) {
+                    pointIndices.put(p, Integer.valueOf(points.size()));
+                    points.add(p);
+                }
+            }
+            for (final Edge e : t.getEdges()) {
+                if (!edgeIndices.containsKey(e)) {
+                    edgeIndices.put(e, Integer.valueOf(edges.size()));
+                    edges.add(e);
+                    for (final Point p : e.getPoints()) {
+                        if (!pointIndices.containsKey(p)) {
+                            pointIndices.put(p,
+                                    Integer.valueOf(points.size()));
+                            points.add(p);
+                        }
+                    }
+                }
+            }
+        }
+
+        final File cacheFile = new File(CacheSTL.cacheName(fileName))
+                .getAbsoluteFile();
+        final File temporary = File.createTempFile(cacheFile.getName(),
+                ".tmp", cacheFile.getParentFile());
+        boolean written = false;
+        final FileOutputStream stream = new FileOutputStream(temporary);
+        try {
+            final FileChannel channel = stream.getChannel();
+            final ByteBuffer bBuf = ByteBuffer
+                    .allocate(CacheSTL.BUFFER_SIZE);
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
+
+            bBuf.putInt(CacheSTL.MAGIC);
+            bBuf.putInt(CacheSTL.VERSION);
+            bBuf.putLong(size);
+            bBuf.putLong(modified);
+            bBuf.putLong(hash);
+
+            bBuf.putInt(points.size());
+            for (final Point p : points) {
+                CacheSTL.flush(channel, bBuf, CacheSTL.RECORD_SIZE);
+                bBuf.putFloat((float) p.getX());
+                bBuf.putFloat((float) p.getY());
+                bBuf.putFloat((float) p.getZ());
+            }
+
+            CacheSTL.flush(channel, bBuf, CacheSTL.RECORD_SIZE);
+            bBuf.putInt(edges.size());
+            for (final Edge e : edges) {
+                CacheSTL.flush(channel, bBuf, CacheSTL.RECORD_SIZE);
+                bBuf.putInt(pointIndices.get(e.getP1()).intValue());
+                bBuf.putInt(pointIndices.get(e.getP2()).intValue());
+            }
+
+            CacheSTL.flush(channel, bBuf, CacheSTL.RECORD_SIZE);
+            bBuf.putInt(mesh.size());
+            for (final Triangle t : mesh) {
+                CacheSTL.flush(channel, bBuf, CacheSTL.RECORD_SIZE);
+                for (final Point p : t.getPoints()) {
+                    bBuf.putInt(pointIndices.get(p).intValue());
+                }
+                for (final Edge e : t.getEdges()) {
+                    bBuf.putInt(edgeIndices.get(e).intValue());
+                }
+                bBuf.putDouble(t.getNormal().x);
+                bBuf.putDouble(t.getNormal().y);
+                bBuf.putDouble(t.getNormal().z);
+            }
+
+            CacheSTL.flush(channel, bBuf, CacheSTL.BUFFER_SIZE);
+            written = true;
+        } finally {
+            stream.close();
+            if (!written) {
+                temporary.delete();
+            }
+        }
+
+        try {
+            Files.move(temporary.toPath(), cacheFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temporary.delete();
+        }
+    }
+}
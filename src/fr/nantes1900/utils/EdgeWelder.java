@@ -0,0 +1,185 @@
+package fr.nantes1900.utils;
+
+import java.util.Arrays;
+
+import fr.nantes1900.models.basis.Edge;
+
+/**
+ * Implements a welder of edges : it gives the same reference to the edges
+ * which have the same points. The edges are identified by the indices of
+ * their points in a welder of vertices, and the pairs of indices are kept in
+ * an open-addressing table of long : an edge is created only if it doesn't
+ * already exist.
+ * @author Daniel Lefevre
+ */
+public final class EdgeWelder {
+
+    /**
+     * Default number of edges expected.
+     */
+    private static final int DEFAULT_SIZE = 1 << 10;
+
+    /**
+     * Constant used to mix the bits of the keys.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Value of an empty slot of the table : no pair of indices can give it.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Number of bits of an index in a key.
+     */
+    private static final int INDEX_BITS = 32;
+
+    /**
+     * The welder of vertices giving the points of the edges.
+     */
+    private final VertexWelder vertices;
+
+    /**
+     * The keys of the table : the smallest index of the two points in the
+     * high bits, and the biggest in the low bits. The length is a power of
+     * two, and the table is at most half full.
+     */
+    private long[] keys;
+
+    /**
+     * The edges of the table, in the same slots as their keys.
+     */
+    private Edge[] edges;
+
+    /**
+     * The number of edges welded.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     * @param verticesIn
+     *            the welder of vertices giving the points of the edges
+     */
+    public EdgeWelder(final VertexWelder verticesIn) {
+        this(verticesIn, EdgeWelder.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param verticesIn
+     *            the welder of vertices giving the points of the edges
+     * @param expectedSize
+     *            the number of edges expected : the table will not be resized
+     *            until this number is reached
+     */
+    public EdgeWelder(final VertexWelder verticesIn, final int expectedSize) {
+        this.vertices = verticesIn;
+        final int capacity = Integer.highestOneBit(Math.max(expectedSize, 1))
+                << 2;
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EdgeWelder.EMPTY);
+        this.edges = new Edge[capacity];
+    }
+
+    /**
+     * Removes all the edges welded.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, EdgeWelder.EMPTY);
+        Arrays.fill(this.edges, null);
+        this.size = 0;
+    }
+
+    /**
+     * Searches the slot of a key.
+     * @param key
+     *            the key of the edge
+     * @return the slot of the table containing the key, or the empty slot
+     *         where it must be put
+     */
+    private int find(final long key) {
+        final int mask = this.keys.length - 1;
+        int slot = EdgeWelder.hash(key) & mask;
+
+        while (this.keys[slot] != EdgeWelder.EMPTY && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Mixes the bits of the key.
+     * @param key
+     *            the key of the edge
+     * @return the hash of the edge
+     */
+    private static int hash(final long key) {
+        final long h = key * EdgeWelder.MIX;
+        return (int) (h ^ (h >>> EdgeWelder.INDEX_BITS));
+    }
+
+    /**
+     * Doubles the size of the table, and puts again all the edges.
+     */
+    private void rehash() {
+        final long[] oldKeys = this.keys;
+        final Edge[] oldEdges = this.edges;
+
+        this.keys = new long[oldKeys.length * 2];
+        Arrays.fill(this.keys, EdgeWelder.EMPTY);
+        this.edges = new Edge[oldEdges.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i = i + 1) {
+            if (oldKeys[i] != EdgeWelder.EMPTY) {
+                final int slot = this.find(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.edges[slot] = oldEdges[i];
+            }
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the number of edges welded
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Welds the edge between two vertices. If no edge exists between these
+     * vertices, a new edge is created, with the points in this order.
+     * @param index1
+     *            the index of the first point in the welder of vertices
+     * @param index2
+     *            the index of the second point in the welder of vertices
+     * @return the edge between these two vertices
+     */
+    public Edge weld(final int index1, final int index2) {
+        final long key;
+        if (index1 < index2) {
+            key = ((long) index1 << EdgeWelder.INDEX_BITS) | index2;
+        } else {
+            key = ((long) index2 << EdgeWelder.INDEX_BITS) | index1;
+        }
+
+        final int slot = this.find(key);
+        if (this.keys[slot] != EdgeWelder.EMPTY) {
+            return this.edges[slot];
+        }
+
+        final Edge edge = new Edge(this.vertices.getPoint(index1),
+                this.vertices.getPoint(index2));
+        this.keys[slot] = key;
+        this.edges[slot] = edge;
+        this.size = this.size + 1;
+
+        // Keeps the table at most half full.
+        if (this.size * 2 > this.keys.length) {
+            this.rehash();
+        }
+
+        return edge;
+    }
+}
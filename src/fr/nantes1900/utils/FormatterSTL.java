@@ -0,0 +1,651 @@
+package fr.nantes1900.utils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Implements a formatter of ASCII STL files, also used for the OBJ files. It
+ * writes the words and the numbers directly in a reusable buffer, which is
+ * written in the channel only when it is full. The numbers are written with a
+ * fixed number of decimals, or with the shortest representation read back as
+ * the same double. The shortest digits are computed with the Schubfach
+ * algorithm of Raffaello Giulietti, with long arithmetic only : no object is
+ * created per number.
+ * @author Daniel Lefevre
+ */
+final class FormatterSTL {
+
+    /**
+     * Size of the buffer used to write the file.
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Maximum number of bytes of a number written.
+     */
+    private static final int MAX_NUMBER_SIZE = 32;
+
+    /**
+     * Biggest value written with a fixed number of decimals : bigger values
+     * are written with the shortest representation.
+     */
+    private static final double MAX_FIXED_VALUE = 1e17;
+
+    /**
+     * Powers of ten used to write the decimals.
+     */
+    private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L,
+            10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+            100000000000000L, 1000000000000000L, 10000000000000000L,
+            100000000000000000L,
+    };
+
+    /**
+     * Maximum number of decimals.
+     */
+    public static final int MAX_PRECISION = FormatterSTL.POWERS_OF_TEN.length
+            - 1;
+
+    /**
+     * Number of bits of the significand of a double, with the hidden bit.
+     */
+    private static final int P = 53;
+
+    /**
+     * Smallest binary exponent of a double : the exponent of the subnormal
+     * values.
+     */
+    private static final int Q_MIN = -1074;
+
+    /**
+     * Smallest decimal exponent used by the algorithm.
+     */
+    private static final int K_MIN = -324;
+
+    /**
+     * Biggest decimal exponent used by the algorithm.
+     */
+    private static final int K_MAX = 292;
+
+    /**
+     * Significand of the smallest normal doubles.
+     */
+    private static final long C_MIN = 1L << (FormatterSTL.P - 1);
+
+    /**
+     * Below this significand, the subnormal values are computed with one
+     * more digit.
+     */
+    private static final long C_TINY = 3;
+
+    /**
+     * Mask of the biased exponent of a double.
+     */
+    private static final int BQ_MASK = (1 << (Double.SIZE - FormatterSTL.P))
+            - 1;
+
+    /**
+     * Mask of the explicit bits of the significand of a double.
+     */
+    private static final long T_MASK = FormatterSTL.C_MIN - 1;
+
+    /**
+     * Mask of the 63 lowest bits of a long.
+     */
+    private static final long MASK_63 = Long.MAX_VALUE;
+
+    /**
+     * Number of bits of the two halves of the powers of ten.
+     */
+    private static final int HALF_BITS = 63;
+
+    /**
+     * Number of bits of the approximations of the powers of ten.
+     */
+    private static final int G_BITS = 126;
+
+    /**
+     * Multiplier giving the tenth of a long by its high bits.
+     */
+    private static final long TENTH = 115292150460684698L << 4;
+
+    /**
+     * Smallest decimal exponent written without exponent : 0.001.
+     */
+    private static final int MIN_PLAIN_EXPONENT = -3;
+
+    /**
+     * Decimal exponent from which the numbers are written with an exponent :
+     * 1.0E7.
+     */
+    private static final int MAX_PLAIN_EXPONENT = 7;
+
+    /**
+     * Approximations of the powers of ten, from 10^-K_MIN to 10^-K_MAX : for
+     * each k, 10^-k = beta 2^r with 2^125 <= beta < 2^126, and g = floor(beta)
+     * + 1 is kept as its 63 high bits and its 63 low bits.
+     */
+    private static final long[] G = FormatterSTL.computeG();
+
+    /**
+     * Words written for the values which are not numbers.
+     */
+    private static final byte[] NAN = FormatterSTL.ascii("NaN");
+
+    /**
+     * Word written for the positive infinity.
+     */
+    private static final byte[] INFINITY = FormatterSTL.ascii("Infinity");
+
+    /**
+     * The channel to write in.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The buffer containing the bytes not yet written in the channel.
+     */
+    private final ByteBuffer buffer = ByteBuffer
+            .allocate(FormatterSTL.BUFFER_SIZE);
+
+    /**
+     * The array backing the buffer.
+     */
+    private final byte[] bytes = this.buffer.array();
+
+    /**
+     * The number of decimals written, or WriterSTL.SHORTEST_PRECISION.
+     */
+    private final int precision;
+
+    /**
+     * The digits of the last number computed by toDecimal.
+     */
+    private long decimalDigits;
+
+    /**
+     * The exponent of the last number computed by toDecimal : the number is
+     * decimalDigits 10^decimalExponent.
+     */
+    private int decimalExponent;
+
+    /**
+     * Constructor.
+     * @param channelIn
+     *            the channel to write in
+     * @param precisionIn
+     *            the number of decimals of the numbers, or
+     *            WriterSTL.SHORTEST_PRECISION
+     */
+    public FormatterSTL(final WritableByteChannel channelIn,
+            final int precisionIn) {
+        this.channel = channelIn;
+        if (precisionIn < 0) {
+            this.precision = WriterSTL.SHORTEST_PRECISION;
+        } else {
+            this.precision = Math.min(precisionIn, FormatterSTL.MAX_PRECISION);
+        }
+    }
+
+    /**
+     * Converts a word in ASCII bytes.
+     * @param word
+     *            the word to convert
+     * @return the ASCII bytes of the word
+     */
+    private static byte[] ascii(final String word) {
+        final byte[] result = new byte[word.length()];
+        for (int i = 0; i < result.length; i = i + 1) {
+            result[i] = (byte) word.charAt(i);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the approximations of the powers of ten, once, with exact
+     * integers.
+     * @return the 63 high bits and the 63 low bits of each approximation
+     */
+    private static long[] computeG() {
+        final long[] g = new long[2 * (FormatterSTL.K_MAX - FormatterSTL.K_MIN
+                + 1)];
+        final BigInteger mask = BigInteger.ONE.shiftLeft(
+                FormatterSTL.HALF_BITS).subtract(BigInteger.ONE);
+        for (int k = FormatterSTL.K_MIN; k <= FormatterSTL.K_MAX; k = k + 1) {
+            // 10^-k = beta 2^r.
+            final int r = FormatterSTL.flog2pow10(-k)
+                    - (FormatterSTL.G_BITS - 1);
+            BigInteger beta;
+            if (k <= 0) {
+                beta = BigInteger.TEN.pow(-k);
+                if (r >= 0) {
+                    beta = beta.shiftRight(r);
+                } else {
+                    beta = beta.shiftLeft(-r);
+                }
+            } else {
+                beta = BigInteger.ONE.shiftLeft(-r).divide(
+                        BigInteger.TEN.pow(k));
+            }
+            final BigInteger value = beta.add(BigInteger.ONE);
+            final int index = 2 * (k - FormatterSTL.K_MIN);
+            g[index] = value.shiftRight(FormatterSTL.HALF_BITS).longValue();
+            g[index + 1] = value.and(mask).longValue();
+        }
+        return g;
+    }
+
+    /**
+     * Makes sure that the buffer can receive a number of bytes, writing it in
+     * the channel if necessary.
+     * @param size
+     *            the number of bytes to put in the buffer
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    private void ensureRemaining(final int size) throws IOException {
+        if (this.buffer.remaining() < size) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Computes floor(log10(2^e)), for |e| <= 5456721.
+     * @param e
+     *            the exponent
+     * @return the floor of the logarithm
+     */
+    private static int flog10pow2(final int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+
+    /**
+     * Computes floor(log10(3/4 2^e)), for |e| <= 2^31.
+     * @param e
+     *            the exponent
+     * @return the floor of the logarithm
+     */
+    private static int flog10threeQuartersPow2(final int e) {
+        return (int) (e * 661971961083L + -274743187321L >> 41);
+    }
+
+    /**
+     * Computes floor(log2(10^e)), for |e| <= 1233.
+     * @param e
+     *            the exponent
+     * @return the floor of the logarithm
+     */
+    private static int flog2pow10(final int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+
+    /**
+     * Writes the content of the buffer in the channel.
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Computes the 64 high bits of the 128 bits product of two longs, as
+     * Math.multiplyHigh.
+     * @param x
+     *            the first long
+     * @param y
+     *            the second long
+     * @return the high bits of the product
+     */
+    private static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & 0xFFFFFFFFL;
+        final long y1 = y >> 32;
+        final long y2 = y & 0xFFFFFFFFL;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        final long z0 = t >> 32;
+        z1 = z1 + x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Computes the product of an approximation of a power of ten and a
+     * significand, rounded to odd.
+     * @param g1
+     *            the high bits of the approximation
+     * @param g0
+     *            the low bits of the approximation
+     * @param cp
+     *            the significand, shifted
+     * @return the product rounded to odd
+     */
+    private static long rop(final long g1, final long g0, final long cp) {
+        final long x1 = FormatterSTL.multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = FormatterSTL.multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> FormatterSTL.HALF_BITS);
+        return vbp | (z & FormatterSTL.MASK_63) + FormatterSTL.MASK_63
+                >>> FormatterSTL.HALF_BITS;
+    }
+
+    /**
+     * Computes the shortest decimal read back as a double given by its binary
+     * significand and exponent, and keeps it in decimalDigits and
+     * decimalExponent.
+     * @param q
+     *            the binary exponent
+     * @param c
+     *            the binary significand
+     * @param dk
+     *            the correction of the decimal exponent
+     */
+    private void toDecimal(final int q, final long c, final int dk) {
+        final int out = (int) c & 1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        // The interval of rounding is asymmetric at the powers of two.
+        if (c != FormatterSTL.C_MIN || q == FormatterSTL.Q_MIN) {
+            cbl = cb - 2;
+            k = FormatterSTL.flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = FormatterSTL.flog10threeQuartersPow2(q);
+        }
+        final int h = q + FormatterSTL.flog2pow10(-k) + 2;
+
+        final int index = 2 * (k - FormatterSTL.K_MIN);
+        final long g1 = FormatterSTL.G[index];
+        final long g0 = FormatterSTL.G[index + 1];
+
+        final long vb = FormatterSTL.rop(g1, g0, cb << h);
+        final long vbl = FormatterSTL.rop(g1, g0, cbl << h);
+        final long vbr = FormatterSTL.rop(g1, g0, cbr << h);
+
+        // Tries first with one digit less.
+        final long s = vb >> 2;
+        if (s >= 100) {
+            final long sp10 = 10 * FormatterSTL.multiplyHigh(s,
+                    FormatterSTL.TENTH);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                if (upin) {
+                    this.decimalDigits = sp10;
+                } else {
+                    this.decimalDigits = tp10;
+                }
+                this.decimalExponent = k;
+                return;
+            }
+        }
+
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        this.decimalExponent = k + dk;
+        if (uin != win) {
+            if (uin) {
+                this.decimalDigits = s;
+            } else {
+                this.decimalDigits = t;
+            }
+            return;
+        }
+
+        // Both are in the interval : the closest one is kept, the even one
+        // in case of tie.
+        final long cmp = vb - (s + t << 1);
+        if (cmp < 0 || cmp == 0 && (s & 1) == 0) {
+            this.decimalDigits = s;
+        } else {
+            this.decimalDigits = t;
+        }
+    }
+
+    /**
+     * Writes bytes.
+     * @param word
+     *            the ASCII bytes to write
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    public void write(final byte[] word) throws IOException {
+        if (word.length > this.buffer.capacity()) {
+            this.flush();
+            final ByteBuffer wrap = ByteBuffer.wrap(word);
+            while (wrap.hasRemaining()) {
+                this.channel.write(wrap);
+            }
+            return;
+        }
+        this.ensureRemaining(word.length);
+        this.buffer.put(word);
+    }
+
+    /**
+     * Writes the number computed by toDecimal, without its trailing zeros.
+     * The buffer must have enough bytes remaining.
+     */
+    private void writeDecimal() {
+        long digits = this.decimalDigits;
+        int exponent = this.decimalExponent;
+        while (digits != 0 && digits % 10 == 0) {
+            digits = digits / 10;
+            exponent = exponent + 1;
+        }
+
+        // The digits are written first, then moved to insert the point.
+        final int start = this.buffer.position();
+        final int end = this.writeLong(start, digits, 1);
+        final int length = end - start;
+
+        // The number is 0.digits 10^pointExponent.
+        final int pointExponent = exponent + length;
+        int position;
+        if (digits == 0) {
+            this.bytes[end] = '.';
+            this.bytes[end + 1] = '0';
+            position = end + 2;
+        } else if (pointExponent - 1 < FormatterSTL.MIN_PLAIN_EXPONENT
+                || pointExponent - 1 >= FormatterSTL.MAX_PLAIN_EXPONENT) {
+            // One digit, the point, the other digits, and the exponent.
+            System.arraycopy(this.bytes, start + 1, this.bytes, start + 2,
+                    length - 1);
+            this.bytes[start + 1] = '.';
+            position = end + 1;
+            if (length == 1) {
+                this.bytes[position] = '0';
+                position = position + 1;
+            }
+            this.bytes[position] = 'E';
+            position = position + 1;
+            int e = pointExponent - 1;
+            if (e < 0) {
+                this.bytes[position] = '-';
+                position = position + 1;
+                e = -e;
+            }
+            position = this.writeLong(position, e, 1);
+        } else if (pointExponent <= 0) {
+            // 0.00digits.
+            final int zeros = 2 - pointExponent;
+            System.arraycopy(this.bytes, start, this.bytes, start + zeros,
+                    length);
+            this.bytes[start] = '0';
+            this.bytes[start + 1] = '.';
+            for (int i = start + 2; i < start + zeros; i = i + 1) {
+                this.bytes[i] = '0';
+            }
+            position = end + zeros;
+        } else if (pointExponent >= length) {
+            // digits000.0
+            position = end;
+            for (int i = length; i < pointExponent; i = i + 1) {
+                this.bytes[position] = '0';
+                position = position + 1;
+            }
+            this.bytes[position] = '.';
+            this.bytes[position + 1] = '0';
+            position = position + 2;
+        } else {
+            // dig.its
+            System.arraycopy(this.bytes, start + pointExponent, this.bytes,
+                    start + pointExponent + 1, length - pointExponent);
+            this.bytes[start + pointExponent] = '.';
+            position = end + 1;
+        }
+        this.buffer.position(position);
+    }
+
+    /**
+     * Writes a double.
+     * @param value
+     *            the double to write
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    public void writeDouble(final double value) throws IOException {
+        this.ensureRemaining(FormatterSTL.MAX_NUMBER_SIZE);
+
+        if (this.precision == WriterSTL.SHORTEST_PRECISION
+                || Double.isNaN(value)
+                || Math.abs(value) >= FormatterSTL.MAX_FIXED_VALUE) {
+            this.writeShortest(value);
+        } else {
+            this.writeFixed(value);
+        }
+    }
+
+    /**
+     * Writes a double with the number of decimals of the formatter. The
+     * buffer must have enough bytes remaining.
+     * @param value
+     *            the double to write, smaller than MAX_FIXED_VALUE
+     */
+    private void writeFixed(final double value) {
+        final long scale = FormatterSTL.POWERS_OF_TEN[this.precision];
+        final double abs = Math.abs(value);
+
+        // The integer part and the decimals are rounded together, to carry
+        // the rounding of the decimals in the integer part.
+        long integer = (long) abs;
+        long decimals = Math.round((abs - integer) * scale);
+        if (decimals >= scale) {
+            integer = integer + 1;
+            decimals = decimals - scale;
+        }
+
+        int position = this.buffer.position();
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            this.bytes[position] = '-';
+            position = position + 1;
+        }
+        position = this.writeLong(position, integer, 1);
+        if (this.precision > 0) {
+            this.bytes[position] = '.';
+            position = this.writeLong(position + 1, decimals, this.precision);
+        }
+        this.buffer.position(position);
+    }
+
+    /**
+     * Writes a positive int, as an index.
+     * @param value
+     *            the int to write
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    public void writeInt(final int value) throws IOException {
+        this.ensureRemaining(FormatterSTL.MAX_NUMBER_SIZE);
+        this.buffer.position(this.writeLong(this.buffer.position(), value, 1));
+    }
+
+    /**
+     * Writes a positive long in the array of the buffer.
+     * @param position
+     *            the position of the first digit
+     * @param value
+     *            the long to write
+     * @param minDigits
+     *            the minimum number of digits written : zeros are added
+     *            before the value
+     * @return the position after the last digit
+     */
+    private int writeLong(final int position, final long value,
+            final int minDigits) {
+        int digits = 1;
+        while (digits < FormatterSTL.POWERS_OF_TEN.length
+                && value >= FormatterSTL.POWERS_OF_TEN[digits]) {
+            digits = digits + 1;
+        }
+        digits = Math.max(digits, minDigits);
+
+        long remaining = value;
+        for (int i = position + digits - 1; i >= position; i = i - 1) {
+            this.bytes[i] = (byte) ('0' + remaining % 10);
+            remaining = remaining / 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * Writes a double with the shortest representation read back as the same
+     * double, in the format of Double.toString : with an exponent if the
+     * number is smaller than 0.001 or not smaller than 1.0E7. The buffer must
+     * have enough bytes remaining.
+     * @param value
+     *            the double to write
+     */
+    private void writeShortest(final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long t = bits & FormatterSTL.T_MASK;
+        final int bq = (int) (bits >>> (FormatterSTL.P - 1))
+                & FormatterSTL.BQ_MASK;
+
+        if (bq == FormatterSTL.BQ_MASK && t != 0) {
+            this.buffer.put(FormatterSTL.NAN);
+            return;
+        }
+        if (bits < 0) {
+            this.buffer.put((byte) '-');
+        }
+        if (bq == FormatterSTL.BQ_MASK) {
+            this.buffer.put(FormatterSTL.INFINITY);
+            return;
+        }
+
+        if (bq != 0) {
+            final int mq = -FormatterSTL.Q_MIN + 1 - bq;
+            final long c = FormatterSTL.C_MIN | t;
+            // The integers are written directly.
+            if (0 < mq && mq < FormatterSTL.P && (c >> mq) << mq == c) {
+                this.decimalDigits = c >> mq;
+                this.decimalExponent = 0;
+            } else {
+                this.toDecimal(-mq, c, 0);
+            }
+        } else if (t == 0) {
+            this.decimalDigits = 0;
+            this.decimalExponent = 0;
+        } else if (t < FormatterSTL.C_TINY) {
+            this.toDecimal(FormatterSTL.Q_MIN, 10 * t, -1);
+        } else {
+            this.toDecimal(FormatterSTL.Q_MIN, t, 0);
+        }
+
+        this.writeDecimal();
+    }
+}
@@ -0,0 +1,286 @@
+package fr.nantes1900.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import fr.nantes1900.models.basis.IndexedMesh;
+
+/**
+ * Implements a reader of STL files building an indexed mesh : the triangles
+ * are read as a stream of records, and their points are welded by their
+ * indices, without creating any point, edge or triangle object. The same
+ * triangles as in the parser are ignored : the flat triangles, the triangles
+ * without normal, the triangles having an unbounded point, the triangles read
+ * twice, and the triangles having an edge which already has two triangles.
+ * @author Daniel Lefevre
+ */
+final class IndexerSTL extends StreamerSTL {
+
+    /**
+     * Default number of edges expected.
+     */
+    private static final int DEFAULT_SIZE = 1 << 10;
+
+    /**
+     * Constant used to mix the bits of the keys.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Value of an empty slot of the table of edges, and of a triangle not yet
+     * set in it.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * Maximum number of triangles of an edge.
+     */
+    private static final int EDGE_TRIANGLES = 2;
+
+    /**
+     * The welder giving the same index to the points having the same values.
+     */
+    private final VertexWelder pointWelder = new VertexWelder();
+
+    /**
+     * The mesh built.
+     */
+    private final IndexedMesh mesh = new IndexedMesh();
+
+    /**
+     * The indices of the vertices of the triangle being treated.
+     */
+    private final int[] indices = new int[StreamerSTL.NB_VERTICES];
+
+    /**
+     * The keys of the table of edges : the smallest index of the two vertices
+     * in the high bits, and the biggest in the low bits. The length is a
+     * power of two, and the table is at most half full.
+     */
+    private long[] edgeKeys = IndexerSTL.emptyKeys(IndexerSTL.DEFAULT_SIZE);
+
+    /**
+     * The indices of the triangles of the edges : two per slot of the table
+     * of edges, or EMPTY.
+     */
+    private int[] edgeTriangles = IndexerSTL
+            .emptyTriangles(IndexerSTL.DEFAULT_SIZE);
+
+    /**
+     * The number of edges in the table.
+     */
+    private int edgesNumber;
+
+    /**
+     * The slots of the edges of the triangle being treated.
+     */
+    private final int[] slots = new int[StreamerSTL.NB_VERTICES];
+
+    /**
+     * Creates the keys of an empty table of edges.
+     * @param capacity
+     *            the number of slots
+     * @return the keys, all empty
+     */
+    private static long[] emptyKeys(final int capacity) {
+        final long[] keys = new long[capacity];
+        Arrays.fill(keys, IndexerSTL.EMPTY);
+        return keys;
+    }
+
+    /**
+     * Creates the triangles of an empty table of edges.
+     * @param capacity
+     *            the number of slots
+     * @return the triangles, all empty
+     */
+    private static int[] emptyTriangles(final int capacity) {
+        final int[] triangles = new int[capacity * IndexerSTL.EDGE_TRIANGLES];
+        Arrays.fill(triangles, IndexerSTL.EMPTY);
+        return triangles;
+    }
+
+    /**
+     * Searches the slot of an edge in the table, and adds the edge if it
+     * doesn't exist yet.
+     * @param vertex1
+     *            the index of one vertex
+     * @param vertex2
+     *            the index of the other vertex
+     * @return the slot of the edge
+     */
+    private int findEdge(final int vertex1, final int vertex2) {
+        final long key;
+        if (vertex1 < vertex2) {
+            key = ((long) vertex1 << Integer.SIZE) | vertex2;
+        } else {
+            key = ((long) vertex2 << Integer.SIZE) | vertex1;
+        }
+        final int slot = this.findSlot(key);
+        if (this.edgeKeys[slot] == IndexerSTL.EMPTY) {
+            this.edgeKeys[slot] = key;
+            this.edgesNumber = this.edgesNumber + 1;
+        }
+        return slot;
+    }
+
+    /**
+     * Searches the slot of a key.
+     * @param key
+     *            the key of the edge
+     * @return the slot containing the key, or the empty slot where it must be
+     *         put
+     */
+    private int findSlot(final long key) {
+        final int mask = this.edgeKeys.length - 1;
+        final long h = key * IndexerSTL.MIX;
+        int slot = (int) (h ^ (h >>> Integer.SIZE)) & mask;
+        while (this.edgeKeys[slot] != IndexerSTL.EMPTY
+                && this.edgeKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Checks if a triangle already added has the vertices of the triangle
+     * being treated.
+     * @param triangle
+     *            the index of the triangle added, or EMPTY
+     * @return true if this triangle has the same vertices
+     */
+    private boolean isSameTriangle(final int triangle) {
+        if (triangle == IndexerSTL.EMPTY) {
+            return false;
+        }
+        for (int k = 0; k < StreamerSTL.NB_VERTICES; k = k + 1) {
+            final int vertex = this.indices[k];
+            if (this.mesh.getVertex(triangle, 0) != vertex
+                    && this.mesh.getVertex(triangle, 1) != vertex
+                    && this.mesh.getVertex(triangle, 2) != vertex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a file, and returns its triangles as an indexed mesh.
+     * @param fileName
+     *            the name of the file to read
+     * @return the indexed mesh of the file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public IndexedMesh read(final String fileName) throws IOException {
+        this.stream(fileName);
+        return this.mesh;
+    }
+
+    /**
+     * Doubles the size of the table of edges, and puts again all the edges.
+     */
+    private void rehashEdges() {
+        final long[] oldKeys = this.edgeKeys;
+        final int[] oldTriangles = this.edgeTriangles;
+
+        this.edgeKeys = IndexerSTL.emptyKeys(oldKeys.length * 2);
+        this.edgeTriangles = IndexerSTL.emptyTriangles(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i = i + 1) {
+            if (oldKeys[i] != IndexerSTL.EMPTY) {
+                final int slot = this.findSlot(oldKeys[i]);
+                this.edgeKeys[slot] = oldKeys[i];
+                System.arraycopy(oldTriangles, i * IndexerSTL.EDGE_TRIANGLES,
+                        this.edgeTriangles, slot * IndexerSTL.EDGE_TRIANGLES,
+                        IndexerSTL.EDGE_TRIANGLES);
+            }
+        }
+    }
+
+    /**
+     * Welds the points of a record, and adds its triangle to the mesh if it
+     * is well formed, if it has not been read yet, and if none of its edges
+     * has already two triangles, as in the parser.
+     * @param triangle
+     *            the record of the triangle
+     */
+    @Override
+    protected void treatRecord(final ByteBuffer triangle) {
+        final int floatSize = Float.SIZE / Byte.SIZE;
+        final double maxLimit = ParserSTL.OutOfBoundsPointException.BOUND_LIMIT;
+
+        final float nx = triangle.getFloat(0);
+        final float ny = triangle.getFloat(floatSize);
+        final float nz = triangle.getFloat(2 * floatSize);
+        if (nx == 0 && ny == 0 && nz == 0) {
+            return;
+        }
+
+        for (int k = 0; k < StreamerSTL.NB_VERTICES; k = k + 1) {
+            final int start = (k + 1) * StreamerSTL.NB_COORDINATES
+                    * floatSize;
+            final float x = triangle.getFloat(start);
+            final float y = triangle.getFloat(start + floatSize);
+            final float z = triangle.getFloat(start + 2 * floatSize);
+            if (x > maxLimit || y > maxLimit || z > maxLimit) {
+                return;
+            }
+
+            // The vertices are added to the mesh in the order of their
+            // indices in the welder.
+            this.indices[k] = this.pointWelder.index(x, y, z);
+            if (this.indices[k] == this.mesh.getVerticesNumber()) {
+                this.mesh.addVertex(x, y, z);
+            }
+        }
+
+        if (this.indices[0] == this.indices[1]
+                || this.indices[1] == this.indices[2]
+                || this.indices[0] == this.indices[2]) {
+            return;
+        }
+
+        // Keeps the table at most half full, even with three new edges : the
+        // slots don't change until the triangle is treated.
+        if ((this.edgesNumber + StreamerSTL.NB_VERTICES) * 2
+                > this.edgeKeys.length) {
+            this.rehashEdges();
+        }
+        for (int k = 0; k < StreamerSTL.NB_VERTICES; k = k + 1) {
+            this.slots[k] = this.findEdge(this.indices[k],
+                    this.indices[(k + 1) % StreamerSTL.NB_VERTICES]);
+        }
+
+        // A triangle read twice is on the edges of the first one. The
+        // triangles of the first edge are enough to find it.
+        final int first = this.slots[0] * IndexerSTL.EDGE_TRIANGLES;
+        if (this.isSameTriangle(this.edgeTriangles[first])
+                || this.isSameTriangle(this.edgeTriangles[first + 1])) {
+            return;
+        }
+        for (int k = 0; k < StreamerSTL.NB_VERTICES; k = k + 1) {
+            if (this.edgeTriangles[this.slots[k] * IndexerSTL.EDGE_TRIANGLES
+                    + 1] != IndexerSTL.EMPTY) {
+                return;
+            }
+        }
+
+        // The normal is normalized, as in the parser.
+        final double norm = Math.sqrt((double) nx * nx + (double) ny * ny
+                + (double) nz * nz);
+        final int index = this.mesh.addTriangle(this.indices[0],
+                this.indices[1], this.indices[2], nx / norm, ny / norm, nz
+                        / norm);
+
+        for (int k = 0; k < StreamerSTL.NB_VERTICES; k = k + 1) {
+            final int start = this.slots[k] * IndexerSTL.EDGE_TRIANGLES;
+            if (this.edgeTriangles[start] == IndexerSTL.EMPTY) {
+                this.edgeTriangles[start] = index;
+            } else {
+                this.edgeTriangles[start + 1] = index;
+            }
+        }
+    }
+}
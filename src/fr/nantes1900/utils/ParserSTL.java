@@ -1,57 +1,184 @@
 package fr.nantes1900.utils;
 
 import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
 
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.IndexedMesh;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
 import fr.nantes1900.models.basis.Triangle;
 
 /**
  * Implements a STL parser : detects if it is an ASCII or a binary file, and
- * parses it. During the parsing, it builds a mesh, giving to the same points
- * the same references (and to the edges), and avoiding to keep the bad-formed
+ * parses it. A gzip-compressed file is decompressed while it is read. During
+ * the parsing, it builds a mesh, giving to the same points the same
+ * references (and to the edges), and avoiding to keep the bad-formed
  * triangles.
  * @author Eric Berthe, Valentin Roger, Daniel Lefevre
  */
 public class ParserSTL {
 
+    /**
+     * Possible value of the reading mode. Intends to read binary STL files
+     * through a buffered input stream.
+     */
+    public static final int STREAM_MODE = 1;
+
+    /**
+     * Possible value of the reading mode. Intends to read binary STL files by
+     * mapping them in memory, without copying the triangles in the heap.
+     */
+    public static final int MAPPED_MODE = 2;
+
+    /**
+     * First byte of a gzip-compressed file.
+     */
+    private static final byte GZIP_MAGIC1 = (byte) 0x1f;
+
+    /**
+     * Second byte of a gzip-compressed file.
+     */
+    private static final byte GZIP_MAGIC2 = (byte) 0x8b;
+
+    /**
+     * Size of the header of a binary STL file, in bytes.
+     */
+    private static final int HEADER_SIZE = 80;
+
+    /**
+     * Size of one triangle in a binary STL file, in bytes : twelve floats and
+     * two bytes of attributes.
+     */
+    private static final int TRIANGLE_STL_SIZE = 50;
+
+    /**
+     * Maximum number of triangles mapped at once. A mapped buffer cannot be
+     * bigger than Integer.MAX_VALUE bytes, then bigger files are read through
+     * several windows.
+     */
+    private static final long WINDOW_TRIANGLES = Integer.MAX_VALUE
+            / ParserSTL.TRIANGLE_STL_SIZE;
+
+    /**
+     * Number of triangles copied in memory at once by the stream reading.
+     */
+    private static final int BLOCK_TRIANGLES = 1 << 16;
+
+    /**
+     * Maximum number of triangles decoded by one task of the parallel
+     * decoding.
+     */
+    private static final int TASK_TRIANGLES = 1 << 12;
+
+    /**
+     * Number of parts of the file read to probe it.
+     */
+    private static final int PROBE_SAMPLES = 16;
+
+    /**
+     * Number of vertices of a triangle.
+     */
+    private static final int NB_VERTICES = 3;
+
+    /**
+     * Number of coordinates of a point.
+     */
+    private static final int NB_COORDINATES = 3;
+
+    /**
+     * The word beginning a triangle in an ASCII file.
+     */
+    static final byte[] FACET = "facet"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The word following facet in an ASCII file, before the normal.
+     */
+    static final byte[] NORMAL = "normal"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The word beginning a point in an ASCII file.
+     */
+    static final byte[] VERTEX = "vertex"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The word ending a triangle in an ASCII file.
+     */
+    static final byte[] ENDFACET = "endfacet"
+            .getBytes(StandardCharsets.US_ASCII);
+
     /**
      * The set of triangle read in the file.
      */
     private Set<Triangle> triangleSet;
 
     /**
-     * The map of point to compute the references of the points.
+     * The welder of points to compute the references of the points.
      */
-    private Map<Point, Point> pointMap;
+    private VertexWelder pointWelder;
 
     /**
-     * The map of edge to compute the references of the edges.
+     * The welder of edges to compute the references of the edges.
      */
-    private Map<Edge, Edge> edgeMap;
+    private EdgeWelder edgeWelder;
+
+    /**
+     * The pool of threads decoding the binary files, created for each parsing
+     * if there is more than one thread.
+     */
+    private ForkJoinPool pool;
 
     /**
      * The name of the file to read.
      */
     private final String fileName;
 
+    /**
+     * The mode of reading of the binary files. Use the two constants :
+     * STREAM_MODE or MAPPED_MODE.
+     */
+    private int readingMode = ParserSTL.STREAM_MODE;
+
+    /**
+     * The number of threads decoding the binary files. With one thread, the
+     * triangles are decoded one by one.
+     */
+    private int threadsNumber = 1;
+
+    /**
+     * True if the mesh is read in the cache file when it is valid, and if the
+     * cache file is written after parsing the STL file.
+     */
+    private boolean cacheUsed;
+
+    /**
+     * The region of interest : the triangles out of this region are not read.
+     * If it is null, the whole file is read.
+     */
+    private RegionOfInterest region;
+
     /**
      * Private constructor.
      * @param fileNameRead
@@ -62,51 +189,399 @@ public class ParserSTL {
     }
 
     /**
-     * Reads one line of the file, considering the beginning of the line.
-     * Returns true when an entire has been read, and false otherwise.
-     * @param line
-     *            the line as a String
-     * @param currentPoints
-     *            temporary parameter to stock the read points of the current
-     *            triangle
-     * @param currentVector
-     *            temporary parameter to stock the read vector of the current
-     *            triangle
-     * @return true when an entire has been read, and false otherwise.
+     * Constructor.
+     * @param fileNameRead
+     *            the name of the file to read
+     * @param mode
+     *            the mode of reading of the binary files
      */
-    private static boolean processLineA(final String line,
-            final Vector3d currentVector, final List<Point> currentPoints) {
+    public ParserSTL(final String fileNameRead, final int mode) {
+        this.fileName = fileNameRead;
+        this.readingMode = mode;
+    }
 
-        // If the line is empty, the parser passes to the next line.
-        if (!line.isEmpty()) {
+    /**
+     * Returns the value of the reading mode.
+     * @return the reading mode
+     */
+    public final int getReadingMode() {
+        return this.readingMode;
+    }
 
-            // Select the first word of the line.
-            final StringTokenizer brokenLine = new StringTokenizer(line, " ");
-            final String openingWord = brokenLine.nextToken();
+    /**
+     * Getter.
+     * @return the number of threads decoding the binary files
+     */
+    public final int getThreadsNumber() {
+        return this.threadsNumber;
+    }
 
-            // If the word is facet normal, read the vector.
-            if ("facet".equals(openingWord)
-                    && "normal".equals(brokenLine.nextToken())) {
-                currentVector.set(Double.parseDouble(brokenLine.nextToken()),
-                        Double.parseDouble(brokenLine.nextToken()),
-                        Double.parseDouble(brokenLine.nextToken()));
+    /**
+     * Getter.
+     * @return true if the cache file is used, false otherwise
+     */
+    public final boolean isCacheUsed() {
+        return this.cacheUsed;
+    }
 
-                currentVector.normalize();
-            } else if ("vertex".equals(openingWord)) {
-                // If the word is vertex, read one of the three points.
-                final Point p = new Point((float) Double.parseDouble(brokenLine
-                        .nextToken()), (float) Double.parseDouble(brokenLine
-                        .nextToken()), (float) Double.parseDouble(brokenLine
-                        .nextToken()));
-
-                currentPoints.add(p);
-            } else if ("endfacet".equals(openingWord)) {
-                // If the the points are read, return true so that readSTLA
-                // builds the triangle.
-                return true;
+    /**
+     * Detects the format of the STL file, and parses it using the good method.
+     * The file is opened only once : the first bytes read to detect the format
+     * are kept to be parsed.
+     * @return a mesh made of the triangles read, or null if the file is empty
+     * @throws IOException
+     *             if the file is bad formed or if there is an error during the
+     *             reading
+     */
+    private Mesh parse() throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(this.fileName, "r");
+
+        // Reading the file
+        try {
+            final FileChannel channel = file.getChannel();
+
+            final ByteBuffer buffer = ByteBuffer
+                    .allocate(TokenizerSTL.BUFFER_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Reads the first bytes to detect the format.
+            }
+            buffer.flip();
+
+            if (buffer.hasRemaining()) {
+                Set<Triangle> triangleMap;
+                this.pointWelder = new VertexWelder();
+                this.edgeWelder = new EdgeWelder(this.pointWelder);
+                if (this.threadsNumber > 1) {
+                    this.pool = new ForkJoinPool(this.threadsNumber);
+                }
+
+                // If the first word is solid, this means it's an ASCII file.
+                // If it's a binary file, it will not be found.
+                if (ParserSTL.isGzip(buffer)) {
+                    channel.position(0);
+                    triangleMap = this.readGzip(channel);
+                } else if (TokenizerSTL.isASCII(buffer)) {
+                    triangleMap = this.readSTLA(new TokenizerSTL(channel,
+                            buffer));
+                } else {
+                    channel.position(0);
+                    triangleMap = this.readSTLB(channel);
+                }
+                return new Mesh(triangleMap);
+            }
+            return null;
+        } finally {
+            if (this.pool != null) {
+                this.pool.shutdown();
+                this.pool = null;
+            }
+            file.close();
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the region of interest, or null if the whole file is read
+     */
+    public final RegionOfInterest getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Checks if the buffer begins with the two bytes identifying a
+     * gzip-compressed file. The position of the buffer is not modified.
+     * @param buffer
+     *            the buffer containing the first bytes of the file
+     * @return true if the file is compressed with gzip, false otherwise
+     */
+    static boolean isGzip(final ByteBuffer buffer) {
+        return buffer.limit() >= 2 && buffer.get(0) == ParserSTL.GZIP_MAGIC1
+                && buffer.get(1) == ParserSTL.GZIP_MAGIC2;
+    }
+
+    /**
+     * Checks if a triangle is in the region of interest, using its centroid.
+     * @param x1
+     *            the x coordinate of the first point
+     * @param y1
+     *            the y coordinate of the first point
+     * @param z1
+     *            the z coordinate of the first point
+     * @param x2
+     *            the x coordinate of the second point
+     * @param y2
+     *            the y coordinate of the second point
+     * @param z2
+     *            the z coordinate of the second point
+     * @param x3
+     *            the x coordinate of the third point
+     * @param y3
+     *            the y coordinate of the third point
+     * @param z3
+     *            the z coordinate of the third point
+     * @return true if there is no region of interest or if the centroid of
+     *         the triangle is in the region, false otherwise
+     */
+    private boolean isInRegion(final double x1, final double y1,
+            final double z1, final double x2, final double y2,
+            final double z2, final double x3, final double y3,
+            final double z3) {
+        if (this.region == null) {
+            return true;
+        }
+        return this.region.contains((x1 + x2 + x3) / ParserSTL.NB_VERTICES,
+                (y1 + y2 + y3) / ParserSTL.NB_VERTICES, (z1 + z2 + z3)
+                        / ParserSTL.NB_VERTICES);
+    }
+
+    /**
+     * Probes the STL file without building the mesh : reads the header of the
+     * binary files, and some parts of the file to compute the bounding box of
+     * the points. The number of triangles of the big ASCII files is estimated
+     * from the parts read.
+     * @return the information about the file
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    public final Probe probe() throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(this.fileName, "r");
+
+        try {
+            final FileChannel channel = file.getChannel();
+            final Probe probe = new Probe(channel.size());
+
+            final ByteBuffer buffer = ByteBuffer
+                    .allocate(TokenizerSTL.BUFFER_SIZE);
+            ParserSTL.readAt(channel, buffer, 0);
+            buffer.flip();
+
+            if (ParserSTL.isGzip(buffer)) {
+                ParserSTL.probeGzip(channel, probe);
+            } else if (TokenizerSTL.isASCII(buffer)) {
+                probe.ascii = true;
+                ParserSTL.probeA(channel, buffer, probe);
+            } else {
+                ParserSTL.probeB(channel, buffer, probe);
+            }
+            return probe;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Probes an ASCII file. The small files are read entirely. For the big
+     * files, some parts distributed in the file are read, and the number of
+     * triangles is estimated from the number of triangles in these parts.
+     * @param channel
+     *            the channel of the file
+     * @param buffer
+     *            the buffer containing the first bytes of the file
+     * @param probe
+     *            the information to complete
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static void probeA(final FileChannel channel,
+            final ByteBuffer buffer, final Probe probe) throws IOException {
+        final long size = probe.fileSize;
+
+        if (size <= (long) ParserSTL.PROBE_SAMPLES * buffer.capacity()) {
+            channel.position(buffer.limit());
+            probe.trianglesNumber = ParserSTL.probeTokens(new TokenizerSTL(
+                    channel, buffer), probe, false);
+            return;
+        }
+
+        // Each part is tokenized alone : the tokenizer reaches the end of the
+        // part at the end of the buffer.
+        final ReadableByteChannel end = Channels
+                .newChannel(new ByteArrayInputStream(new byte[0]));
+        final long step = size / ParserSTL.PROBE_SAMPLES;
+        long facets = 0;
+        long scanned = 0;
+
+        for (int i = 0; i < ParserSTL.PROBE_SAMPLES; i = i + 1) {
+            if (i > 0) {
+                buffer.clear();
+                ParserSTL.readAt(channel, buffer, i * step);
+                buffer.flip();
+            }
+            scanned = scanned + buffer.remaining();
+            facets = facets
+                    + ParserSTL.probeTokens(new TokenizerSTL(end, buffer),
+                            probe, i > 0);
+        }
+
+        probe.sampled = true;
+        probe.trianglesNumber = Math.round((double) facets * size / scanned);
+    }
+
+    /**
+     * Probes a binary file. The number of triangles is read in the header,
+     * and the points of some triangles distributed in the file are read to
+     * compute the bounding box.
+     * @param channel
+     *            the channel of the file
+     * @param buffer
+     *            the buffer containing the first bytes of the file
+     * @param probe
+     *            the information to complete
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static void probeB(final FileChannel channel,
+            final ByteBuffer buffer, final Probe probe) throws IOException {
+        final int intSize = Integer.SIZE / Byte.SIZE;
+        if (buffer.limit() < ParserSTL.HEADER_SIZE + intSize) {
+            return;
+        }
+
+        // The number of triangles is limited by the size of the file, as in
+        // the reading.
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        probe.trianglesNumber = Math.min(
+                buffer.getInt(ParserSTL.HEADER_SIZE) & 0xFFFFFFFFL,
+                (probe.fileSize - ParserSTL.HEADER_SIZE - intSize)
+                        / ParserSTL.TRIANGLE_STL_SIZE);
+
+        final int perSample = buffer.capacity() / ParserSTL.TRIANGLE_STL_SIZE;
+        final long step = Math.max(perSample, probe.trianglesNumber
+                / ParserSTL.PROBE_SAMPLES);
+        probe.sampled = step > perSample;
+
+        for (long first = 0; first < probe.trianglesNumber; first += step) {
+            buffer.clear();
+            buffer.limit((int) Math.min(perSample, probe.trianglesNumber
+                    - first)
+                    * ParserSTL.TRIANGLE_STL_SIZE);
+            ParserSTL.readAt(channel, buffer, ParserSTL.HEADER_SIZE + intSize
+                    + first * ParserSTL.TRIANGLE_STL_SIZE);
+            buffer.flip();
+            ParserSTL.probeTriangles(buffer, probe);
+        }
+    }
+
+    /**
+     * Probes a gzip-compressed STL file : only the first bytes are
+     * decompressed. The number of triangles of a binary file is read in its
+     * header, and the number of triangles of an ASCII file is estimated from
+     * the size of the decompressed file, written at the end of the gzip file.
+     * The bounds are computed on the first triangles.
+     * @param channel
+     *            the channel of the file
+     * @param probe
+     *            the probe to fill
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static void probeGzip(final FileChannel channel, final Probe probe)
+            throws IOException {
+        // The last four bytes contain the size of the decompressed file,
+        // modulo 2^32.
+        final int intSize = Integer.SIZE / Byte.SIZE;
+        final ByteBuffer trailer = ByteBuffer.allocate(intSize).order(
+                ByteOrder.LITTLE_ENDIAN);
+        ParserSTL.readAt(channel, trailer, Math.max(0, probe.fileSize
+                - intSize));
+        final long inflatedSize = trailer.getInt(0) & 0xFFFFFFFFL;
+
+        channel.position(0);
+        final InputStream stream = new GZIPInputStream(
+                Channels.newInputStream(channel), TokenizerSTL.BUFFER_SIZE);
+        final ByteBuffer buffer = ByteBuffer
+                .allocate(TokenizerSTL.BUFFER_SIZE);
+        try {
+            buffer.limit(ParserSTL.readFully(stream, buffer.array(),
+                    buffer.capacity()));
+        } finally {
+            stream.close();
+        }
+
+        if (TokenizerSTL.isASCII(buffer)) {
+            probe.ascii = true;
+            final int scanned = buffer.limit();
+            final long facets = ParserSTL.probeTokens(new TokenizerSTL(
+                    Channels.newChannel(new ByteArrayInputStream(
+                            new byte[0])), buffer), probe, false);
+            probe.sampled = scanned == buffer.capacity();
+            if (probe.sampled && inflatedSize > scanned) {
+                probe.trianglesNumber = Math.round((double) facets
+                        * inflatedSize / scanned);
+            } else {
+                probe.trianglesNumber = facets;
+            }
+        } else if (buffer.limit() >= ParserSTL.HEADER_SIZE + intSize) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            probe.trianglesNumber = buffer.getInt(ParserSTL.HEADER_SIZE)
+                    & 0xFFFFFFFFL;
+            buffer.position(ParserSTL.HEADER_SIZE + intSize);
+            probe.sampled = probe.trianglesNumber > buffer.remaining()
+                    / ParserSTL.TRIANGLE_STL_SIZE;
+            ParserSTL.probeTriangles(buffer, probe);
+        }
+    }
+
+    /**
+     * Reads the tokens of an ASCII file to probe it : counts the triangles and
+     * adds the points to the bounding box.
+     * @param tokenizer
+     *            the tokenizer to read in
+     * @param probe
+     *            the information to complete
+     * @param skipFirst
+     *            true if the first token must be skipped, because it can be
+     *            the end of a token cut
+     * @return the number of triangles read
+     */
+    private static long probeTokens(final TokenizerSTL tokenizer,
+            final Probe probe, final boolean skipFirst) {
+        long facets = 0;
+
+        try {
+            if (skipFirst) {
+                tokenizer.nextToken();
+            }
+            while (tokenizer.nextToken()) {
+                if (tokenizer.isFirstOfLine()) {
+                    if (tokenizer.tokenEquals(ParserSTL.FACET)) {
+                        facets = facets + 1;
+                    } else if (tokenizer.tokenEquals(ParserSTL.VERTEX)) {
+                        probe.addPoint((float) tokenizer.nextDouble(),
+                                (float) tokenizer.nextDouble(),
+                                (float) tokenizer.nextDouble());
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            // The part read ends in the middle of a point.
+        } catch (final NumberFormatException e) {
+            // A bad formed point : the probe stops on this part.
+        }
+
+        return facets;
+    }
+
+    /**
+     * Adds to the probe the points of the binary triangles contained in the
+     * buffer, from its position.
+     * @param buffer
+     *            the little-endian buffer containing the triangles
+     * @param probe
+     *            the probe to fill
+     */
+    private static void probeTriangles(final ByteBuffer buffer,
+            final Probe probe) {
+        while (buffer.remaining() >= ParserSTL.TRIANGLE_STL_SIZE) {
+            // Skips the normal, and reads the points.
+            buffer.position(buffer.position() + ParserSTL.NB_COORDINATES
+                    * (Float.SIZE / Byte.SIZE));
+            for (int k = 0; k < ParserSTL.NB_VERTICES; k = k + 1) {
+                probe.addPoint(buffer.getFloat(), buffer.getFloat(),
+                        buffer.getFloat());
             }
+            buffer.getShort();
         }
-        return false;
     }
 
     /**
@@ -116,7 +591,8 @@ public class ParserSTL {
      * reference to the point (and same work for the edges).
      * @param bBuf
      *            the bytebuffer to read in
-     * @return the triangle read
+     * @return the triangle read, or null if it is out of the region of
+     *         interest
      * @throws BadMeshException
      *             if the triangle is flat (two points equals) or if one point
      *             has a coordinate > 1e5 or if one edge of the new triangle
@@ -131,9 +607,15 @@ public class ParserSTL {
         final Vector3d norm = new Vector3d(bBuf.getFloat(), bBuf.getFloat(),
                 bBuf.getFloat());
 
-        Point p1 = new Point(bBuf.getFloat(), bBuf.getFloat(), bBuf.getFloat());
-        Point p2 = new Point(bBuf.getFloat(), bBuf.getFloat(), bBuf.getFloat());
-        Point p3 = new Point(bBuf.getFloat(), bBuf.getFloat(), bBuf.getFloat());
+        final float x1 = bBuf.getFloat();
+        final float y1 = bBuf.getFloat();
+        final float z1 = bBuf.getFloat();
+        final float x2 = bBuf.getFloat();
+        final float y2 = bBuf.getFloat();
+        final float z2 = bBuf.getFloat();
+        final float x3 = bBuf.getFloat();
+        final float y3 = bBuf.getFloat();
+        final float z3 = bBuf.getFloat();
 
         // Adds two bytes to respect the binary format. Those bytes can be used
         // to put a color to the triangle. But we don't use them.
@@ -142,10 +624,16 @@ public class ParserSTL {
 
         // Treatment part.
 
-        // Treats the points.
-        p1 = this.treatPoint(p1);
-        p2 = this.treatPoint(p2);
-        p3 = this.treatPoint(p3);
+        // The triangles out of the region are not treated.
+        if (!this.isInRegion(x1, y1, z1, x2, y2, z2, x3, y3, z3)) {
+            return null;
+        }
+
+        // Treats the points : the point objects are created only for the new
+        // points.
+        final int i1 = this.treatPoint(x1, y1, z1);
+        final int i2 = this.treatPoint(x2, y2, z2);
+        final int i3 = this.treatPoint(x3, y3, z3);
 
         if (norm.x == 0 && norm.y == 0 && norm.z == 0) {
             throw new BadMeshException();
@@ -153,231 +641,600 @@ public class ParserSTL {
         norm.normalize();
 
         // If two points are the same, throws a FlatTriangleException.
-        if (p1 == p2 || p2 == p3 || p1 == p3) {
+        if (i1 == i2 || i2 == i3 || i1 == i3) {
             throw new FlatTriangleException();
         }
 
-        // Same verification for the edges : using the method get of a HashSet.
-        Edge e1 = new Edge(p1, p2);
-        Edge e2 = new Edge(p2, p3);
-        Edge e3 = new Edge(p3, p1);
-
-        e1 = this.treatEdge(e1);
-        e2 = this.treatEdge(e2);
-        e3 = this.treatEdge(e3);
+        // Same verification for the edges, using the indices of the points :
+        // the edge objects are created only for the new edges.
+        final Edge e1 = this.treatEdge(i1, i2);
+        final Edge e2 = this.treatEdge(i2, i3);
+        final Edge e3 = this.treatEdge(i3, i1);
 
         if (e1.getNumberTriangles() == 2 || e2.getNumberTriangles() == 2
                 || e3.getNumberTriangles() == 2) {
             throw new MoreThanTwoTrianglesPerEdgeException();
         }
 
-        return new Triangle(p1, p2, p3, e1, e2, e3, norm);
+        return new Triangle(this.pointWelder.getPoint(i1),
+                this.pointWelder.getPoint(i2), this.pointWelder.getPoint(i3),
+                e1, e2, e3, norm);
     }
 
     /**
-     * Detects the format of the STL file, and reads it using the good method.
-     * @return a hashset of triangles to build a mesh with
+     * Reads the STL file. If the cache is used and if the cache file is still
+     * valid, the mesh is read in the cache file. Otherwise the STL file is
+     * parsed, and the cache file is written for the next reading. The cache
+     * is not used when a region of interest is set.
+     * @return a mesh made of the triangles read, or null if the file is empty
      * @throws IOException
      *             if the file is bad formed or if there is an error during the
      *             reading
      */
     public final Mesh read() throws IOException {
-        final Scanner scanner = new Scanner(new FileReader(this.fileName));
+        // The cache file contains the whole mesh : it is not used to read a
+        // region.
+        final boolean cache = this.cacheUsed && this.region == null;
 
-        // Reading the file
-        try {
-            if (scanner.hasNextLine()) {
-                final StringTokenizer brokenLine = new StringTokenizer(
-                        scanner.nextLine(), " ");
-                final String openingWord = brokenLine.nextToken();
+        if (cache) {
+            try {
+                final Mesh cached = CacheSTL.read(this.fileName);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (final IOException e) {
+                // The cache file is damaged : the STL file is parsed again.
+            }
+        }
 
-                Set<Triangle> triangleMap;
-                this.pointMap = new HashMap<>();
-                this.edgeMap = new HashMap<>();
+        final Mesh mesh = this.parse();
 
-                // If the first word is solid, this means it's an ASCII file.
-                // If it's a binary file, it will not be found.
-                if ("solid".equals(openingWord)) {
-                    triangleMap = this.readSTLA();
-                } else {
-                    triangleMap = this.readSTLB();
-                }
-                return new Mesh(triangleMap);
+        if (cache && mesh != null) {
+            try {
+                CacheSTL.write(this.fileName, mesh);
+            } catch (final IOException e) {
+                // The cache file cannot be written, for example in a read-only
+                // directory : it is only an optimization.
             }
-            return null;
+        }
+
+        return mesh;
+    }
+
+    /**
+     * Reads the channel from a position, until the buffer is full or until the
+     * end of the channel. The position of the channel is not modified.
+     * @param channel
+     *            the channel to read in
+     * @param buffer
+     *            the buffer to fill
+     * @param position
+     *            the position of the first byte to read
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static void readAt(final FileChannel channel,
+            final ByteBuffer buffer, final long position) throws IOException {
+        final long offset = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the stream until the array is full or until the end of the stream.
+     * A single call to read can return less bytes than asked.
+     * @param stream
+     *            the stream to read in
+     * @param bytes
+     *            the array to fill
+     * @param length
+     *            the number of bytes to read at the beginning of the array
+     * @return the number of bytes read, smaller than the length only if the
+     *         end of the stream is reached
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private static int readFully(final InputStream stream, final byte[] bytes,
+            final int length) throws IOException {
+        int offset = 0;
+        int read = 0;
+        while (offset < length && read >= 0) {
+            read = stream.read(bytes, offset, length - offset);
+            offset += Math.max(read, 0);
+        }
+        return offset;
+    }
+
+    /**
+     * Reads a gzip-compressed STL file. The file is decompressed while it is
+     * read, through the same tokenizer or the same blocks as a file not
+     * compressed : the binary files are always read as a stream, because the
+     * decompressed bytes cannot be mapped.
+     * @param channel
+     *            the channel of the file, at its beginning
+     * @return the set of triangles read
+     * @throws IOException
+     *             if there is an error during the reading or the
+     *             decompression
+     */
+    private Set<Triangle> readGzip(final FileChannel channel)
+            throws IOException {
+        final InputStream stream = new GZIPInputStream(
+                Channels.newInputStream(channel), TokenizerSTL.BUFFER_SIZE);
+
+        try {
+            final ByteBuffer buffer = ByteBuffer
+                    .allocate(TokenizerSTL.BUFFER_SIZE);
+            buffer.limit(ParserSTL.readFully(stream, buffer.array(),
+                    buffer.capacity()));
+
+            if (TokenizerSTL.isASCII(buffer)) {
+                return this.readSTLA(new TokenizerSTL(Channels
+                        .newChannel(stream), buffer));
+            }
+            // The first bytes already decompressed are read again.
+            return this.readSTLBStream(new SequenceInputStream(
+                    new ByteArrayInputStream(buffer.array(), 0, buffer
+                            .limit()), stream));
         } finally {
-            scanner.close();
+            stream.close();
         }
     }
 
+    /**
+     * Reads the STL file as a stream, and returns its triangles as an indexed
+     * mesh : no object is created for the points, the edges and the
+     * triangles, and the memory used is around ten times smaller than a
+     * mesh. The cache and the region of interest are not used.
+     * @return the indexed mesh of the file
+     * @throws IOException
+     *             if the file is not found or unreadable
+     * @see IndexedMesh
+     */
+    public final IndexedMesh readIndexed() throws IOException {
+        return new IndexerSTL().read(this.fileName);
+    }
+
     /**
      * Reads an ASCII STL file. Creates a HashSet of triangle to put them in. If
      * a point is found equals with another, only one point is created, and the
      * same reference is given to the two triangles. This work is done to the
      * edges too. Flat triangles (two points equals) are removed. Points out of
      * bounds (containing coordinate > 1e5) are removed and their triangles too.
+     * The file is read in one pass, considering the first word of each line.
+     * @param tokenizer
+     *            the tokenizer reading the file
      * @return the HashSet containing all the triangles
      * @throws IOException
      *             if the file is badformed or if the file doesn't exist
      */
-    private Set<Triangle> readSTLA() throws IOException {
-
-        final Scanner scanner = new Scanner(new FileReader(this.fileName));
+    private Set<Triangle> readSTLA(final TokenizerSTL tokenizer)
+            throws IOException {
 
         this.triangleSet = new HashSet<>();
 
         final Vector3d currentVector = new Vector3d();
-        final List<Point> currentPoints = new ArrayList<>();
+        final double[] currentPoints = new double[ParserSTL.NB_VERTICES
+                * ParserSTL.NB_COORDINATES];
+        int pointsNumber = 0;
 
-        // Reading the file
-        try {
-            while (scanner.hasNextLine()) {
-
-                // If the processLineA have finished to read an entire triangle,
-                // it proceeds to the process.
-                if (ParserSTL.processLineA(scanner.nextLine(), currentVector,
-                        currentPoints)) {
-
-                    try {
-                        // From the points read, checks in the hashset if they
-                        // doesn't already exist.
-                        final Point p1 = this.treatPoint(currentPoints.get(0));
-                        final Point p2 = this.treatPoint(currentPoints.get(1));
-                        final Point p3 = this.treatPoint(currentPoints.get(2));
-
-                        // Checks in the HashSet of edges if this edge doesn't
-                        // already exist. If it already exists, it doesn't
-                        // create another edge, but keep the same reference.
-                        final Edge e1 = this.treatEdge(new Edge(p1, p2));
-                        final Edge e2 = this.treatEdge(new Edge(p2, p3));
-                        final Edge e3 = this.treatEdge(new Edge(p3, p1));
-
-                        // Checks for the flat triangles.
-                        if (e1 == e2 || e2 == e3 || e1 == e3) {
-                            throw new FlatTriangleException();
-                        }
-
-                        if (e1.getNumberTriangles() == 2
-                                || e2.getNumberTriangles() == 2
-                                || e3.getNumberTriangles() == 2) {
-                            throw new MoreThanTwoTrianglesPerEdgeException();
-                        }
-
-                        this.triangleSet.add(new Triangle(p1, p2, p3, e1, e2,
-                                e3, currentVector));
-
-                    } catch (final MoreThanTwoTrianglesPerEdgeException e) {
-                        // This triangle can't be add : three triangles per edge
-                        // will cause problems in the program.
-                    } catch (final FlatTriangleException e) {
-                        // If it is a flat Triangle : 2 identical Points, then 2
-                        // identical Edge, it is not added to the Mesh.
-                    } catch (final OutOfBoundsPointException e) {
-                        // The coordinates of the Point are unbounded, then the
-                        // Triangle is not added to the Mesh.
-                    } finally {
-                        currentPoints.clear();
+        while (tokenizer.nextToken()) {
+
+            // Only the first word of each line is considered.
+            if (!tokenizer.isFirstOfLine()) {
+                continue;
+            }
+
+            if (tokenizer.tokenEquals(ParserSTL.FACET)) {
+                // If the words are facet normal, read the vector.
+                if (tokenizer.nextToken()
+                        && tokenizer.tokenEquals(ParserSTL.NORMAL)) {
+                    currentVector.set(tokenizer.nextDouble(),
+                            tokenizer.nextDouble(), tokenizer.nextDouble());
+                    currentVector.normalize();
+                }
+            } else if (tokenizer.tokenEquals(ParserSTL.VERTEX)) {
+                // If the word is vertex, read one of the three points.
+                for (int i = 0; i < ParserSTL.NB_COORDINATES; i = i + 1) {
+                    final float coordinate = (float) tokenizer.nextDouble();
+                    if (pointsNumber < ParserSTL.NB_VERTICES) {
+                        currentPoints[pointsNumber * ParserSTL.NB_COORDINATES
+                                + i] = coordinate;
                     }
                 }
+                pointsNumber = pointsNumber + 1;
+            } else if (tokenizer.tokenEquals(ParserSTL.ENDFACET)) {
+                // If the the points are read, builds the triangle.
+                if (pointsNumber >= ParserSTL.NB_VERTICES) {
+                    this.readTriangleA(currentVector, currentPoints);
+                }
+                pointsNumber = 0;
             }
-        } finally {
-            scanner.close();
         }
 
         return this.triangleSet;
     }
 
     /**
-     * Reads a binary STL file. Creates a HashSet of triangle to put them in. If
-     * a point is found equals with another, only one point is created, and the
-     * same reference is given to the two triangles. This work is done to the
-     * edges too. Flat triangles (two points equals) are removed. Points out of
-     * bounds (containing coordinate > 1e5) are removed and their triangles too.
+     * Reads a binary STL file, using the reading mode. Creates a HashSet of
+     * triangle to put them in. If a point is found equals with another, only
+     * one point is created, and the same reference is given to the two
+     * triangles. This work is done to the edges too. Flat triangles (two
+     * points equals) are removed. Points out of bounds (containing coordinate >
+     * 1e5) are removed and their triangles too.
+     * @param channel
+     *            the channel of the file, at the beginning of the file
      * @return the HashSet containing all the triangles
      * @throws IOException
      *             if the file is badformed
      */
-    private Set<Triangle> readSTLB() throws IOException {
-        final InputStream stream = new BufferedInputStream(new FileInputStream(
-                this.fileName));
+    private Set<Triangle> readSTLB(final FileChannel channel)
+            throws IOException {
+        if (this.readingMode == ParserSTL.MAPPED_MODE) {
+            return this.readSTLBMapped(channel);
+        }
+        return this.readSTLBStream(new BufferedInputStream(Channels
+                .newInputStream(channel)));
+    }
+
+    /**
+     * Reads a binary STL file by mapping it in memory. The triangles are
+     * decoded directly from the mapped buffer, in the LITTLE_ENDIAN order.
+     * Files bigger than 2 GB are read through several mapped windows.
+     * @param channel
+     *            the channel of the file, at the beginning of the file
+     * @return the HashSet containing all the triangles
+     * @throws IOException
+     *             if the file is badformed
+     */
+    private Set<Triangle> readSTLBMapped(final FileChannel channel)
+            throws IOException {
 
         this.triangleSet = new HashSet<>();
 
-        final int headerSize = 80;
+        final ByteBuffer head = ByteBuffer.allocate(ParserSTL.HEADER_SIZE
+                + Integer.SIZE / Byte.SIZE);
+        head.order(ByteOrder.LITTLE_ENDIAN);
+        while (head.hasRemaining() && channel.read(head) >= 0) {
+            // Reads until the header and the size are entirely read.
+        }
+        if (head.hasRemaining()) {
+            return this.triangleSet;
+        }
+
+        // Only the triangles really contained in the file are read, even
+        // if the size written in the header is bigger.
+        final long meshSize = Math.min(
+                head.getInt(ParserSTL.HEADER_SIZE) & 0xFFFFFFFFL,
+                (channel.size() - head.capacity())
+                        / ParserSTL.TRIANGLE_STL_SIZE);
 
-        final byte[] header = new byte[headerSize];
-        stream.read(header, 0, headerSize);
+        long position = head.capacity();
+        long remaining = meshSize;
 
-        final byte[] sizeBytes = new byte[Byte.SIZE / 2];
-        stream.read(sizeBytes, 0, Byte.SIZE / 2);
+        while (remaining > 0) {
+            final long windowSize = Math.min(remaining,
+                    ParserSTL.WINDOW_TRIANGLES);
 
-        ByteBuffer bBuf = ByteBuffer.wrap(sizeBytes);
-        bBuf.order(ByteOrder.nativeOrder());
-        final int meshSize = bBuf.getInt();
+            final MappedByteBuffer bBuf = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, windowSize
+                            * ParserSTL.TRIANGLE_STL_SIZE);
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
 
-        final int triangleSTLSize = 50;
+            this.readTrianglesB(bBuf, (int) windowSize);
 
-        final byte[] fileContent = new byte[triangleSTLSize * meshSize];
-        stream.read(fileContent);
-        bBuf = ByteBuffer.wrap(fileContent);
-        bBuf.order(ByteOrder.nativeOrder());
+            position += windowSize * ParserSTL.TRIANGLE_STL_SIZE;
+            remaining -= windowSize;
+        }
 
-        for (int i = 0; i < meshSize; i = i + 1) {
-            try {
-                // If a Triangle exists already, and if the
-                // Parser read another
-                // Triangle with the same values,
-                // only one of those Triangles will be added
-                // to the Mesh.
-                this.triangleSet.add(this.processLineB(bBuf));
-            } catch (final FlatTriangleException e) {
-                // If it is a flat Triangle : 2 identical Points, then 2
-                // identical Edge, it is not added to the Mesh.
-            } catch (final OutOfBoundsPointException e) {
-                // The coordinates of the Point are unbounded, then the Triangle
-                // is not added to the Mesh.
-            } catch (final MoreThanTwoTrianglesPerEdgeException e) {
-                // If one edge of the new triangle contains already two
-                // triangles, then the new triangle is removed from the mesh.
-            } catch (BadMeshException e) {
-                // This execption is supposed to be treated in the three catch
-                // above.
+        return this.triangleSet;
+    }
+
+    /**
+     * Reads a binary STL file through a buffered input stream. The triangles
+     * are copied in memory and decoded by blocks, using always the same
+     * array.
+     * @param stream
+     *            the stream of the file, at the beginning of the file
+     * @return the HashSet containing all the triangles
+     * @throws IOException
+     *             if the file is badformed
+     */
+    private Set<Triangle> readSTLBStream(final InputStream stream)
+            throws IOException {
+
+        this.triangleSet = new HashSet<>();
+
+        final byte[] header = new byte[ParserSTL.HEADER_SIZE
+                + Integer.SIZE / Byte.SIZE];
+        ParserSTL.readFully(stream, header, header.length);
+
+        ByteBuffer bBuf = ByteBuffer.wrap(header);
+        bBuf.order(ByteOrder.LITTLE_ENDIAN);
+        long remaining = bBuf.getInt(ParserSTL.HEADER_SIZE) & 0xFFFFFFFFL;
+
+        final byte[] block = new byte[ParserSTL.TRIANGLE_STL_SIZE
+                * ParserSTL.BLOCK_TRIANGLES];
+        bBuf = ByteBuffer.wrap(block);
+        bBuf.order(ByteOrder.LITTLE_ENDIAN);
+
+        // Stops at the end of the stream, even if the size written in the
+        // header is bigger.
+        while (remaining > 0) {
+            final int blockSize = (int) Math.min(remaining,
+                    ParserSTL.BLOCK_TRIANGLES);
+            final int trianglesRead = ParserSTL.readFully(stream, block,
+                    blockSize * ParserSTL.TRIANGLE_STL_SIZE)
+                    / ParserSTL.TRIANGLE_STL_SIZE;
+
+            bBuf.clear();
+            this.readTrianglesB(bBuf, trianglesRead);
+
+            if (trianglesRead < blockSize) {
+                break;
             }
+            remaining -= blockSize;
         }
 
-        stream.close();
         return this.triangleSet;
     }
 
     /**
-     * Checks if the edge doesn't already exists, and if it does, returns only
-     * one reference for other edges which have the same values.
-     * @param edge
-     *            the edge to check
-     * @return the edge parameter if it doesn't already exists, otherwise the
-     *         edge which already exists and have the same values
+     * Builds one triangle read in an ASCII file, and adds it to the set of
+     * triangles if it is well formed.
+     * @param currentVector
+     *            the normal of the triangle
+     * @param currentPoints
+     *            the nine coordinates of the three points of the triangle
+     */
+    private void readTriangleA(final Vector3d currentVector,
+            final double[] currentPoints) {
+        // The triangles out of the region are not treated.
+        if (!this.isInRegion(currentPoints[0], currentPoints[1],
+                currentPoints[2], currentPoints[3], currentPoints[4],
+                currentPoints[5], currentPoints[6], currentPoints[7],
+                currentPoints[8])) {
+            return;
+        }
+
+        try {
+            // From the points read, checks in the welder if they
+            // doesn't already exist.
+            final int i1 = this.treatPoint((float) currentPoints[0],
+                    (float) currentPoints[1], (float) currentPoints[2]);
+            final int i2 = this.treatPoint((float) currentPoints[3],
+                    (float) currentPoints[4], (float) currentPoints[5]);
+            final int i3 = this.treatPoint((float) currentPoints[6],
+                    (float) currentPoints[7], (float) currentPoints[8]);
+            final Point p1 = this.pointWelder.getPoint(i1);
+            final Point p2 = this.pointWelder.getPoint(i2);
+            final Point p3 = this.pointWelder.getPoint(i3);
+
+            // Checks in the welder of edges if this edge doesn't
+            // already exist. If it already exists, it doesn't
+            // create another edge, but keep the same reference.
+            final Edge e1 = this.treatEdge(i1, i2);
+            final Edge e2 = this.treatEdge(i2, i3);
+            final Edge e3 = this.treatEdge(i3, i1);
+
+            // Checks for the flat triangles.
+            if (e1 == e2 || e2 == e3 || e1 == e3) {
+                throw new FlatTriangleException();
+            }
+
+            if (e1.getNumberTriangles() == 2 || e2.getNumberTriangles() == 2
+                    || e3.getNumberTriangles() == 2) {
+                throw new MoreThanTwoTrianglesPerEdgeException();
+            }
+
+            this.triangleSet.add(new Triangle(p1, p2, p3, e1, e2, e3,
+                    currentVector));
+
+        } catch (final MoreThanTwoTrianglesPerEdgeException e) {
+            // This triangle can't be add : three triangles per edge
+            // will cause problems in the program.
+        } catch (final FlatTriangleException e) {
+            // If it is a flat Triangle : 2 identical Points, then 2
+            // identical Edge, it is not added to the Mesh.
+        } catch (final OutOfBoundsPointException e) {
+            // The coordinates of the Point are unbounded, then the
+            // Triangle is not added to the Mesh.
+        }
+    }
+
+    /**
+     * Reads one triangle in the buffer, and adds it to the set of triangles if
+     * it is well formed.
+     * @param bBuf
+     *            the bytebuffer to read in
      */
-    private Edge treatEdge(final Edge edge) {
+    private void readTriangleB(final ByteBuffer bBuf) {
+        try {
+            // If a Triangle exists already, and if the
+            // Parser read another
+            // Triangle with the same values,
+            // only one of those Triangles will be added
+            // to the Mesh.
+            final Triangle triangle = this.processLineB(bBuf);
+            if (triangle != null) {
+                this.triangleSet.add(triangle);
+            }
+        } catch (final FlatTriangleException e) {
+            // If it is a flat Triangle : 2 identical Points, then 2
+            // identical Edge, it is not added to the Mesh.
+        } catch (final OutOfBoundsPointException e) {
+            // The coordinates of the Point are unbounded, then the Triangle
+            // is not added to the Mesh.
+        } catch (final MoreThanTwoTrianglesPerEdgeException e) {
+            // If one edge of the new triangle contains already two
+            // triangles, then the new triangle is removed from the mesh.
+        } catch (BadMeshException e) {
+            // This execption is supposed to be treated in the three catch
+            // above.
+        }
+    }
 
-        final Edge eNew = this.edgeMap.get(edge);
-        if (eNew == null) {
-            this.edgeMap.put(edge, edge);
-            return edge;
+    /**
+     * Reads the triangles of the buffer, and adds to the set of triangles the
+     * well formed ones. If there is more than one thread, the triangles are
+     * decoded and checked in parallel. Then their points are welded, the
+     * edges are welded by the indices of their points, the number of
+     * triangles per edge is checked, and the triangles are built, in the
+     * order of the file : the edges have the same points in the same order,
+     * and the same triangles are removed as in the serial reading.
+     * @param bBuf
+     *            the bytebuffer to read in, at the position of the first
+     *            triangle
+     * @param trianglesNumber
+     *            the number of triangles to read
+     */
+    private void readTrianglesB(final ByteBuffer bBuf,
+            final int trianglesNumber) {
+        if (this.pool == null) {
+            for (int i = 0; i < trianglesNumber; i = i + 1) {
+                this.readTriangleB(bBuf);
+            }
+            return;
         }
-        return eNew;
+
+        final DecodingTask task = new DecodingTask(bBuf, trianglesNumber);
+        this.pool.invoke(task);
+
+        bBuf.position(bBuf.position() + trianglesNumber
+                * ParserSTL.TRIANGLE_STL_SIZE);
+
+        final float[] c = task.coordinates;
+        for (int i = 0; i < trianglesNumber; i = i + 1) {
+            // The triangles removed during the decoding are not treated.
+            if (!task.decoded[i]) {
+                continue;
+            }
+
+            final int k = i * ParserSTL.NB_VERTICES * ParserSTL.NB_COORDINATES;
+            final int i1 = this.pointWelder.weld(c[k], c[k + 1], c[k + 2]);
+            final int i2 = this.pointWelder.weld(c[k + 3], c[k + 4], c[k + 5]);
+            final int i3 = this.pointWelder.weld(c[k + 6], c[k + 7], c[k + 8]);
+
+            // The flat triangles are removed.
+            if (i1 == i2 || i2 == i3 || i1 == i3) {
+                continue;
+            }
+
+            final Edge e1 = this.treatEdge(i1, i2);
+            final Edge e2 = this.treatEdge(i2, i3);
+            final Edge e3 = this.treatEdge(i3, i1);
+
+            // If one edge of the new triangle contains already two
+            // triangles, then the new triangle is removed from the mesh.
+            if (e1.getNumberTriangles() != 2 && e2.getNumberTriangles() != 2
+                    && e3.getNumberTriangles() != 2) {
+                final int index = i * ParserSTL.NB_COORDINATES;
+                final Vector3d norm = new Vector3d(task.normals[index],
+                        task.normals[index + 1], task.normals[index + 2]);
+                norm.normalize();
+
+                this.triangleSet.add(new Triangle(this.pointWelder
+                        .getPoint(i1), this.pointWelder.getPoint(i2),
+                        this.pointWelder.getPoint(i3), e1, e2, e3, norm));
+            }
+        }
+    }
+
+    /**
+     * Changes the use of the cache file. The cache file is written beside the
+     * STL file, and contains the mesh already welded : reading it is faster
+     * than parsing the STL file again.
+     * @param used
+     *            true to use the cache file
+     */
+    public final void setCacheUsed(final boolean used) {
+        this.cacheUsed = used;
+    }
+
+    /**
+     * Changes the region of interest. The triangles whose centroid is out of
+     * the region are discarded during the reading, before the treatment of
+     * their points and edges : only the region is kept in memory.
+     * @param regionIn
+     *            the region of interest, or null to read the whole file
+     */
+    public final void setRegion(final RegionOfInterest regionIn) {
+        this.region = regionIn;
+    }
+
+    /**
+     * Changes the reading mode of the binary files.
+     * @param mode
+     *            the new mode : STREAM_MODE or MAPPED_MODE
+     */
+    public final void setReadingMode(final int mode) {
+        this.readingMode = mode;
+    }
+
+    /**
+     * Changes the number of threads decoding the binary files. With more than
+     * one thread, the triangles are decoded in parallel, and then their
+     * points and edges are welded in the order of the file. The mesh read is
+     * the same as with one thread.
+     * @param threads
+     *            the number of threads
+     */
+    public final void setThreadsNumber(final int threads) {
+        this.threadsNumber = threads;
+    }
+
+    /**
+     * Tiles the file instead of parsing it : the file is read once, and its
+     * triangles are written in a grid of binary STL files, which can be
+     * parsed one by one. Used for the files too big to be parsed in memory.
+     * @param directory
+     *            the directory where the tile files are written
+     * @param tileSize
+     *            the size of the side of a tile
+     * @param halo
+     *            the margin added around each tile
+     * @return the names of the tile files written
+     * @throws IOException
+     *             if there is an error during the reading or the writing
+     * @see TilerSTL
+     */
+    public final List<String> tile(final String directory,
+            final double tileSize, final double halo) throws IOException {
+        return new TilerSTL(this.fileName, directory, tileSize, halo).tile();
+    }
+
+    /**
+     * Checks if the edge doesn't already exists, and if it does, returns only
+     * one reference for other edges which have the same values.
+     * @param index1
+     *            the index of the first point of the edge
+     * @param index2
+     *            the index of the second point of the edge
+     * @return a new edge if it doesn't already exists, otherwise the edge
+     *         which already exists and have the same points
+     */
+    private Edge treatEdge(final int index1, final int index2) {
+        return this.edgeWelder.weld(index1, index2);
     }
 
     /**
      * Checks if the point doesn't already exists, and if it does, returns only
-     * one references for points which have the same values.
-     * @param point
-     *            the point to check
-     * @return the point parameter if it doesn't already exists, otherwise the
-     *         point which already exists and have the same values
+     * one index for points which have the same values.
+     * @param x
+     *            the x coordinate of the point
+     * @param y
+     *            the y coordinate of the point
+     * @param z
+     *            the z coordinate of the point
+     * @return the index of the point in the welder of points : the same index
+     *         is returned for the points which have the same values
      * @exception OutOfBoundsPointException
      *                if the point have incorrect values
      */
-    private Point treatPoint(final Point point)
+    private int treatPoint(final float x, final float y, final float z)
             throws OutOfBoundsPointException {
 
         // If the point has one coordinate >
@@ -385,21 +1242,293 @@ public class ParserSTL {
         // further in the program.
         final double maxLimit = OutOfBoundsPointException.BOUND_LIMIT;
 
-        if (point.getX() > maxLimit || point.getY() > maxLimit
-                || point.getZ() > maxLimit) {
+        if (x > maxLimit || y > maxLimit || z > maxLimit) {
             throw new OutOfBoundsPointException();
         }
 
-        final Point mapP = this.pointMap.get(point);
+        // Checks in the welder if this point doesn't already exist. If it
+        // already exists, it doesn't create another point, but keep the same
+        // reference.
+        return this.pointWelder.weld(x, y, z);
+    }
 
-        // Checks in the HashSet of points if this point doesn't already exist.
-        // If it already exists, it doesn't create another point, but keep the
-        // same reference.
-        if (mapP == null) {
-            this.pointMap.put(point, point);
-            return point;
+    /**
+     * Implements a task decoding a range of triangles of a binary file. The
+     * coordinates and the normals are decoded, and the triangles out of the
+     * region, without normal or having an unbounded point are removed. The
+     * points are not welded here : the indices of the points, the order of
+     * the points of an edge and the number of triangles per edge depend on
+     * the order of the triangles in the file.
+     * @author Daniel Lefevre
+     */
+    private final class DecodingTask extends RecursiveAction {
+
+        /**
+         * Version attribute.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The buffer to read in. Only the absolute methods are used.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The position of the first triangle of the buffer.
+         */
+        private final int start;
+
+        /**
+         * The first triangle decoded by this task.
+         */
+        private final int from;
+
+        /**
+         * The triangle after the last triangle decoded by this task.
+         */
+        private final int to;
+
+        /**
+         * The normals of the triangles : three floats per triangle.
+         */
+        private final float[] normals;
+
+        /**
+         * The coordinates of the points of the triangles : nine floats per
+         * triangle.
+         */
+        private final float[] coordinates;
+
+        /**
+         * True for the triangles kept, false for the triangles removed.
+         */
+        private final boolean[] decoded;
+
+        /**
+         * Constructor of the root task.
+         * @param bBuf
+         *            the buffer to read in, at the position of the first
+         *            triangle
+         * @param trianglesNumber
+         *            the number of triangles to decode
+         */
+        public DecodingTask(final ByteBuffer bBuf, final int trianglesNumber) {
+            this.buffer = bBuf;
+            this.start = bBuf.position();
+            this.from = 0;
+            this.to = trianglesNumber;
+            this.normals = new float[trianglesNumber
+                    * ParserSTL.NB_COORDINATES];
+            this.coordinates = new float[trianglesNumber
+                    * ParserSTL.NB_VERTICES * ParserSTL.NB_COORDINATES];
+            this.decoded = new boolean[trianglesNumber];
+        }
+
+        /**
+         * Constructor of a sub-task.
+         * @param parent
+         *            the task dividing itself
+         * @param fromIn
+         *            the first triangle to decode
+         * @param toIn
+         *            the triangle after the last triangle to decode
+         */
+        private DecodingTask(final DecodingTask parent, final int fromIn,
+                final int toIn) {
+            this.buffer = parent.buffer;
+            this.start = parent.start;
+            this.from = fromIn;
+            this.to = toIn;
+            this.normals = parent.normals;
+            this.coordinates = parent.coordinates;
+            this.decoded = parent.decoded;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+            if (this.to - this.from > ParserSTL.TASK_TRIANGLES) {
+                final int middle = (this.from + this.to) >>> 1;
+                RecursiveAction.invokeAll(new DecodingTask(this, this.from,
+                        middle), new DecodingTask(this, middle, this.to));
+                return;
+            }
+
+            // The byte order of a duplicate must be set again.
+            final ByteBuffer bBuf = this.buffer.duplicate();
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int i = this.from; i < this.to; i = i + 1) {
+                this.decoded[i] = this.decode(bBuf, i);
+            }
+        }
+
+        /**
+         * Decodes one triangle, and checks its normal and its points.
+         * @param bBuf
+         *            the buffer to read in
+         * @param i
+         *            the number of the triangle
+         * @return false if the triangle is out of the region, if one point
+         *         has a coordinate > 1e5 or if its normal is null, true
+         *         otherwise
+         */
+        private boolean decode(final ByteBuffer bBuf, final int i) {
+            int offset = this.start + i * ParserSTL.TRIANGLE_STL_SIZE;
+            final int floatSize = Float.SIZE / Byte.SIZE;
+            final double maxLimit = OutOfBoundsPointException.BOUND_LIMIT;
+
+            final int index = i * ParserSTL.NB_COORDINATES;
+            for (int k = 0; k < ParserSTL.NB_COORDINATES; k = k + 1) {
+                this.normals[index + k] = bBuf.getFloat(offset);
+                offset += floatSize;
+            }
+
+            final float[] c = this.coordinates;
+            final int first = i * ParserSTL.NB_VERTICES
+                    * ParserSTL.NB_COORDINATES;
+            for (int k = 0; k < ParserSTL.NB_VERTICES
+                    * ParserSTL.NB_COORDINATES; k = k + 1) {
+                c[first + k] = bBuf.getFloat(offset);
+                offset += floatSize;
+                if (c[first + k] > maxLimit) {
+                    return false;
+                }
+            }
+
+            if (!ParserSTL.this.isInRegion(c[first], c[first + 1],
+                    c[first + 2], c[first + 3], c[first + 4], c[first + 5],
+                    c[first + 6], c[first + 7], c[first + 8])) {
+                return false;
+            }
+
+            return this.normals[index] != 0 || this.normals[index + 1] != 0
+                    || this.normals[index + 2] != 0;
+        }
+    }
+
+    /**
+     * Implements the information about a STL file returned by the probe of the
+     * file, without building the mesh.
+     * @author Daniel Lefevre
+     */
+    public static final class Probe {
+
+        /**
+         * The size of the file in bytes.
+         */
+        private final long fileSize;
+
+        /**
+         * True if the file is an ASCII file.
+         */
+        private boolean ascii;
+
+        /**
+         * The number of triangles of the file.
+         */
+        private long trianglesNumber;
+
+        /**
+         * True if only some parts of the file have been read.
+         */
+        private boolean sampled;
+
+        /**
+         * The minimum of the coordinates of the points read : x, y and z.
+         */
+        private final double[] min = { Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+        };
+
+        /**
+         * The maximum of the coordinates of the points read : x, y and z.
+         */
+        private final double[] max = { Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        };
+
+        /**
+         * Constructor.
+         * @param size
+         *            the size of the file in bytes
+         */
+        private Probe(final long size) {
+            this.fileSize = size;
+        }
+
+        /**
+         * Adds a point to the bounding box.
+         * @param x
+         *            the x coordinate of the point
+         * @param y
+         *            the y coordinate of the point
+         * @param z
+         *            the z coordinate of the point
+         */
+        private void addPoint(final double x, final double y, final double z) {
+            this.min[0] = Math.min(this.min[0], x);
+            this.min[1] = Math.min(this.min[1], y);
+            this.min[2] = Math.min(this.min[2], z);
+            this.max[0] = Math.max(this.max[0], x);
+            this.max[1] = Math.max(this.max[1], y);
+            this.max[2] = Math.max(this.max[2], z);
+        }
+
+        /**
+         * Getter.
+         * @return the size of the file in bytes
+         */
+        public long getFileSize() {
+            return this.fileSize;
+        }
+
+        /**
+         * Returns the maximum of the coordinates of the points read.
+         * @return an array containing the maximum of x, y and z, or negative
+         *         infinities if no point has been read
+         */
+        public double[] getMax() {
+            return this.max.clone();
+        }
+
+        /**
+         * Returns the minimum of the coordinates of the points read.
+         * @return an array containing the minimum of x, y and z, or positive
+         *         infinities if no point has been read
+         */
+        public double[] getMin() {
+            return this.min.clone();
+        }
+
+        /**
+         * Getter.
+         * @return the number of triangles of the file : estimated if the
+         *         file is an ASCII file which has been sampled
+         */
+        public long getTrianglesNumber() {
+            return this.trianglesNumber;
+        }
+
+        /**
+         * Getter.
+         * @return true if the file is an ASCII file
+         */
+        public boolean isASCII() {
+            return this.ascii;
+        }
+
+        /**
+         * Checks if only some parts of the file have been read. In this case,
+         * the bounding box can be smaller than the one of the mesh.
+         * @return true if the file has been sampled
+         */
+        public boolean isSampled() {
+            return this.sampled;
         }
-        return mapP;
     }
 
     /**
@@ -465,7 +1594,7 @@ public class ParserSTL {
      * Implements an exception when a point has one coordinate too high.
      * @author Daniel Lefevre
      */
-    private static final class OutOfBoundsPointException extends
+    static final class OutOfBoundsPointException extends
             ParserSTL.BadMeshException {
 
         /**
@@ -475,7 +1604,7 @@ public class ParserSTL {
         /**
          * Bound limit attribute.
          */
-        private static final double BOUND_LIMIT = 1e5;
+        static final double BOUND_LIMIT = 1e5;
 
         /**
          * Private constructor.
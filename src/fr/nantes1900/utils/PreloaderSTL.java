@@ -0,0 +1,279 @@
+package fr.nantes1900.utils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.nantes1900.models.basis.Mesh;
+
+/**
+ * Implements a preloader of STL files : it parses several files concurrently
+ * in the background, and keeps the meshes parsed until they are taken. The
+ * memory used by the meshes kept is limited by a budget : the files whose mesh
+ * doesn't fit in the budget are not parsed in the background, since parsing
+ * them, even only to write their cache file, would use this memory. They are
+ * parsed when they are taken.
+ * @author Daniel Lefevre
+ */
+public final class PreloaderSTL {
+
+    /**
+     * Estimated number of bytes used by one triangle of a parsed mesh : the
+     * triangle, its normal, its share of the points and of the edges, and its
+     * entry in the mesh.
+     */
+    public static final long TRIANGLE_MEMORY = 400;
+
+    /**
+     * The maximum number of bytes used by the meshes kept.
+     */
+    private final long memoryBudget;
+
+    /**
+     * The executor parsing the files.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The tasks parsing the files, indexed by the names of the files, until
+     * their mesh is taken.
+     */
+    private final Map<String, LoadingTask> tasks = new HashMap<>();
+
+    /**
+     * The memory reserved for the meshes kept, indexed by the names of the
+     * files.
+     */
+    private final Map<String, Long> reservations = new HashMap<>();
+
+    /**
+     * The sum of the memory reserved.
+     */
+    private long memoryReserved;
+
+    /**
+     * Constructor.
+     * @param memoryBudgetIn
+     *            the maximum number of bytes used by the meshes kept
+     * @param threadsNumber
+     *            the number of files parsed at the same time
+     */
+    public PreloaderSTL(final long memoryBudgetIn, final int threadsNumber) {
+        this.memoryBudget = memoryBudgetIn;
+        this.executor = Executors.newFixedThreadPool(Math.max(threadsNumber,
+                1));
+    }
+
+    /**
+     * Getter.
+     * @return the maximum number of bytes used by the meshes kept
+     */
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Getter.
+     * @return the number of bytes reserved by the meshes kept or being parsed
+     */
+    public synchronized long getMemoryReserved() {
+        return this.memoryReserved;
+    }
+
+    /**
+     * Starts the parsing of files in the background. The files already loaded
+     * and not taken yet are not parsed again.
+     * @param fileNames
+     *            the names of the files to load
+     */
+    public synchronized void load(final List<String> fileNames) {
+        for (final String fileName : fileNames) {
+            if (!this.tasks.containsKey(fileName)) {
+                final LoadingTask task = new LoadingTask(fileName);
+                task.future = this.executor.submit(task);
+                this.tasks.put(fileName, task);
+            }
+        }
+    }
+
+    /**
+     * Parses a STL file, using its cache file if it is valid, and writing it
+     * otherwise.
+     * @param fileName
+     *            the name of the file
+     * @param threadsNumber
+     *            the number of threads decoding the binary file
+     * @return the mesh parsed
+     * @throws IOException
+     *             if the file is badly formed, not found or unreadable
+     */
+    private static Mesh parse(final String fileName, final int threadsNumber)
+            throws IOException {
+        final ParserSTL parser = new ParserSTL(fileName,
+                ParserSTL.MAPPED_MODE);
+        parser.setThreadsNumber(threadsNumber);
+        parser.setCacheUsed(true);
+        return parser.read();
+    }
+
+    /**
+     * Releases the memory reserved for the mesh of a file.
+     * @param fileName
+     *            the name of the file
+     */
+    private synchronized void release(final String fileName) {
+        final Long reserved = this.reservations.remove(fileName);
+        if (reserved != null) {
+            this.memoryReserved = this.memoryReserved - reserved.longValue();
+        }
+    }
+
+    /**
+     * Reserves memory for the mesh of a file, if it fits in the budget.
+     * @param fileName
+     *            the name of the file
+     * @param memory
+     *            the number of bytes to reserve
+     * @return true if the memory is reserved, false if it doesn't fit in the
+     *         budget
+     */
+    private synchronized boolean reserve(final String fileName,
+            final long memory) {
+        if (this.memoryReserved + memory > this.memoryBudget) {
+            return false;
+        }
+        this.memoryReserved = this.memoryReserved + memory;
+        this.reservations.put(fileName, Long.valueOf(memory));
+        return true;
+    }
+
+    /**
+     * Stops the parsing of the files, and forgets the meshes kept. The
+     * preloader cannot be used anymore.
+     */
+    public synchronized void shutdown() {
+        this.executor.shutdownNow();
+        this.tasks.clear();
+        this.reservations.clear();
+        this.memoryReserved = 0;
+    }
+
+    /**
+     * Returns the mesh of a file, and forgets it : the mesh can be modified by
+     * the caller. If the file is being parsed, waits for the end of the
+     * parsing. If it has not been loaded, or if its mesh has not been kept, it
+     * is parsed now, through its cache file if it is ready.
+     * @param fileName
+     *            the name of the file
+     * @return the mesh of the file
+     * @throws IOException
+     *             if the file is badly formed, not found or unreadable
+     */
+    public Mesh take(final String fileName) throws IOException {
+        LoadingTask task;
+        synchronized (this) {
+            task = this.tasks.remove(fileName);
+
+            // A task not started yet is abandoned : the file is parsed now
+            // with all the processors.
+            if (task != null && !task.started) {
+                task.abandoned = true;
+                task = null;
+            }
+        }
+
+        if (task != null) {
+            try {
+                final Mesh mesh = task.future.get();
+                if (mesh != null) {
+                    return mesh;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                this.release(fileName);
+            }
+        }
+
+        return PreloaderSTL.parse(fileName, Runtime.getRuntime()
+                .availableProcessors());
+    }
+
+    /**
+     * Implements the task loading one file. The size of the mesh is estimated
+     * with a probe of the file : if it fits in the budget, the mesh is parsed
+     * and kept. Otherwise, the file is left to the taking.
+     * @author Daniel Lefevre
+     */
+    private final class LoadingTask implements Callable<Mesh> {
+
+        /**
+         * The name of the file to load.
+         */
+        private final String fileName;
+
+        /**
+         * The result of the task.
+         */
+        private Future<Mesh> future;
+
+        /**
+         * True if the task has started to load the file.
+         */
+        private boolean started;
+
+        /**
+         * True if the mesh has been taken before the start of the task : the
+         * task does nothing.
+         */
+        private boolean abandoned;
+
+        /**
+         * Constructor.
+         * @param fileNameIn
+         *            the name of the file to load
+         */
+        public LoadingTask(final String fileNameIn) {
+            this.fileName = fileNameIn;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.Callable#call()
+         */
+        @Override
+        public Mesh call() throws IOException {
+            synchronized (PreloaderSTL.this) {
+                if (this.abandoned) {
+                    return null;
+                }
+                this.started = true;
+            }
+
+            final long memory = new ParserSTL(this.fileName).probe()
+                    .getTrianglesNumber() * PreloaderSTL.TRIANGLE_MEMORY;
+
+            if (PreloaderSTL.this.reserve(this.fileName, memory)) {
+                try {
+                    // The files are parsed concurrently : one thread per file.
+                    return PreloaderSTL.parse(this.fileName, 1);
+                } catch (final IOException e) {
+                    PreloaderSTL.this.release(this.fileName);
+                    throw e;
+                }
+            }
+            return null;
+        }
+    }
+}
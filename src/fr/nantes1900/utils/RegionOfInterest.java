@@ -0,0 +1,103 @@
+package fr.nantes1900.utils;
+
+import java.util.List;
+
+import fr.nantes1900.models.basis.Point;
+
+/**
+ * Implements a region of interest used to read only a part of a STL file : an
+ * axis-aligned box, or a polygon in the plane (x, y) containing the points
+ * whatever their z coordinate. The parser keeps a triangle if its centroid is
+ * in the region : the triangles of a file are split between adjacent regions
+ * without being read twice.
+ * @author Daniel Lefevre
+ */
+public final class RegionOfInterest {
+
+    /**
+     * The minimum of the coordinates of the box, or null for a polygon.
+     */
+    private final double[] min;
+
+    /**
+     * The maximum of the coordinates of the box, or null for a polygon.
+     */
+    private final double[] max;
+
+    /**
+     * The x coordinates of the vertices of the polygon, or null for a box.
+     */
+    private final double[] polygonX;
+
+    /**
+     * The y coordinates of the vertices of the polygon, or null for a box.
+     */
+    private final double[] polygonY;
+
+    /**
+     * Constructor of a polygonal region. The z coordinate of the points is
+     * ignored.
+     * @param polygon
+     *            the vertices of the polygon, in order
+     */
+    public RegionOfInterest(final List<Point> polygon) {
+        this.min = null;
+        this.max = null;
+        this.polygonX = new double[polygon.size()];
+        this.polygonY = new double[polygon.size()];
+        for (int i = 0; i < polygon.size(); i = i + 1) {
+            this.polygonX[i] = polygon.get(i).getX();
+            this.polygonY[i] = polygon.get(i).getY();
+        }
+    }
+
+    /**
+     * Constructor of a box region.
+     * @param pMin
+     *            the point of the box having the minimum coordinates
+     * @param pMax
+     *            the point of the box having the maximum coordinates
+     */
+    public RegionOfInterest(final Point pMin, final Point pMax) {
+        this.min = new double[] { pMin.getX(), pMin.getY(), pMin.getZ(),
+        };
+        this.max = new double[] { pMax.getX(), pMax.getY(), pMax.getZ(),
+        };
+        this.polygonX = null;
+        this.polygonY = null;
+    }
+
+    /**
+     * Checks if a point is in the region.
+     * @param x
+     *            the x coordinate of the point
+     * @param y
+     *            the y coordinate of the point
+     * @param z
+     *            the z coordinate of the point
+     * @return true if the point is in the region, false otherwise
+     */
+    public boolean contains(final double x, final double y, final double z) {
+        if (this.polygonX == null) {
+            return x >= this.min[0] && x <= this.max[0] && y >= this.min[1]
+                    && y <= this.max[1] && z >= this.min[2]
+                    && z <= this.max[2];
+        }
+
+        // Counts the edges of the polygon crossed by a ray going from the
+        // point in the direction of the x axis.
+        boolean inside = false;
+        int j = this.polygonX.length - 1;
+        for (int i = 0; i < this.polygonX.length; i = i + 1) {
+            if ((this.polygonY[i] > y) != (this.polygonY[j] > y)
+                    && x < (this.polygonX[j] - this.polygonX[i])
+                            * (y - this.polygonY[i])
+                            / (this.polygonY[j] - this.polygonY[i])
+                            + this.polygonX[i]) {
+                inside = !inside;
+            }
+            j = i;
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,218 @@
+package fr.nantes1900.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Implements a reader of STL files as a stream of binary records : each
+ * triangle of an ASCII, binary or compressed file is given as a record of the
+ * binary format, without any object created. The subclasses treat the
+ * records one by one : the memory used doesn't depend on the size of the
+ * file.
+ * @author Daniel Lefevre
+ */
+abstract class StreamerSTL {
+
+    /**
+     * Size of the header of a binary STL file, in bytes.
+     */
+    static final int HEADER_SIZE = 80;
+
+    /**
+     * Size of one triangle in a binary STL file, in bytes.
+     */
+    static final int TRIANGLE_STL_SIZE = 50;
+
+    /**
+     * Number of vertices of a triangle.
+     */
+    static final int NB_VERTICES = 3;
+
+    /**
+     * Number of coordinates of a point.
+     */
+    static final int NB_COORDINATES = 3;
+
+    /**
+     * Number of triangles read at once in a binary file.
+     */
+    private static final int BLOCK_TRIANGLES = 1 << 12;
+
+    /**
+     * The record of the triangle being treated : the normal, the three points
+     * and the two bytes of attributes, in little-endian.
+     */
+    private final ByteBuffer record = ByteBuffer.allocate(
+            StreamerSTL.TRIANGLE_STL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Opens a file as a channel, decompressing it if it is compressed with
+     * gzip.
+     * @param file
+     *            the file to read
+     * @return the channel reading the content of the file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static ReadableByteChannel openChannel(final RandomAccessFile file)
+            throws IOException {
+        final FileChannel channel = file.getChannel();
+        final ByteBuffer magic = ByteBuffer.allocate(2);
+        while (magic.hasRemaining() && channel.read(magic) >= 0) {
+            // Reads the first bytes to detect the compression.
+        }
+        magic.flip();
+        channel.position(0);
+
+        if (ParserSTL.isGzip(magic)) {
+            final InputStream stream = new GZIPInputStream(
+                    Channels.newInputStream(channel),
+                    TokenizerSTL.BUFFER_SIZE);
+            return Channels.newChannel(stream);
+        }
+        return channel;
+    }
+
+    /**
+     * Reads an ASCII file, and gives each triangle as a record.
+     * @param tokenizer
+     *            the tokenizer of the file
+     * @throws IOException
+     *             if there is an error during the reading or the treatment
+     */
+    private void readSTLA(final TokenizerSTL tokenizer) throws IOException {
+        final int floatSize = Float.SIZE / Byte.SIZE;
+        int pointsNumber = 0;
+        this.record.clear();
+
+        while (tokenizer.nextToken()) {
+
+            // Only the first word of each line is considered, as in the
+            // parser.
+            if (!tokenizer.isFirstOfLine()) {
+                continue;
+            }
+
+            if (tokenizer.tokenEquals(ParserSTL.FACET)) {
+                // The normal is written first in the record.
+                if (tokenizer.nextToken()
+                        && tokenizer.tokenEquals(ParserSTL.NORMAL)) {
+                    for (int i = 0; i < StreamerSTL.NB_COORDINATES; i = i + 1) {
+                        this.record.putFloat(i * floatSize,
+                                (float) tokenizer.nextDouble());
+                    }
+                }
+                pointsNumber = 0;
+            } else if (tokenizer.tokenEquals(ParserSTL.VERTEX)) {
+                // The three points are written after the normal.
+                for (int i = 0; i < StreamerSTL.NB_COORDINATES; i = i + 1) {
+                    final float coordinate = (float) tokenizer.nextDouble();
+                    if (pointsNumber < StreamerSTL.NB_VERTICES) {
+                        this.record.putFloat(((pointsNumber + 1)
+                                * StreamerSTL.NB_COORDINATES + i)
+                                * floatSize, coordinate);
+                    }
+                }
+                pointsNumber = pointsNumber + 1;
+            } else if (tokenizer.tokenEquals(ParserSTL.ENDFACET)) {
+                if (pointsNumber >= StreamerSTL.NB_VERTICES) {
+                    this.treatRecord(this.record);
+                }
+                pointsNumber = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads a binary file, and gives each triangle as a record. The records
+     * are copied without being decoded.
+     * @param channel
+     *            the channel reading the content of the file
+     * @param buffer
+     *            the buffer containing the first bytes of the file
+     * @throws IOException
+     *             if there is an error during the reading or the treatment
+     */
+    private void readSTLB(final ReadableByteChannel channel,
+            final ByteBuffer buffer) throws IOException {
+        final int intSize = Integer.SIZE / Byte.SIZE;
+        if (buffer.remaining() < StreamerSTL.HEADER_SIZE + intSize) {
+            return;
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long remaining = buffer.getInt(StreamerSTL.HEADER_SIZE) & 0xFFFFFFFFL;
+        buffer.position(StreamerSTL.HEADER_SIZE + intSize);
+
+        // Stops at the end of the stream, even if the size written in the
+        // header is bigger.
+        boolean end = false;
+        while (remaining > 0) {
+            if (buffer.remaining() < StreamerSTL.TRIANGLE_STL_SIZE) {
+                if (end) {
+                    break;
+                }
+                buffer.compact();
+                end = channel.read(buffer) < 0;
+                buffer.flip();
+                continue;
+            }
+
+            this.record.clear();
+            final int limit = buffer.limit();
+            buffer.limit(buffer.position() + StreamerSTL.TRIANGLE_STL_SIZE);
+            this.record.put(buffer);
+            buffer.limit(limit);
+            this.treatRecord(this.record);
+            remaining = remaining - 1;
+        }
+    }
+
+    /**
+     * Reads a file once, and gives each of its triangles to treatRecord. The
+     * format of the file and its compression are detected.
+     * @param fileName
+     *            the name of the file to read
+     * @throws IOException
+     *             if there is an error during the reading or the treatment
+     */
+    protected final void stream(final String fileName) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try {
+            final ReadableByteChannel channel = StreamerSTL.openChannel(file);
+            final ByteBuffer buffer = ByteBuffer
+                    .allocate(StreamerSTL.BLOCK_TRIANGLES
+                            * StreamerSTL.TRIANGLE_STL_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Reads the first bytes to detect the format.
+            }
+            buffer.flip();
+
+            if (TokenizerSTL.isASCII(buffer)) {
+                this.readSTLA(new TokenizerSTL(channel, buffer));
+            } else {
+                this.readSTLB(channel, buffer);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Treats the record of one triangle. The record is reused for the next
+     * triangle : it must be copied to be kept.
+     * @param triangle
+     *            the record of the triangle, in little-endian, whose content
+     *            is read with absolute positions
+     * @throws IOException
+     *             if there is an error during the treatment
+     */
+    protected abstract void treatRecord(final ByteBuffer triangle)
+            throws IOException;
+}
@@ -0,0 +1,374 @@
+package fr.nantes1900.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.nantes1900.models.basis.Mesh;
+
+/**
+ * Implements a tiler of STL files too big to be parsed in memory. The file is
+ * read once, as a stream, and its triangles are written in a grid of tiles :
+ * binary STL files covering squares of the plane x/y. No object is created for
+ * the triangles : they are copied as binary records in a small buffer per tile,
+ * written in the tile file when it is full. Only the tiles used most recently
+ * keep a buffer : the memory used is bounded, whatever the number of tiles.
+ * Each triangle is written in the tile containing its centroid, and in the
+ * neighbour tiles whose halo margin contains its centroid. Each tile can then
+ * be parsed as a normal mesh.
+ * @author Daniel Lefevre
+ */
+public class TilerSTL extends StreamerSTL {
+
+    /**
+     * Number of triangles kept in the buffer of a tile before being written
+     * in the tile file.
+     */
+    private static final int TILE_TRIANGLES = 1 << 10;
+
+    /**
+     * Maximum number of tiles having a buffer at the same time. When a tile
+     * needs a buffer, the buffer of the tile used least recently is written
+     * in its file and released.
+     */
+    private static final int MAX_BUFFERS = 1 << 6;
+
+    /**
+     * Extension of the tile files.
+     */
+    private static final String EXTENSION = ".stl";
+
+    /**
+     * The name of the file to tile.
+     */
+    private final String fileName;
+
+    /**
+     * The directory where the tile files are written.
+     */
+    private final String directory;
+
+    /**
+     * The size of the side of a tile.
+     */
+    private final double tileSize;
+
+    /**
+     * The margin added around each tile.
+     */
+    private final double halo;
+
+    /**
+     * The tiles written, indexed by their column and their row.
+     */
+    private final Map<Long, Tile> tiles = new HashMap<>();
+
+    /**
+     * The tiles having a buffer, from the one used least recently to the one
+     * used most recently.
+     */
+    private final Map<Long, Tile> buffered = new LinkedHashMap<>(
+            TilerSTL.MAX_BUFFERS, 0.75f, true);
+
+    /**
+     * Constructor.
+     * @param fileNameIn
+     *            the name of the file to tile
+     * @param directoryIn
+     *            the directory where the tile files are written
+     * @param tileSizeIn
+     *            the size of the side of a tile
+     * @param haloIn
+     *            the margin added around each tile : the triangles whose
+     *            centroid is at this distance of a tile are also written in
+     *            this tile
+     * @throws InvalidParameterException
+     *             if the size of a tile is not strictly positive, or if the
+     *             halo is negative or infinite
+     */
+    public TilerSTL(final String fileNameIn, final String directoryIn,
+            final double tileSizeIn, final double haloIn) {
+        // Written to reject NaN as well.
+        if (!(tileSizeIn > 0) || Double.isInfinite(tileSizeIn)
+                || !(haloIn >= 0) || Double.isInfinite(haloIn)) {
+            throw new InvalidParameterException();
+        }
+        this.fileName = fileNameIn;
+        this.directory = directoryIn;
+        this.tileSize = tileSizeIn;
+        this.halo = haloIn;
+    }
+
+    /**
+     * Reads a tile as a mesh.
+     * @param column
+     *            the column of the tile
+     * @param row
+     *            the row of the tile
+     * @return the mesh of the tile, or null if the tile is empty
+     * @throws IOException
+     *             if the tile file cannot be read
+     */
+    public final Mesh readTile(final int column, final int row)
+            throws IOException {
+        final File file = new File(this.returnTileName(column, row));
+        if (!file.isFile()) {
+            return null;
+        }
+        return new ParserSTL(file.getPath()).read();
+    }
+
+    /**
+     * Returns the index of the column or of the row containing a coordinate.
+     * @param coordinate
+     *            the x or y coordinate
+     * @return the index of the column or of the row
+     */
+    private int returnIndex(final double coordinate) {
+        return (int) Math.floor(coordinate / this.tileSize);
+    }
+
+    /**
+     * Returns a tile having a buffer, creating it if it doesn't exist yet. If
+     * the maximum number of buffers is reached, the buffer of the tile used
+     * least recently is written and released.
+     * @param column
+     *            the column of the tile
+     * @param row
+     *            the row of the tile
+     * @return the tile
+     * @throws IOException
+     *             if the released buffer cannot be written
+     */
+    private Tile returnTile(final int column, final int row)
+            throws IOException {
+        final Long key = Long.valueOf(((long) column << Integer.SIZE)
+                | (row & 0xFFFFFFFFL));
+        Tile tile = this.buffered.get(key);
+        if (tile != null) {
+            return tile;
+        }
+
+        tile = this.tiles.get(key);
+        if (tile == null) {
+            tile = new Tile(this.returnTileName(column, row));
+            this.tiles.put(key, tile);
+        }
+        if (this.buffered.size() >= TilerSTL.MAX_BUFFERS) {
+            final Iterator<Tile> eldest = this.buffered.values().iterator();
+            eldest.next().release();
+            eldest.remove();
+        }
+        this.buffered.put(key, tile);
+        return tile;
+    }
+
+    /**
+     * Returns the name of the file of a tile : the name of the file to tile,
+     * without its extension, followed by the column and the row of the tile.
+     * @param column
+     *            the column of the tile
+     * @param row
+     *            the row of the tile
+     * @return the name of the tile file
+     */
+    public final String returnTileName(final int column, final int row) {
+        String name = new File(this.fileName).getName();
+        final int dotIndex = name.indexOf('.');
+        if (dotIndex > 0) {
+            name = name.substring(0, dotIndex);
+        }
+        return new File(this.directory, name + "_" + column + "_" + row
+                + TilerSTL.EXTENSION).getPath();
+    }
+
+    /**
+     * Reads the file once, and writes its triangles in the tile files. The
+     * memory used depends neither on the size of the file nor on the number
+     * of tiles. The tile files already existing are replaced.
+     * @return the names of the tile files written, sorted
+     * @throws IOException
+     *             if there is an error during the reading or the writing
+     */
+    public final List<String> tile() throws IOException {
+        this.tiles.clear();
+        this.buffered.clear();
+        new File(this.directory).mkdirs();
+
+        this.stream(this.fileName);
+
+        final List<String> names = new ArrayList<>();
+        for (final Tile tile : this.tiles.values()) {
+            tile.close();
+            names.add(tile.name);
+        }
+        this.tiles.clear();
+        this.buffered.clear();
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Adds the triangle of a record to the tiles whose halo contains its
+     * centroid.
+     * @param triangle
+     *            the record of the triangle
+     * @throws IOException
+     *             if a tile file cannot be written
+     */
+    @Override
+    protected final void treatRecord(final ByteBuffer triangle)
+            throws IOException {
+        double x = 0;
+        double y = 0;
+        final int start = StreamerSTL.NB_COORDINATES * (Float.SIZE / Byte.SIZE);
+        final int pointSize = StreamerSTL.NB_COORDINATES
+                * (Float.SIZE / Byte.SIZE);
+        for (int k = 0; k < StreamerSTL.NB_VERTICES; k = k + 1) {
+            x = x + triangle.getFloat(start + k * pointSize);
+            y = y + triangle.getFloat(start + k * pointSize
+                    + Float.SIZE / Byte.SIZE);
+        }
+        x = x / StreamerSTL.NB_VERTICES;
+        y = y / StreamerSTL.NB_VERTICES;
+
+        // The triangles with unbounded coordinates are not tiled.
+        if (Double.isNaN(x) || Double.isInfinite(x) || Double.isNaN(y)
+                || Double.isInfinite(y)) {
+            return;
+        }
+
+        final int firstColumn = this.returnIndex(x - this.halo);
+        final int lastColumn = this.returnIndex(x + this.halo);
+        final int firstRow = this.returnIndex(y - this.halo);
+        final int lastRow = this.returnIndex(y + this.halo);
+
+        for (int i = firstColumn; i <= lastColumn; i = i + 1) {
+            for (int j = firstRow; j <= lastRow; j = j + 1) {
+                this.returnTile(i, j).add(triangle);
+            }
+        }
+    }
+
+    /**
+     * Implements a tile being written : a binary STL file, and the buffer of
+     * the triangles not yet written in it, allocated only while the tile is
+     * among the tiles used most recently.
+     * @author Daniel Lefevre
+     */
+    private static final class Tile {
+
+        /**
+         * The name of the tile file.
+         */
+        private final String name;
+
+        /**
+         * The records of the triangles not yet written in the file, or null
+         * if the buffer has been released.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * The number of triangles of the tile.
+         */
+        private int trianglesNumber;
+
+        /**
+         * True if the file has been created, with its header.
+         */
+        private boolean created;
+
+        /**
+         * Constructor.
+         * @param nameIn
+         *            the name of the tile file
+         */
+        public Tile(final String nameIn) {
+            this.name = nameIn;
+        }
+
+        /**
+         * Adds a triangle to the tile.
+         * @param triangle
+         *            the buffer containing the record of the triangle
+         * @throws IOException
+         *             if the tile file cannot be written
+         */
+        public void add(final ByteBuffer triangle) throws IOException {
+            if (this.buffer == null) {
+                this.buffer = ByteBuffer.allocate(TilerSTL.TILE_TRIANGLES
+                        * StreamerSTL.TRIANGLE_STL_SIZE);
+            } else if (!this.buffer.hasRemaining()) {
+                this.flush();
+            }
+            this.buffer.put(triangle.array(), 0, StreamerSTL.TRIANGLE_STL_SIZE);
+            this.trianglesNumber = this.trianglesNumber + 1;
+        }
+
+        /**
+         * Writes the last triangles, and the number of triangles in the
+         * header of the tile file.
+         * @throws IOException
+         *             if the tile file cannot be written
+         */
+        public void close() throws IOException {
+            this.release();
+            final RandomAccessFile file = new RandomAccessFile(this.name, "rw");
+            try {
+                file.seek(StreamerSTL.HEADER_SIZE);
+                file.writeInt(Integer.reverseBytes(this.trianglesNumber));
+            } finally {
+                file.close();
+            }
+        }
+
+        /**
+         * Writes the triangles of the buffer in the tile file, and releases
+         * the buffer.
+         * @throws IOException
+         *             if the tile file cannot be written
+         */
+        public void release() throws IOException {
+            if (this.buffer != null) {
+                this.flush();
+                this.buffer = null;
+            }
+        }
+
+        /**
+         * Writes the triangles of the buffer at the end of the tile file. The
+         * file is opened only during the writing : the number of tiles is not
+         * limited by the number of files opened at the same time.
+         * @throws IOException
+         *             if the tile file cannot be written
+         */
+        private void flush() throws IOException {
+            final FileOutputStream stream = new FileOutputStream(this.name,
+                    this.created);
+            try {
+                if (!this.created) {
+                    // The header and the number of triangles, written at the
+                    // end.
+                    stream.write(new byte[StreamerSTL.HEADER_SIZE
+                            + Integer.SIZE / Byte.SIZE]);
+                    this.created = true;
+                }
+                stream.write(this.buffer.array(), 0, this.buffer.position());
+            } finally {
+                stream.close();
+            }
+            this.buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package fr.nantes1900.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Implements a tokenizer of ASCII STL files. It reads the bytes of the file
+ * directly in a reusable buffer, and splits them in tokens separated by
+ * whitespaces, without creating any String. The numbers are parsed from the
+ * bytes of the token.
+ * @author Daniel Lefevre
+ */
+final class TokenizerSTL {
+
+    /**
+     * Size of the buffer used to read the file.
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Maximum number of significant digits kept in the mantissa : 10^18 fits
+     * in a long.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * Maximum absolute value of the exponent parsed without using
+     * Double.parseDouble.
+     */
+    private static final int MAX_EXPONENT = 1000;
+
+    /**
+     * Biggest mantissa exactly represented by a double : 2^53.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten exactly represented by a double.
+     */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+            1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+            1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /**
+     * The channel to read in.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * The buffer containing the bytes read and not yet tokenized.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The array backing the buffer.
+     */
+    private final byte[] bytes;
+
+    /**
+     * The bytes of the current token.
+     */
+    private byte[] token = new byte[Byte.SIZE * Byte.SIZE];
+
+    /**
+     * The length of the current token.
+     */
+    private int tokenLength;
+
+    /**
+     * True if the current token is the first of its line.
+     */
+    private boolean firstOfLine;
+
+    /**
+     * True if a line break has been read since the last token.
+     */
+    private boolean lineBreak = true;
+
+    /**
+     * Constructor.
+     * @param channelIn
+     *            the channel to read in
+     * @param bufferIn
+     *            a heap buffer, ready to be read, containing the first bytes
+     *            of the channel already read (it can be empty)
+     */
+    public TokenizerSTL(final ReadableByteChannel channelIn,
+            final ByteBuffer bufferIn) {
+        this.channel = channelIn;
+        this.buffer = bufferIn;
+        this.bytes = bufferIn.array();
+    }
+
+    /**
+     * Reads more bytes from the channel when the buffer is empty.
+     * @return false if the end of the channel is reached, true otherwise
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    private boolean fill() throws IOException {
+        if (this.buffer.hasRemaining()) {
+            return true;
+        }
+        this.buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = this.channel.read(this.buffer);
+        }
+        this.buffer.flip();
+        return read > 0;
+    }
+
+    /**
+     * Checks if the buffer begins with the word solid, which means it is an
+     * ASCII STL file. The position of the buffer is not modified.
+     * @param buffer
+     *            the buffer containing the first bytes of the file
+     * @return true if the first word is solid, false otherwise
+     */
+    public static boolean isASCII(final ByteBuffer buffer) {
+        final byte[] solid = "solid".getBytes(StandardCharsets.US_ASCII);
+
+        int i = buffer.position();
+        while (i < buffer.limit() && TokenizerSTL.isWhitespace(buffer.get(i))) {
+            i = i + 1;
+        }
+
+        for (final byte b : solid) {
+            if (i >= buffer.limit() || buffer.get(i) != b) {
+                return false;
+            }
+            i = i + 1;
+        }
+
+        return i == buffer.limit()
+                || TokenizerSTL.isWhitespace(buffer.get(i));
+    }
+
+    /**
+     * Checks if the current token is the first of its line.
+     * @return true if it is the first token of the line
+     */
+    public boolean isFirstOfLine() {
+        return this.firstOfLine;
+    }
+
+    /**
+     * Checks if the byte is a whitespace.
+     * @param b
+     *            the byte to check
+     * @return true if it is a space, a tabulation, or a line break
+     */
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Reads the next token and parses it as a double.
+     * @return the double value of the next token
+     * @throws IOException
+     *             if there is an error during the reading or if there is no
+     *             more token
+     */
+    public double nextDouble() throws IOException {
+        if (!this.nextToken()) {
+            throw new IOException("Unexpected end of the STL file");
+        }
+        return this.tokenAsDouble();
+    }
+
+    /**
+     * Reads the next token.
+     * @return false if the end of the channel is reached, true otherwise
+     * @throws IOException
+     *             if there is an error during the reading
+     */
+    public boolean nextToken() throws IOException {
+        this.tokenLength = 0;
+
+        int position = this.buffer.position();
+        int limit = this.buffer.limit();
+        boolean inToken = false;
+
+        while (true) {
+            if (position == limit) {
+                // The buffer is empty : reads the next bytes.
+                this.buffer.position(position);
+                final boolean filled = this.fill();
+                position = this.buffer.position();
+                limit = this.buffer.limit();
+                if (!filled) {
+                    break;
+                }
+            }
+
+            final byte b = this.bytes[position];
+
+            if (TokenizerSTL.isWhitespace(b)) {
+                if (inToken) {
+                    break;
+                }
+                // Skips the whitespaces, remembering the line breaks.
+                if (b == '\n' || b == '\r') {
+                    this.lineBreak = true;
+                }
+            } else {
+                // Copies the bytes of the token.
+                inToken = true;
+                if (this.tokenLength == this.token.length) {
+                    final byte[] bigger = new byte[this.token.length * 2];
+                    System.arraycopy(this.token, 0, bigger, 0,
+                            this.tokenLength);
+                    this.token = bigger;
+                }
+                this.token[this.tokenLength] = b;
+                this.tokenLength = this.tokenLength + 1;
+            }
+            position = position + 1;
+        }
+        this.buffer.position(position);
+
+        if (!inToken) {
+            return false;
+        }
+
+        this.firstOfLine = this.lineBreak;
+        this.lineBreak = false;
+        return true;
+    }
+
+    /**
+     * Parses the exponent of a number, from the index to the end of the token.
+     * @param index
+     *            the index of the first character of the exponent
+     * @return the exponent, or Integer.MIN_VALUE if it cannot be parsed
+     */
+    private int parseExponent(final int index) {
+        int i = index;
+        boolean negative = false;
+
+        if (i < this.tokenLength
+                && (this.token[i] == '-' || this.token[i] == '+')) {
+            negative = this.token[i] == '-';
+            i = i + 1;
+        }
+        if (i == this.tokenLength) {
+            return Integer.MIN_VALUE;
+        }
+
+        int exponent = 0;
+        for (; i < this.tokenLength; i = i + 1) {
+            final byte b = this.token[i];
+            if (b < '0' || b > '9' || exponent > TokenizerSTL.MAX_EXPONENT) {
+                return Integer.MIN_VALUE;
+            }
+            exponent = exponent * 10 + (b - '0');
+        }
+
+        if (negative) {
+            return -exponent;
+        }
+        return exponent;
+    }
+
+    /**
+     * Parses the current token with Double.parseDouble. Used for the numbers
+     * which cannot be computed exactly.
+     * @return the double value of the token
+     */
+    private double parseToken() {
+        return Double.parseDouble(new String(this.token, 0, this.tokenLength,
+                StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses the current token as a double. Uses an exact computation when
+     * the mantissa and the exponent are small enough, which is the case of the
+     * numbers written in the STL files, and calls Double.parseDouble
+     * otherwise. The result is always the same as Double.parseDouble.
+     * @return the double value of the token
+     */
+    public double tokenAsDouble() {
+        int i = 0;
+        boolean negative = false;
+
+        if (i < this.tokenLength
+                && (this.token[i] == '-' || this.token[i] == '+')) {
+            negative = this.token[i] == '-';
+            i = i + 1;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean digitSeen = false;
+        boolean dotSeen = false;
+
+        for (; i < this.tokenLength; i = i + 1) {
+            final byte b = this.token[i];
+
+            if (b >= '0' && b <= '9') {
+                digitSeen = true;
+                if (mantissa == 0 && b == '0') {
+                    // Leading zeros are not significant.
+                    if (dotSeen) {
+                        exponent = exponent - 1;
+                    }
+                } else if (digits < TokenizerSTL.MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits = digits + 1;
+                    if (dotSeen) {
+                        exponent = exponent - 1;
+                    }
+                } else {
+                    return this.parseToken();
+                }
+            } else if (b == '.' && !dotSeen) {
+                dotSeen = true;
+            } else if ((b == 'e' || b == 'E') && digitSeen) {
+                final int exp = this.parseExponent(i + 1);
+                if (exp == Integer.MIN_VALUE) {
+                    return this.parseToken();
+                }
+                exponent = exponent + exp;
+                break;
+            } else {
+                return this.parseToken();
+            }
+        }
+
+        if (!digitSeen) {
+            return this.parseToken();
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (mantissa < TokenizerSTL.MAX_EXACT_MANTISSA
+                && exponent >= 0
+                && exponent < TokenizerSTL.POWERS_OF_TEN.length) {
+            value = mantissa * TokenizerSTL.POWERS_OF_TEN[exponent];
+        } else if (mantissa < TokenizerSTL.MAX_EXACT_MANTISSA && exponent < 0
+                && -exponent < TokenizerSTL.POWERS_OF_TEN.length) {
+            value = mantissa / TokenizerSTL.POWERS_OF_TEN[-exponent];
+        } else {
+            return this.parseToken();
+        }
+
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * Checks if the current token is equal to the word.
+     * @param word
+     *            the word as ASCII bytes
+     * @return true if they are equal, false otherwise
+     */
+    public boolean tokenEquals(final byte[] word) {
+        if (word.length != this.tokenLength) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i = i + 1) {
+            if (word[i] != this.token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
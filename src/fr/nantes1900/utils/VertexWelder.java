@@ -0,0 +1,276 @@
+package fr.nantes1900.utils;
+
+import java.util.Arrays;
+
+import fr.nantes1900.models.basis.Point;
+
+/**
+ * Implements a welder of vertices : it gives the same index and the same
+ * reference to the points which have the same values. Two points have the
+ * same values if their coordinates cast in float are equal, as in the method
+ * equals of Point. The bits of the coordinates are kept in an array of int,
+ * indexed by an open-addressing table : no object is created for the points
+ * already welded.
+ * @author Daniel Lefevre
+ */
+public final class VertexWelder {
+
+    /**
+     * Default number of vertices expected.
+     */
+    private static final int DEFAULT_SIZE = 1 << 10;
+
+    /**
+     * Number of coordinates of a point.
+     */
+    private static final int NB_COORDINATES = 3;
+
+    /**
+     * Constant used to mix the bits of the coordinates.
+     */
+    private static final int MIX = 0x9E3779B9;
+
+    /**
+     * The open-addressing table. Each slot contains the index of a vertex plus
+     * one, or zero if it is empty. The length is a power of two, and the table
+     * is at most half full.
+     */
+    private int[] table;
+
+    /**
+     * The bits of the coordinates of the vertices : three int per vertex.
+     */
+    private int[] keys;
+
+    /**
+     * The points welded, indexed by their index.
+     */
+    private Point[] points;
+
+    /**
+     * The number of vertices welded.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public VertexWelder() {
+        this(VertexWelder.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param expectedSize
+     *            the number of vertices expected : the arrays will not be
+     *            resized until this number is reached
+     */
+    public VertexWelder(final int expectedSize) {
+        final int capacity = Math.max(expectedSize, 1);
+        this.table = new int[Integer.highestOneBit(capacity) << 2];
+        this.keys = new int[capacity * VertexWelder.NB_COORDINATES];
+        this.points = new Point[capacity];
+    }
+
+    /**
+     * Removes all the vertices welded.
+     */
+    public void clear() {
+        Arrays.fill(this.table, 0);
+        Arrays.fill(this.points, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * Searches the index of a vertex.
+     * @param x
+     *            the bits of the x coordinate
+     * @param y
+     *            the bits of the y coordinate
+     * @param z
+     *            the bits of the z coordinate
+     * @return the slot of the table containing the vertex, or the empty slot
+     *         where it must be put
+     */
+    private int find(final int x, final int y, final int z) {
+        final int mask = this.table.length - 1;
+        int slot = VertexWelder.hash(x, y, z) & mask;
+
+        while (true) {
+            final int index = this.table[slot] - 1;
+            if (index < 0) {
+                return slot;
+            }
+            final int k = index * VertexWelder.NB_COORDINATES;
+            if (this.keys[k] == x && this.keys[k + 1] == y
+                    && this.keys[k + 2] == z) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Getter.
+     * @param index
+     *            the index of the vertex
+     * @return the point having this index
+     */
+    public Point getPoint(final int index) {
+        return this.points[index];
+    }
+
+    /**
+     * Welds a vertex given by its coordinates, without creating a point : the
+     * welder only gives the index of the vertex, and getPoint returns null
+     * for the vertices indexed this way.
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param z
+     *            the z coordinate
+     * @return the index of the vertex
+     */
+    public int index(final float x, final float y, final float z) {
+        return this.weld(x, y, z, null, false);
+    }
+
+    /**
+     * Mixes the bits of the three coordinates.
+     * @param x
+     *            the bits of the x coordinate
+     * @param y
+     *            the bits of the y coordinate
+     * @param z
+     *            the bits of the z coordinate
+     * @return the hash of the vertex
+     */
+    private static int hash(final int x, final int y, final int z) {
+        int h = x * VertexWelder.MIX;
+        h = (h ^ (h >>> 16) ^ y) * VertexWelder.MIX;
+        h = (h ^ (h >>> 16) ^ z) * VertexWelder.MIX;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Doubles the size of the table, and puts again all the vertices.
+     */
+    private void rehash() {
+        final int[] newTable = new int[this.table.length * 2];
+        final int mask = newTable.length - 1;
+
+        for (int i = 0; i < this.size; i = i + 1) {
+            final int k = i * VertexWelder.NB_COORDINATES;
+            int slot = VertexWelder.hash(this.keys[k], this.keys[k + 1],
+                    this.keys[k + 2]) & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = i + 1;
+        }
+
+        this.table = newTable;
+    }
+
+    /**
+     * Getter.
+     * @return the number of vertices welded
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Welds a vertex given by its coordinates. If no vertex has the same
+     * values, a new point is created.
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param z
+     *            the z coordinate
+     * @return the index of the vertex
+     */
+    public int weld(final float x, final float y, final float z) {
+        return this.weld(x, y, z, null, true);
+    }
+
+    /**
+     * Welds a vertex. If it has not been welded yet, it is kept with its
+     * coordinates, and receives the next index.
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param z
+     *            the z coordinate
+     * @param point
+     *            the point to keep if the vertex is new, or null to create a
+     *            new point
+     * @param pointCreated
+     *            false to keep no point if the point parameter is null
+     * @return the index of the vertex
+     */
+    private int weld(final float x, final float y, final float z,
+            final Point point, final boolean pointCreated) {
+        final int bx = Float.floatToIntBits(x);
+        final int by = Float.floatToIntBits(y);
+        final int bz = Float.floatToIntBits(z);
+
+        final int slot = this.find(bx, by, bz);
+        if (this.table[slot] != 0) {
+            return this.table[slot] - 1;
+        }
+
+        final int index = this.size;
+        if (index == this.points.length) {
+            final int capacity = index * 2;
+            this.points = Arrays.copyOf(this.points, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity
+                    * VertexWelder.NB_COORDINATES);
+        }
+
+        final int k = index * VertexWelder.NB_COORDINATES;
+        this.keys[k] = bx;
+        this.keys[k + 1] = by;
+        this.keys[k + 2] = bz;
+        if (point == null && pointCreated) {
+            this.points[index] = new Point(x, y, z);
+        } else {
+            this.points[index] = point;
+        }
+        this.table[slot] = index + 1;
+        this.size = index + 1;
+
+        // Keeps the table at most half full.
+        if (this.size * 2 > this.table.length) {
+            this.rehash();
+        }
+
+        return index;
+    }
+
+    /**
+     * Welds a point. If no point has the same values, this point is kept.
+     * @param point
+     *            the point to weld
+     * @return the index of the point
+     */
+    public int weld(final Point point) {
+        return this.weld((float) point.getX(), (float) point.getY(),
+                (float) point.getZ(), point, true);
+    }
+
+    /**
+     * Welds a point, and returns the reference of the point having the same
+     * values.
+     * @param point
+     *            the point to weld
+     * @return the point parameter if no point has the same values, otherwise
+     *         the point which has been welded first with the same values
+     */
+    public Point weldPoint(final Point point) {
+        return this.points[this.weld(point)];
+    }
+}
@@ -0,0 +1,399 @@
+package fr.nantes1900.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Implements a writer of indexed meshes : each vertex is written once in a
+ * table of vertices, and the faces refer to the vertices by their index,
+ * instead of repeating their coordinates as in the STL files. Each face
+ * receives the label of the mesh it comes from : ground, wall or roof. This
+ * writer uses the binary PLY or the OBJ format. As the STL files, the files
+ * whose name ends with WriterSTL.GZIP_EXTENSION are compressed with gzip.
+ * @author Daniel Lefevre
+ */
+public class WriterIndexed {
+
+    /**
+     * Possible value of the writing mode. Intends to write binary PLY files.
+     */
+    public static final int PLY_MODE = 1;
+
+    /**
+     * Possible value of the writing mode. Intends to write OBJ files.
+     */
+    public static final int OBJ_MODE = 2;
+
+    /**
+     * Extension of the names of the PLY files.
+     */
+    public static final String PLY_EXTENSION = ".ply";
+
+    /**
+     * Extension of the names of the OBJ files.
+     */
+    public static final String OBJ_EXTENSION = ".obj";
+
+    /**
+     * Value returned by returnMode for the files which are neither PLY nor
+     * OBJ files : they are written as STL files.
+     */
+    public static final int NOT_INDEXED = 0;
+
+    /**
+     * Label of the faces of the ground.
+     */
+    public static final int GROUND_LABEL = 0;
+
+    /**
+     * Label of the faces of the walls.
+     */
+    public static final int WALL_LABEL = 1;
+
+    /**
+     * Label of the faces of the roofs.
+     */
+    public static final int ROOF_LABEL = 2;
+
+    /**
+     * Names of the labels, indexed by the labels.
+     */
+    private static final String[] LABEL_NAMES = { "ground", "wall", "roof",
+    };
+
+    /**
+     * Number of vertices of a face.
+     */
+    private static final int NB_VERTICES = 3;
+
+    /**
+     * Size of a face in a binary PLY file : the number of vertices, the three
+     * indices and the label.
+     */
+    private static final int FACE_PLY_SIZE = 2 + WriterIndexed.NB_VERTICES
+            * (Integer.SIZE / Byte.SIZE);
+
+    /**
+     * Size of a vertex in a binary PLY file : three floats.
+     */
+    private static final int VERTEX_PLY_SIZE = WriterIndexed.NB_VERTICES
+            * (Float.SIZE / Byte.SIZE);
+
+    /**
+     * Number of faces written in the buffer before writing it in the file.
+     */
+    private static final int BATCH_FACES = 1 << 12;
+
+    /**
+     * Default number of faces expected.
+     */
+    private static final int DEFAULT_SIZE = 1 << 10;
+
+    /**
+     * The name of the file to write in.
+     */
+    private String fileName;
+
+    /**
+     * The mode of writing. Use the two constants : PLY_MODE or OBJ_MODE.
+     */
+    private int writingMode = WriterIndexed.PLY_MODE;
+
+    /**
+     * The number of decimals of the numbers written in the OBJ files, or
+     * WriterSTL.SHORTEST_PRECISION to write them with the shortest digits read
+     * back as the same doubles.
+     */
+    private int precision = WriterSTL.SHORTEST_PRECISION;
+
+    /**
+     * The welder giving the same index to the points having the same values.
+     */
+    private final VertexWelder pointWelder = new VertexWelder();
+
+    /**
+     * The indices of the vertices of the faces : three int per face.
+     */
+    private int[] faces = new int[WriterIndexed.DEFAULT_SIZE
+            * WriterIndexed.NB_VERTICES];
+
+    /**
+     * The labels of the faces.
+     */
+    private byte[] labels = new byte[WriterIndexed.DEFAULT_SIZE];
+
+    /**
+     * The number of faces added.
+     */
+    private int facesNumber;
+
+    /**
+     * Constructor.
+     * @param fileNameWrite
+     *            the name of the file to write in
+     */
+    public WriterIndexed(final String fileNameWrite) {
+        this.fileName = fileNameWrite;
+    }
+
+    /**
+     * Constructor.
+     * @param fileNameWrite
+     *            the name of the file to write in
+     * @param mode
+     *            the mode of the writer
+     */
+    public WriterIndexed(final String fileNameWrite, final int mode) {
+        this.fileName = fileNameWrite;
+        this.writingMode = mode;
+    }
+
+    /**
+     * Converts a word in ASCII bytes.
+     * @param word
+     *            the word to convert
+     * @return the ASCII bytes of the word
+     */
+    private static byte[] ascii(final String word) {
+        return word.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Adds the triangles of a mesh to the faces to write. Their points are
+     * welded with the points already added : the points having the same
+     * values are written once.
+     * @param mesh
+     *            the mesh to add
+     * @param label
+     *            the label of the faces of this mesh : GROUND_LABEL,
+     *            WALL_LABEL or ROOF_LABEL
+     */
+    public final void addMesh(final Mesh mesh, final int label) {
+        final int needed = this.facesNumber + mesh.size();
+        if (needed > this.labels.length) {
+            final int capacity = Math.max(needed, this.labels.length * 2);
+            this.labels = Arrays.copyOf(this.labels, capacity);
+            this.faces = Arrays.copyOf(this.faces, capacity
+                    * WriterIndexed.NB_VERTICES);
+        }
+
+        for (final Triangle t : mesh) {
+            final int k = this.facesNumber * WriterIndexed.NB_VERTICES;
+            this.faces[k] = this.pointWelder.weld(t.getP1());
+            this.faces[k + 1] = this.pointWelder.weld(t.getP2());
+            this.faces[k + 2] = this.pointWelder.weld(t.getP3());
+            this.labels[this.facesNumber] = (byte) label;
+            this.facesNumber = this.facesNumber + 1;
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the number of faces added
+     */
+    public final int getFacesNumber() {
+        return this.facesNumber;
+    }
+
+    /**
+     * Getter.
+     * @return the number of decimals of the numbers written in the OBJ files
+     */
+    public final int getPrecision() {
+        return this.precision;
+    }
+
+    /**
+     * Getter.
+     * @return the number of vertices, each one written once
+     */
+    public final int getVerticesNumber() {
+        return this.pointWelder.size();
+    }
+
+    /**
+     * Getter.
+     * @return the writing mode
+     */
+    public final int getWriteMode() {
+        return this.writingMode;
+    }
+
+    /**
+     * Returns the format of a file from its name, ignoring
+     * WriterSTL.GZIP_EXTENSION : a file named city.ply.gz is a compressed PLY
+     * file.
+     * @param fileName
+     *            the name of the file
+     * @return PLY_MODE or OBJ_MODE, or NOT_INDEXED if the file must be written
+     *         as a STL file
+     */
+    public static int returnMode(final String fileName) {
+        String name = fileName;
+        if (name.endsWith(WriterSTL.GZIP_EXTENSION)) {
+            name = name.substring(0, name.length()
+                    - WriterSTL.GZIP_EXTENSION.length());
+        }
+        if (name.endsWith(WriterIndexed.PLY_EXTENSION)) {
+            return WriterIndexed.PLY_MODE;
+        } else if (name.endsWith(WriterIndexed.OBJ_EXTENSION)) {
+            return WriterIndexed.OBJ_MODE;
+        }
+        return WriterIndexed.NOT_INDEXED;
+    }
+
+    /**
+     * Setter.
+     * @param decimals
+     *            the number of decimals of the numbers written in the OBJ
+     *            files, or WriterSTL.SHORTEST_PRECISION
+     */
+    public final void setPrecision(final int decimals) {
+        this.precision = decimals;
+    }
+
+    /**
+     * Setter.
+     * @param mode
+     *            the writing mode
+     */
+    public final void setWriteMode(final int mode) {
+        this.writingMode = mode;
+    }
+
+    /**
+     * Writes the faces added in the file, in the writing mode.
+     * @throws IOException
+     *             if there is a problem in the opening, the writing or the
+     *             closing operation
+     */
+    public final void write() throws IOException {
+        if (this.writingMode == WriterIndexed.PLY_MODE) {
+            this.writePLY();
+        } else if (this.writingMode == WriterIndexed.OBJ_MODE) {
+            this.writeOBJ();
+        }
+    }
+
+    /**
+     * Writes an OBJ file : the vertices, then the faces, grouped by label
+     * when the label changes. The indices of the OBJ files begin at one.
+     * @throws IOException
+     *             if there is a problem in the opening, the writing or the
+     *             closing operation
+     */
+    private void writeOBJ() throws IOException {
+        final byte[] vertex = WriterIndexed.ascii("v");
+        final byte[] face = WriterIndexed.ascii("f");
+        final byte[] space = WriterIndexed.ascii(" ");
+        final byte[] lineBreak = WriterIndexed.ascii("\n");
+
+        final WritableByteChannel channel = WriterSTL
+                .openChannel(this.fileName);
+        try {
+            final FormatterSTL formatter = new FormatterSTL(channel,
+                    this.precision);
+
+            for (int i = 0; i < this.pointWelder.size(); i = i + 1) {
+                final Point p = this.pointWelder.getPoint(i);
+                formatter.write(vertex);
+                formatter.write(space);
+                formatter.writeDouble(p.getX());
+                formatter.write(space);
+                formatter.writeDouble(p.getY());
+                formatter.write(space);
+                formatter.writeDouble(p.getZ());
+                formatter.write(lineBreak);
+            }
+
+            int label = -1;
+            for (int i = 0; i < this.facesNumber; i = i + 1) {
+                if (this.labels[i] != label) {
+                    label = this.labels[i];
+                    formatter.write(WriterIndexed.ascii("g "
+                            + WriterIndexed.LABEL_NAMES[label] + "\n"));
+                }
+                formatter.write(face);
+                for (int j = 0; j < WriterIndexed.NB_VERTICES; j = j + 1) {
+                    formatter.write(space);
+                    formatter.writeInt(this.faces[i
+                            * WriterIndexed.NB_VERTICES + j] + 1);
+                }
+                formatter.write(lineBreak);
+            }
+
+            // Finishes to write the last datas before closing the writer.
+            formatter.flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes a binary little-endian PLY file : the header in ASCII, then the
+     * vertices as floats, then the faces with their label.
+     * @throws IOException
+     *             if there is a problem in the opening, the writing or the
+     *             closing operation
+     */
+    private void writePLY() throws IOException {
+        final String header = "ply\n" + "format binary_little_endian 1.0\n"
+                + "comment label 0 ground, 1 wall, 2 roof\n"
+                + "element vertex " + this.pointWelder.size() + "\n"
+                + "property float x\n" + "property float y\n"
+                + "property float z\n" + "element face " + this.facesNumber
+                + "\n" + "property list uchar int vertex_indices\n"
+                + "property uchar label\n" + "end_header\n";
+
+        final WritableByteChannel channel = WriterSTL
+                .openChannel(this.fileName);
+        try {
+            final ByteBuffer bBuf = ByteBuffer
+                    .allocateDirect(WriterIndexed.BATCH_FACES
+                            * WriterIndexed.FACE_PLY_SIZE);
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
+
+            final ByteBuffer headerBuffer = ByteBuffer.wrap(WriterIndexed
+                    .ascii(header));
+            while (headerBuffer.hasRemaining()) {
+                channel.write(headerBuffer);
+            }
+
+            // Writes every vertex, and empties the buffer when it is full.
+            for (int i = 0; i < this.pointWelder.size(); i = i + 1) {
+                if (bBuf.remaining() < WriterIndexed.VERTEX_PLY_SIZE) {
+                    WriterSTL.flush(channel, bBuf);
+                }
+                final Point p = this.pointWelder.getPoint(i);
+                bBuf.putFloat((float) p.getX());
+                bBuf.putFloat((float) p.getY());
+                bBuf.putFloat((float) p.getZ());
+            }
+
+            // Writes every face in the same way.
+            for (int i = 0; i < this.facesNumber; i = i + 1) {
+                if (bBuf.remaining() < WriterIndexed.FACE_PLY_SIZE) {
+                    WriterSTL.flush(channel, bBuf);
+                }
+                bBuf.put((byte) WriterIndexed.NB_VERTICES);
+                for (int j = 0; j < WriterIndexed.NB_VERTICES; j = j + 1) {
+                    bBuf.putInt(this.faces[i * WriterIndexed.NB_VERTICES + j]);
+                }
+                bBuf.put(this.labels[i]);
+            }
+
+            // Finishes to write the last datas before closing the writer.
+            WriterSTL.flush(channel, bBuf);
+        } finally {
+            channel.close();
+        }
+    }
+}
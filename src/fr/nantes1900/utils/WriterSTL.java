@@ -1,14 +1,15 @@
 package fr.nantes1900.utils;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedWriter;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
@@ -16,7 +17,8 @@ import fr.nantes1900.models.basis.Triangle;
 
 /**
  * Implements a STL writer. This writer uses the ASCII or the binary format,
- * depending on the static attribute MODE.
+ * depending on the static attribute MODE. If the name of the file ends with
+ * GZIP_EXTENSION, the file is compressed with gzip while it is written.
  * @author Eric Berthe, Valentin Roger, Daniel Lefevre
  */
 
@@ -32,21 +34,98 @@ public class WriterSTL {
      */
     public static final int BINARY_MODE = 2;
 
+    /**
+     * Possible value of the precision. Intend to write the numbers of the
+     * ASCII files with the shortest representation read back as the same
+     * double.
+     */
+    public static final int SHORTEST_PRECISION = -1;
+
+    /**
+     * Extension of the names of the files compressed with gzip.
+     */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * Size of the header of a binary STL file.
+     */
+    private static final int HEADER_SIZE = 80;
+
+    /**
+     * Size of a triangle in a binary STL file.
+     */
+    private static final int TRIANGLE_STL_SIZE = 50;
+
+    /**
+     * Number of triangles written in the buffer before writing it in the
+     * file.
+     */
+    private static final int BATCH_TRIANGLES = 1 << 12;
+
+    /**
+     * Size of the buffer of the gzip compressor.
+     */
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The word beginning an ASCII file.
+     */
+    private static final byte[] SOLID = WriterSTL.ascii("solid");
+
+    /**
+     * The words beginning a triangle in an ASCII file, before the normal.
+     */
+    private static final byte[] FACET_NORMAL = WriterSTL
+            .ascii("\nfacet normal");
+
+    /**
+     * The words beginning the points of a triangle in an ASCII file.
+     */
+    private static final byte[] OUTER_LOOP = WriterSTL.ascii("\nouter loop");
+
+    /**
+     * The word beginning a point in an ASCII file.
+     */
+    private static final byte[] VERTEX = WriterSTL.ascii("\nvertex");
+
+    /**
+     * The words ending a triangle in an ASCII file.
+     */
+    private static final byte[] END_FACET = WriterSTL
+            .ascii("\nendloop\nendfacet");
+
+    /**
+     * The word ending an ASCII file.
+     */
+    private static final byte[] END_SOLID = WriterSTL.ascii("\nendsolid");
+
+    /**
+     * The separator of the numbers in an ASCII file.
+     */
+    private static final byte[] SPACE = WriterSTL.ascii(" ");
+
     /**
      * The name of the file to write in.
      */
     private final String fileName;
 
     /**
-     * The mesh to write.
+     * The meshes to write, one after the other in the same file.
      */
-    private Mesh mesh;
+    private List<Mesh> meshes;
 
     /**
      * The mode of writing. Use the two constants : ASCII_MODE or BINARY_MODE.
      */
     private int writingMode = WriterSTL.BINARY_MODE;
 
+    /**
+     * The number of decimals of the numbers written in the ASCII files, or
+     * SHORTEST_PRECISION to write them with the shortest digits read back as
+     * the same doubles.
+     */
+    private int precision = WriterSTL.SHORTEST_PRECISION;
+
     /**
      * Constructor.
      * @param fileNameWrite
@@ -69,88 +148,131 @@ public class WriterSTL {
     }
 
     /**
-     * Writes a triangle in ASCII.
-     * @param writer
-     *            The file we want to write in.
-     * @param triangle
-     *            The triangle to write.
+     * Converts a word in ASCII bytes.
+     * @param word
+     *            the word to convert
+     * @return the ASCII bytes of the word
      */
-    private static void writeASCIITriangle(final BufferedWriter writer,
-            final Triangle triangle) {
-        try {
-            // Write facet normal : to begin a triangle with writing its normal.
-            String s1 = "\nfacet normal";
-
-            s1 += " " + triangle.getNormal().x + " " + triangle.getNormal().y
-                    + " " + triangle.getNormal().z;
-
-            // Write outer loop : to begin to write the three points.
-            writer.write(s1 + "\nouter loop");
-            // Write the three points.
-            for (final Point p : triangle.getPoints()) {
-                writer.write("\nvertex" + " " + p.getX() + " " + p.getY() + " "
-                        + p.getZ());
-            }
+    private static byte[] ascii(final String word) {
+        return word.getBytes(StandardCharsets.US_ASCII);
+    }
 
-            // Write the end of the facet.
-            writer.write("\nendloop\nendfacet");
-        } catch (final java.io.IOException e) {
-            e.printStackTrace();
+    /**
+     * Writes the content of the buffer in the channel, and clears the buffer.
+     * @param channel
+     *            the channel to write in
+     * @param bBuf
+     *            the buffer to write
+     * @throws IOException
+     *             if the channel throws an error
+     */
+    static void flush(final WritableByteChannel channel,
+            final ByteBuffer bBuf) throws IOException {
+        bBuf.flip();
+        while (bBuf.hasRemaining()) {
+            channel.write(bBuf);
         }
+        bBuf.clear();
     }
 
     /**
-     * Writes a triangle in the binary format.
-     * @param writer
-     *            the writer which writes in the file
+     * Writes a triangle in ASCII.
+     * @param formatter
+     *            the formatter writing in the file
      * @param triangle
      *            the triangle to write
      * @throws IOException
-     *             if the writer throws an error
+     *             if the formatter throws an error
      */
-    private static void writeBinaryTriangle(final OutputStream writer,
+    private static void writeASCIITriangle(final FormatterSTL formatter,
             final Triangle triangle) throws IOException {
+        // Write facet normal : to begin a triangle with writing its normal.
+        formatter.write(WriterSTL.FACET_NORMAL);
+        WriterSTL.writeASCIITuple(formatter, triangle.getNormal().x,
+                triangle.getNormal().y, triangle.getNormal().z);
+
+        // Write outer loop : to begin to write the three points.
+        formatter.write(WriterSTL.OUTER_LOOP);
+
+        // Write the three points.
+        for (final Point p : triangle.getPoints()) {
+            formatter.write(WriterSTL.VERTEX);
+            WriterSTL.writeASCIITuple(formatter, p.getX(), p.getY(), p.getZ());
+        }
 
-        // Write first the normal.
-        WriterSTL.writeInGoodOrder(writer, triangle.getNormal().getX());
-        WriterSTL.writeInGoodOrder(writer, triangle.getNormal().getY());
-        WriterSTL.writeInGoodOrder(writer, triangle.getNormal().getZ());
-
-        // And the three points after.
-        WriterSTL.writeInGoodOrder(writer, triangle.getP1().getX());
-        WriterSTL.writeInGoodOrder(writer, triangle.getP1().getY());
-        WriterSTL.writeInGoodOrder(writer, triangle.getP1().getZ());
-
-        WriterSTL.writeInGoodOrder(writer, triangle.getP2().getX());
-        WriterSTL.writeInGoodOrder(writer, triangle.getP2().getY());
-        WriterSTL.writeInGoodOrder(writer, triangle.getP2().getZ());
+        // Write the end of the facet.
+        formatter.write(WriterSTL.END_FACET);
+    }
 
-        WriterSTL.writeInGoodOrder(writer, triangle.getP3().getX());
-        WriterSTL.writeInGoodOrder(writer, triangle.getP3().getY());
-        WriterSTL.writeInGoodOrder(writer, triangle.getP3().getZ());
+    /**
+     * Writes three numbers in ASCII, each preceded by a space.
+     * @param formatter
+     *            the formatter writing in the file
+     * @param x
+     *            the first number
+     * @param y
+     *            the second number
+     * @param z
+     *            the third number
+     * @throws IOException
+     *             if the formatter throws an error
+     */
+    private static void writeASCIITuple(final FormatterSTL formatter,
+            final double x, final double y, final double z)
+            throws IOException {
+        formatter.write(WriterSTL.SPACE);
+        formatter.writeDouble(x);
+        formatter.write(WriterSTL.SPACE);
+        formatter.writeDouble(y);
+        formatter.write(WriterSTL.SPACE);
+        formatter.writeDouble(z);
+    }
 
-        writer.write(new byte[2]);
+    /**
+     * Writes a point in the binary format.
+     * @param bBuf
+     *            the buffer to write in, in the LITTLE_ENDIAN order
+     * @param p
+     *            the point to write
+     */
+    private static void writeBinaryPoint(final ByteBuffer bBuf, final Point p) {
+        bBuf.putFloat((float) p.getX());
+        bBuf.putFloat((float) p.getY());
+        bBuf.putFloat((float) p.getZ());
     }
 
     /**
-     * Writes a double in the good byte order (LITTLE_ENDIAN) in the writer.
-     * @param writer
-     *            the writer which writes in the file
-     * @param a
-     *            the double to write
-     * @throws IOException
-     *             if the writer throws an error
+     * Writes a triangle in the binary format.
+     * @param bBuf
+     *            the buffer to write in, in the LITTLE_ENDIAN order, with at
+     *            least 50 bytes remaining
+     * @param triangle
+     *            the triangle to write
      */
-    private static void writeInGoodOrder(final OutputStream writer,
-            final double a) throws IOException {
+    private static void writeBinaryTriangle(final ByteBuffer bBuf,
+            final Triangle triangle) {
 
-        // Write the double, but must before order it in the LITTLE_ENDIAN
-        // format.
-        final ByteBuffer bBuf = ByteBuffer.allocate(Float.SIZE);
-        bBuf.order(ByteOrder.LITTLE_ENDIAN);
-        bBuf.putFloat((float) a);
+        // Write first the normal.
+        bBuf.putFloat((float) triangle.getNormal().getX());
+        bBuf.putFloat((float) triangle.getNormal().getY());
+        bBuf.putFloat((float) triangle.getNormal().getZ());
+
+        // And the three points after.
+        WriterSTL.writeBinaryPoint(bBuf, triangle.getP1());
+        WriterSTL.writeBinaryPoint(bBuf, triangle.getP2());
+        WriterSTL.writeBinaryPoint(bBuf, triangle.getP3());
 
-        writer.write(bBuf.array(), 0, Float.SIZE / Byte.SIZE);
+        // Two bytes which can be used to put a color. But we don't use them.
+        bBuf.putShort((short) 0);
+    }
+
+    /**
+     * Getter.
+     * @return the number of decimals of the numbers written in the ASCII
+     *         files, or SHORTEST_PRECISION
+     */
+    public final int getPrecision() {
+        return this.precision;
     }
 
     /**
@@ -161,13 +283,67 @@ public class WriterSTL {
         return this.writingMode;
     }
 
+    /**
+     * Opens the channel writing in a file. If the name of the file ends with
+     * GZIP_EXTENSION, the bytes written in the channel are compressed before
+     * being written in the file. Used by the other writers too.
+     * @param fileName
+     *            the name of the file to write in
+     * @return the channel to write in, which closes the file when it is
+     *         closed
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    static WritableByteChannel openChannel(final String fileName)
+            throws IOException {
+        final FileOutputStream stream = new FileOutputStream(fileName);
+        if (!fileName.endsWith(WriterSTL.GZIP_EXTENSION)) {
+            return stream.getChannel();
+        }
+
+        try {
+            return Channels.newChannel(new GZIPOutputStream(stream,
+                    WriterSTL.GZIP_BUFFER_SIZE));
+        } catch (final IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
     /**
      * Setter.
      * @param m
      *            the mesh to write
      */
     public final void setMesh(final Mesh m) {
-        this.mesh = m;
+        if (m == null) {
+            this.meshes = null;
+        } else {
+            this.meshes = Collections.singletonList(m);
+        }
+    }
+
+    /**
+     * Setter. The meshes are written one after the other in the same file,
+     * without being merged in one mesh first : a triangle contained in two
+     * meshes is written twice.
+     * @param meshesIn
+     *            the meshes to write
+     */
+    public final void setMeshes(final List<Mesh> meshesIn) {
+        this.meshes = meshesIn;
+    }
+
+    /**
+     * Changes the number of decimals of the numbers written in the ASCII
+     * files. Fewer decimals give smaller files, written faster.
+     * @param decimals
+     *            the number of decimals, or SHORTEST_PRECISION to write the
+     *            numbers with the shortest representation read back as the
+     *            same double
+     */
+    public final void setPrecision(final int decimals) {
+        this.precision = decimals;
     }
 
     /**
@@ -181,10 +357,13 @@ public class WriterSTL {
 
     /**
      * Writes a mesh, the format depending on the attribute MODE.
+     * @throws IOException
+     *             if there is a problem in the opening, the writing or the
+     *             closing operation
      */
-    public final void write() {
+    public final void write() throws IOException {
         try {
-            if (this.mesh == null) {
+            if (this.meshes == null) {
                 throw new NoMeshException();
             }
 
@@ -194,77 +373,83 @@ public class WriterSTL {
                 this.writeSTLB();
             }
 
-        } catch (final IOException e) {
-            e.printStackTrace();
         } catch (final NoMeshException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Writes a mesh in an ASCII file.
+     * Writes a mesh in an ASCII file. The text is formatted in a buffer,
+     * written in the file by blocks.
      * @throws IOException
-     *             if there is a problem in the opening or the closing operation
+     *             if there is a problem in the opening, the writing or the
+     *             closing operation
      */
     private void writeSTLA() throws IOException {
-        BufferedWriter writer = null;
+        final WritableByteChannel channel = WriterSTL
+                .openChannel(this.fileName);
         try {
+            final FormatterSTL formatter = new FormatterSTL(channel,
+                    this.precision);
 
             // Writes the header of the file : solid.
-            writer = new BufferedWriter(new FileWriter(this.fileName));
-            writer.write("solid");
-            for (final Triangle f : this.mesh) {
-                WriterSTL.writeASCIITriangle(writer, f);
+            formatter.write(WriterSTL.SOLID);
+            for (final Mesh m : this.meshes) {
+                for (final Triangle f : m) {
+                    WriterSTL.writeASCIITriangle(formatter, f);
+                }
             }
 
             // Writes the end of the file : endsolid.
-            writer.write("\nendsolid");
+            formatter.write(WriterSTL.END_SOLID);
 
             // Finishes to write the last datas before closing the writer.
-            writer.flush();
-
+            formatter.flush();
         } finally {
-            if (writer != null) {
-                writer.close();
-            }
+            channel.close();
         }
-
     }
 
     /**
-     * Writes a mesh in an binary file.
+     * Writes a mesh in an binary file. The triangles are written by batches,
+     * through one buffer used for all the file.
      * @throws IOException
      *             if there is a problem in the opening or the closing operation
      */
     private void writeSTLB() throws IOException {
-        BufferedOutputStream stream = null;
+        final WritableByteChannel channel = WriterSTL
+                .openChannel(this.fileName);
         try {
-            stream = new BufferedOutputStream(new FileOutputStream(
-                    this.fileName));
+            final ByteBuffer bBuf = ByteBuffer
+                    .allocateDirect(WriterSTL.BATCH_TRIANGLES
+                            * WriterSTL.TRIANGLE_STL_SIZE);
+            bBuf.order(ByteOrder.LITTLE_ENDIAN);
 
             // Writes a 80-byte long header. Possibility to write the name of
             // the author.
-            final int headerSize = 80;
-            final byte[] header = new byte[headerSize];
-            stream.write(header);
-
-            // Writes the number of triangles : must order the Int in the
-            // LITTLE_ENDIAN format.
-            final ByteBuffer bBuf = ByteBuffer.allocate(Integer.SIZE);
-            bBuf.order(ByteOrder.LITTLE_ENDIAN);
-            bBuf.putInt(this.mesh.size());
-            stream.write(bBuf.array(), 0, Integer.SIZE / Byte.SIZE);
+            bBuf.put(new byte[WriterSTL.HEADER_SIZE]);
 
-            // Writes every triangle.
-            for (final Triangle t : this.mesh) {
-                WriterSTL.writeBinaryTriangle(stream, t);
+            // Writes the number of triangles.
+            int trianglesNumber = 0;
+            for (final Mesh m : this.meshes) {
+                trianglesNumber = trianglesNumber + m.size();
+            }
+            bBuf.putInt(trianglesNumber);
+
+            // Writes every triangle, and empties the buffer when it is full.
+            for (final Mesh m : this.meshes) {
+                for (final Triangle t : m) {
+                    if (bBuf.remaining() < WriterSTL.TRIANGLE_STL_SIZE) {
+                        WriterSTL.flush(channel, bBuf);
+                    }
+                    WriterSTL.writeBinaryTriangle(bBuf, t);
+                }
             }
 
             // Finishes to write the last datas before closing the writer.
-            stream.flush();
-            stream.close();
-        } catch (final FileNotFoundException e) {
-            e.printStackTrace();
+            WriterSTL.flush(channel, bBuf);
+        } finally {
+            channel.close();
         }
     }
 
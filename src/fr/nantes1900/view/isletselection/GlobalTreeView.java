@@ -9,6 +9,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTree;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
 
 /**
  * @author Camille Bouquet, Luc Jallerat
@@ -78,8 +79,10 @@ public class GlobalTreeView extends JPanel {
                 root.add(child);
                 this.fillMyTree(child, currentNode);
 
-                // Displays the file in the tree only if it is a STL file.
-            } else if (currentNode.toString().endsWith("stl")) {
+                // Displays the file in the tree only if it is a STL file,
+                // compressed or not.
+            } else if (file.getName().endsWith("stl")
+                    || file.getName().endsWith("stl.gz")) {
                 root.add(child);
             }
         }
@@ -93,6 +96,15 @@ public class GlobalTreeView extends JPanel {
         return this.tree;
     }
 
+    /**
+     * Displays again a node of the tree, after the modification of its file.
+     * @param node
+     *            the node to display again
+     */
+    public final void refreshNode(final DefaultMutableTreeNode node) {
+        ((DefaultTreeModel) this.tree.getModel()).nodeChanged(node);
+    }
+
     /**
      * Implements an extension of the File with an overriden method toString
      * used to display correctly the name of the file in the JTree.
@@ -105,6 +117,12 @@ public class GlobalTreeView extends JPanel {
          */
         private static final long serialVersionUID = 1L;
 
+        /**
+         * The information about the file displayed after its name, or null if
+         * it is not known yet.
+         */
+        private volatile String information;
+
         /**
          * Constructor.
          * @param file
@@ -123,12 +141,25 @@ public class GlobalTreeView extends JPanel {
         }
 
         /**
-         * Returns the short name of the file to display it in the JTree.
+         * Setter.
+         * @param info
+         *            the information about the file displayed after its name
+         */
+        public final void setInformation(final String info) {
+            this.information = info;
+        }
+
+        /**
+         * Returns the short name of the file to display it in the JTree,
+         * followed by the information about the file if it is known.
          * @return the short name of the file
          */
         @Override
         public final String toString() {
-            return super.getName();
+            if (this.information == null) {
+                return super.getName();
+            }
+            return super.getName() + " (" + this.information + ")";
         }
     }
 }
@@ -7,10 +7,19 @@ import org.junit.runners.Suite.SuiteClasses;
 import test.fr.nantes1900.models.MeshTest;
 import test.fr.nantes1900.models.PolylineTest;
 import test.fr.nantes1900.models.basis.EdgeTest;
+import test.fr.nantes1900.models.basis.IndexedMeshTest;
 import test.fr.nantes1900.models.basis.PointTest;
+import test.fr.nantes1900.models.basis.PointTreeTest;
+import test.fr.nantes1900.models.basis.SubMeshTest;
 import test.fr.nantes1900.models.basis.TriangleTest;
+import test.fr.nantes1900.models.basis.TriangleTreeTest;
+import test.fr.nantes1900.utils.AlgosTest;
+import test.fr.nantes1900.utils.EdgeWelderTest;
 import test.fr.nantes1900.utils.MatrixMethodTest;
 import test.fr.nantes1900.utils.ParserSTLTest;
+import test.fr.nantes1900.utils.PreloaderSTLTest;
+import test.fr.nantes1900.utils.VertexWelderTest;
+import test.fr.nantes1900.utils.WriterIndexedTest;
 
 /**
  * Class to test every class tests of the project.
@@ -19,7 +28,10 @@ import test.fr.nantes1900.utils.ParserSTLTest;
 @RunWith(Suite.class)
 @SuiteClasses(value = { EdgeTest.class, PointTest.class, TriangleTest.class,
         PolylineTest.class, MeshTest.class, MatrixMethodTest.class,
-        ParserSTLTest.class
+        ParserSTLTest.class, VertexWelderTest.class, EdgeWelderTest.class,
+        WriterIndexedTest.class, PreloaderSTLTest.class, IndexedMeshTest.class,
+        SubMeshTest.class, PointTreeTest.class, TriangleTreeTest.class,
+        AlgosTest.class
 })
 public final class AllTests {
 
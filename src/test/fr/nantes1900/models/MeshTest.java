@@ -1,5 +1,8 @@
 package test.fr.nantes1900.models;
 
+import java.util.Iterator;
+import java.util.List;
+
 import javax.vecmath.Vector3d;
 
 import junit.framework.Assert;
@@ -9,6 +12,7 @@ import org.junit.Test;
 
 import fr.nantes1900.models.basis.Edge;
 import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.MeshAdjacency;
 import fr.nantes1900.models.basis.Point;
 import fr.nantes1900.models.basis.Polygon;
 import fr.nantes1900.models.basis.Triangle;
@@ -476,6 +480,104 @@ public class MeshTest extends TestCase {
         Assert.assertTrue(m1.contains(this.t2));
     }
 
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.Mesh#returnAdjacency()}.
+     */
+    @Test
+    public final void testReturnAdjacency() {
+        final Point p7 = new Point(1, 3, 2);
+        final Triangle t3 = new Triangle(this.p2, p7, this.p3, new Edge(
+                this.p2, p7), new Edge(p7, this.p3), this.e2, this.vect1);
+        final Mesh m1 = new Mesh();
+        m1.add(this.t1);
+        m1.add(t3);
+
+        final MeshAdjacency adjacency = m1.returnAdjacency();
+        final int iD1 = adjacency.getID(this.t1);
+        final int iD3 = adjacency.getID(t3);
+        Assert.assertEquals(2, adjacency.size());
+        Assert.assertSame(this.t1, adjacency.getTriangle(iD1));
+        Assert.assertEquals(-1, adjacency.getNeighbour(iD1, 0));
+        Assert.assertEquals(iD3, adjacency.getNeighbour(iD1, 1));
+        Assert.assertEquals(iD1, adjacency.getNeighbour(iD3, 2));
+
+        // The adjacency is kept until the mesh is modified.
+        Assert.assertSame(adjacency, m1.returnAdjacency());
+        m1.remove(t3);
+        Assert.assertEquals(1, m1.returnAdjacency().size());
+        m1.add(t3);
+        Assert.assertEquals(2, m1.returnAdjacency().size());
+        final Iterator<Triangle> iterator = m1.iterator();
+        iterator.next();
+        iterator.remove();
+        Assert.assertEquals(1, m1.returnAdjacency().size());
+        m1.clear();
+        Assert.assertEquals(0, m1.returnAdjacency().size());
+
+        // The neighbours out of the mesh are ignored.
+        final Mesh m2 = new Mesh();
+        m2.add(this.t1);
+        Assert.assertEquals(-1, m2.returnAdjacency().getNeighbour(0, 1));
+        Assert.assertEquals(-1, m2.returnAdjacency().getID(t3));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.Mesh#returnSortedBounds()}.
+     */
+    @Test
+    public final void testReturnSortedBounds() {
+        final Point p7 = new Point(1, 3, 2);
+        final Edge e7 = new Edge(this.p2, p7);
+        final Edge e8 = new Edge(p7, this.p3);
+        final Triangle t3 = new Triangle(this.p2, p7, this.p3, e7, e8,
+                this.e2, this.vect1);
+        final Mesh m1 = new Mesh();
+        m1.add(this.t1);
+        m1.add(t3);
+
+        // The two triangles give one loop of four edges.
+        final List<Polygon> loops = m1.returnSortedBounds();
+        Assert.assertEquals(1, loops.size());
+        final List<Edge> edges = loops.get(0).getEdgeList();
+        Assert.assertEquals(4, edges.size());
+        Assert.assertFalse(edges.contains(this.e2));
+        for (int i = 0; i < edges.size(); i = i + 1) {
+            Assert.assertNotNull(edges.get(i).sharedPoint(
+                    edges.get((i + 1) % edges.size())));
+        }
+        Assert.assertEquals(4, loops.get(0).pointSize());
+
+        // The two separated triangles give two loops.
+        Assert.assertEquals(2, this.m.returnSortedBounds().size());
+    }
+
+    /**
+     * Test method for the summary of the geometry of a mesh : checks that the
+     * bounds, the centroid and the average normal follow the modifications
+     * of the mesh and of its points.
+     */
+    @Test
+    public final void testSummary() {
+        Assert.assertTrue(this.m.xMax() == 4);
+
+        this.m.remove(this.t2);
+        Assert.assertTrue(this.m.xMax() == 1);
+        Assert.assertTrue(this.m.averageNormal().equals(this.vect1));
+
+        this.m.add(this.t2);
+        Assert.assertTrue(this.m.xMax() == 4);
+        Assert.assertTrue(this.m.yAverage() == 3.0 / 2.0);
+
+        this.p4.setX(6);
+        Assert.assertTrue(this.m.xMax() == 6);
+
+        this.m.retainAll(new Mesh());
+        Assert.assertTrue(this.m.isEmpty());
+        Assert.assertTrue(this.m.xMax() == Double.NEGATIVE_INFINITY);
+    }
+
     /**
      * Test method for {@link fr.nantes1900.models.basis.Mesh#xAverage()}.
      */
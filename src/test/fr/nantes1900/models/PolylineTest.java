@@ -1,6 +1,7 @@
 package test.fr.nantes1900.models;
 
 import java.util.List;
+import java.util.ListIterator;
 
 import javax.vecmath.Vector3d;
 
@@ -242,6 +243,43 @@ public class PolylineTest extends TestCase {
         Assert.assertTrue(point2.getZ() == 1);
     }
 
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.Polygon#contains(fr.nantes1900.models.basis.Point)}
+     * and
+     * {@link fr.nantes1900.models.basis.Polygon#contains(fr.nantes1900.models.basis.Edge)}
+     * . Checks that the membership follows the moves of the points and the
+     * modifications of the lists.
+     */
+    @Test
+    public final void testContains() {
+        Assert.assertTrue(this.p.contains(new Point(0, 1, 0)));
+        Assert.assertFalse(this.p.contains(this.e4));
+
+        this.p2.set(5, 5, 5);
+        Assert.assertFalse(this.p.contains(new Point(0, 1, 0)));
+        Assert.assertTrue(this.p.contains(new Point(5, 5, 5)));
+        Assert.assertTrue(this.p.contains(this.e1));
+
+        // The replacements of edges do not change the size of the list.
+        final List<Edge> edges = this.p.getEdgeList();
+        edges.set(edges.indexOf(this.e1), this.e4);
+        Assert.assertFalse(this.p.contains(this.e1));
+        Assert.assertTrue(this.p.contains(this.e4));
+        for (final ListIterator<Edge> i = edges.listIterator(); i.hasNext();) {
+            final Edge e = i.next();
+            if (e == this.e4) {
+                i.set(this.e1);
+            }
+        }
+        Assert.assertTrue(this.p.contains(this.e1));
+        Assert.assertFalse(this.p.contains(this.e4));
+
+        this.p.getEdgeList().remove(this.e1);
+        Assert.assertFalse(this.p.contains(this.e1));
+        Assert.assertEquals(1, this.p.getNumNeighbours(this.p1));
+    }
+
     /**
      * Test method for {@link fr.nantes1900.models.basis.Polygon#edgeSize()}.
      */
@@ -0,0 +1,175 @@
+package test.fr.nantes1900.models.basis;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.IndexedMesh;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.utils.Algos;
+import fr.nantes1900.utils.ParserSTL;
+import fr.nantes1900.utils.WriterSTL;
+
+/**
+ * A set of tests for the class IndexedMesh.
+ * @author Daniel Lefevre
+ */
+public final class IndexedMeshTest extends TestCase {
+
+    /**
+     * The mesh copied : two neighbour triangles, and one triangle alone.
+     */
+    private final Mesh mesh = new Mesh();
+
+    /**
+     * Constructor.
+     */
+    public IndexedMeshTest() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Point p4 = new Point(2, 2, 2);
+        final Point p5 = new Point(5, 5, 5);
+        final Point p6 = new Point(6, 5, 5);
+        final Point p7 = new Point(5, 6, 5);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e2 = new Edge(p2, p3);
+        this.mesh.add(new Triangle(p1, p2, p3, new Edge(p1, p2), e2,
+                new Edge(p3, p1), vect));
+        this.mesh.add(new Triangle(p2, p4, p3, new Edge(p2, p4), new Edge(p4,
+                p3), e2, vect));
+        this.mesh.add(new Triangle(p5, p6, p7, new Edge(p5, p6), new Edge(p6,
+                p7), new Edge(p7, p5), vect));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.Algos#blockExtract(fr.nantes1900.models.basis.IndexedMesh)}
+     * .
+     */
+    @Test
+    public final void testBlockExtract() {
+        final IndexedMesh indexed = new IndexedMesh(this.mesh);
+        int trianglesNumber = 0;
+        for (final Mesh block : Algos.blockExtract(indexed)) {
+            Assert.assertEquals(Algos.blockExtract(block).size(), 1);
+            trianglesNumber = trianglesNumber + block.size();
+        }
+        Assert.assertEquals(2, Algos.blockExtract(indexed).size());
+        Assert.assertEquals(3, trianglesNumber);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.IndexedMesh#getNeighbour(int, int)}.
+     */
+    @Test
+    public final void testGetNeighbour() {
+        final IndexedMesh indexed = new IndexedMesh(this.mesh);
+        Assert.assertEquals(3, indexed.size());
+        Assert.assertEquals(7, indexed.getVerticesNumber());
+
+        int shared = 0;
+        for (int i = 0; i < indexed.size(); i = i + 1) {
+            for (int k = 0; k < IndexedMesh.NB_VERTICES; k = k + 1) {
+                final int neighbour = indexed.getNeighbour(i, k);
+                if (neighbour >= 0) {
+                    Assert.assertTrue(neighbour != i);
+                    shared = shared + 1;
+                }
+            }
+        }
+        // The shared edge is seen from its two triangles.
+        Assert.assertEquals(2, shared);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.ParserSTL#readIndexed()}. Checks that the
+     * indexed mesh read contains the same triangles as the mesh parsed.
+     */
+    @Test
+    public final void testReadIndexed() {
+        final WriterSTL writer = new WriterSTL("IndexedMeshTest.stl",
+                WriterSTL.BINARY_MODE);
+        writer.setMesh(this.mesh);
+
+        try {
+            writer.write();
+            final ParserSTL parser = new ParserSTL("IndexedMeshTest.stl");
+            final IndexedMesh indexed = parser.readIndexed();
+            Assert.assertEquals(7, indexed.getVerticesNumber());
+            Assert.assertEquals(parser.read(), indexed.returnMesh());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("IndexedMeshTest.stl").delete());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.ParserSTL#readIndexed()}. Checks that the
+     * triangles read twice, and the triangles having an edge which already
+     * has two triangles, are ignored as in the parser.
+     */
+    @Test
+    public final void testReadIndexedNonManifold() {
+        // The third triangle is the third one of the edge (0 0 0) (1 0 0),
+        // the fourth one is the first one read again, and the sixth one is
+        // the third one of the edge (0 0 0) (0 1 0).
+        final String[] triangles = {"0 0 0 1 0 0 0 1 0", "0 0 0 1 0 0 0 -1 0",
+                "0 0 0 1 0 0 0 0 1", "1 0 0 0 1 0 0 0 0",
+                "0 0 0 0 1 0 -1 0 0", "0 0 0 0 1 0 -1 0 1",
+        };
+        try {
+            final FileWriter writer = new FileWriter("IndexedMeshTest.stl");
+            writer.write("solid nonmanifold\n");
+            for (final String triangle : triangles) {
+                final String[] v = triangle.split(" ");
+                writer.write("facet normal 0 0 1\nouter loop\n");
+                for (int k = 0; k < IndexedMesh.NB_VERTICES; k = k + 1) {
+                    writer.write("vertex " + v[3 * k] + " " + v[3 * k + 1]
+                            + " " + v[3 * k + 2] + "\n");
+                }
+                writer.write("endloop\nendfacet\n");
+            }
+            writer.write("endsolid nonmanifold\n");
+            writer.close();
+
+            final ParserSTL parser = new ParserSTL("IndexedMeshTest.stl");
+            final IndexedMesh indexed = parser.readIndexed();
+            final Mesh read = parser.read();
+            Assert.assertEquals(3, read.size());
+            Assert.assertEquals(3, indexed.size());
+            Assert.assertEquals(read, indexed.returnMesh());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("IndexedMeshTest.stl").delete());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.IndexedMesh#returnMesh()}.
+     */
+    @Test
+    public final void testReturnMesh() {
+        final Mesh copy = new IndexedMesh(this.mesh).returnMesh();
+        Assert.assertEquals(this.mesh, copy);
+
+        // The shared points and edges are kept.
+        Assert.assertEquals(2, Algos.blockExtract(copy).size());
+    }
+}
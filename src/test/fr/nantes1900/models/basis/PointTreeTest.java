@@ -0,0 +1,70 @@
+package test.fr.nantes1900.models.basis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.PointTree;
+
+/**
+ * A set of tests for the class PointTree.
+ * @author Daniel Lefevre
+ */
+public final class PointTreeTest extends TestCase {
+
+    /**
+     * The points of the tree : a grid of 5 x 5 x 2 points.
+     */
+    private final List<Point> points = new ArrayList<>();
+
+    /**
+     * Constructor.
+     */
+    public PointTreeTest() {
+        for (int i = 0; i < 5; i = i + 1) {
+            for (int j = 0; j < 5; j = j + 1) {
+                for (int k = 0; k < 2; k = k + 1) {
+                    this.points.add(new Point(i, j, k));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.PointTree#inRadius(fr.nantes1900.models.basis.Point, double)}
+     * .
+     */
+    @Test
+    public final void testInRadius() {
+        final PointTree tree = new PointTree(this.points);
+        Assert.assertEquals(1, tree.inRadius(new Point(2, 2, 0), 0.5).size());
+        // The point, its four neighbours in the plane and the one above.
+        Assert.assertEquals(6, tree.inRadius(new Point(2, 2, 0), 1).size());
+        Assert.assertEquals(this.points.size(),
+                tree.inRadius(new Point(2, 2, 0), 10).size());
+        Assert.assertTrue(tree.inRadius(new Point(10, 10, 10), 1).isEmpty());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.PointTree#nearest(fr.nantes1900.models.basis.Point)}
+     * .
+     */
+    @Test
+    public final void testNearest() {
+        final PointTree tree = new PointTree(this.points);
+        Assert.assertEquals(this.points.size(), tree.size());
+        Assert.assertEquals(new Point(3, 1, 1),
+                tree.nearest(new Point(3.2, 0.9, 1.4)));
+        Assert.assertEquals(new Point(4, 4, 0),
+                tree.nearest(new Point(10, 10, -3)));
+        Assert.assertNull(new PointTree(new ArrayList<Point>())
+                .nearest(new Point(0, 0, 0)));
+    }
+}
@@ -0,0 +1,159 @@
+package test.fr.nantes1900.models.basis;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.MeshAdjacency;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.SubMesh;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.basis.TriangleFilter;
+
+/**
+ * A set of tests for the class SubMesh.
+ * @author Daniel Lefevre
+ */
+public final class SubMeshTest extends TestCase {
+
+    /**
+     * First triangle of a strip of three triangles.
+     */
+    private final Triangle t1;
+
+    /**
+     * Second triangle of the strip, neighbour of the first one and of the
+     * third one.
+     */
+    private final Triangle t2;
+
+    /**
+     * Third triangle of the strip.
+     */
+    private final Triangle t3;
+
+    /**
+     * The mesh containing the strip.
+     */
+    private final Mesh mesh = new Mesh();
+
+    /**
+     * Constructor.
+     */
+    public SubMeshTest() {
+        final Point p1 = new Point(0, 0, 0);
+        final Point p2 = new Point(1, 0, 0);
+        final Point p3 = new Point(0, 1, 0);
+        final Point p4 = new Point(1, 1, 0);
+        final Point p5 = new Point(0, 2, 0);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e23 = new Edge(p2, p3);
+        final Edge e34 = new Edge(p3, p4);
+        this.t1 = new Triangle(p1, p2, p3, new Edge(p1, p2), e23, new Edge(
+                p3, p1), vect);
+        this.t2 = new Triangle(p2, p4, p3, new Edge(p2, p4), e34, e23, vect);
+        this.t3 = new Triangle(p3, p4, p5, e34, new Edge(p4, p5), new Edge(
+                p5, p3), vect);
+        this.mesh.add(this.t1);
+        this.mesh.add(this.t2);
+        this.mesh.add(this.t3);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.SubMesh#removeAll(fr.nantes1900.models.basis.SubMesh)}
+     * and
+     * {@link fr.nantes1900.models.basis.SubMesh#addAll(fr.nantes1900.models.basis.SubMesh)}
+     * .
+     */
+    @Test
+    public final void testAddAndRemove() {
+        final MeshAdjacency adjacency = this.mesh.returnAdjacency();
+        final SubMesh all = new SubMesh(adjacency, this.mesh);
+        final SubMesh part = new SubMesh(adjacency);
+        part.add(adjacency.getID(this.t2));
+        Assert.assertEquals(3, all.size());
+
+        all.removeAll(part);
+        Assert.assertEquals(2, all.size());
+        Assert.assertFalse(all.contains(adjacency.getID(this.t2)));
+
+        all.addAll(part);
+        Assert.assertEquals(this.mesh, all.returnMesh());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.SubMesh#removeNeighbours(int, fr.nantes1900.models.basis.TriangleFilter)}
+     * .
+     */
+    @Test
+    public final void testRemoveNeighbours() {
+        final MeshAdjacency adjacency = this.mesh.returnAdjacency();
+        final SubMesh all = new SubMesh(adjacency, this.mesh);
+
+        final int[] first = all.removeNeighbours(adjacency.getID(this.t1),
+                TriangleFilter.closeTo(this.t1.getP1(), 0.5));
+        Assert.assertEquals(1, first.length);
+        Assert.assertEquals(adjacency.getID(this.t1), first[0]);
+        Assert.assertEquals(2, all.size());
+
+        final int[] second = all.removeNeighbours(all.nextID(0), null);
+        Assert.assertEquals(2, second.length);
+        Assert.assertTrue(all.isEmpty());
+
+        final Mesh blocks = all.returnMesh(first);
+        blocks.addAll(all.returnMesh(second));
+        Assert.assertEquals(this.mesh, blocks);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.SubMesh#returnNeighbours(int, fr.nantes1900.models.basis.SubMesh)}
+     * .
+     */
+    @Test
+    public final void testReturnNeighbours() {
+        final MeshAdjacency adjacency = this.mesh.returnAdjacency();
+        final SubMesh ends = new SubMesh(adjacency);
+        ends.add(adjacency.getID(this.t1));
+        ends.add(adjacency.getID(this.t3));
+        final SubMesh middle = new SubMesh(adjacency);
+        middle.add(adjacency.getID(this.t2));
+
+        // Without the middle triangle, the two ends are not neighbours.
+        Assert.assertEquals(1, ends.returnNeighbours(adjacency.getID(this.t1))
+                .size());
+        Assert.assertEquals(this.mesh,
+                ends.returnNeighbours(adjacency.getID(this.t1), middle)
+                        .returnMesh());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.SubMesh#returnNeighbours(int, fr.nantes1900.models.basis.TriangleFilter)}
+     * .
+     */
+    @Test
+    public final void testReturnNeighboursFilter() {
+        final MeshAdjacency adjacency = this.mesh.returnAdjacency();
+        final SubMesh all = new SubMesh(adjacency, this.mesh);
+        final int iD1 = adjacency.getID(this.t1);
+
+        Assert.assertEquals(3, all.returnNeighbours(iD1,
+                TriangleFilter.orientedAs(new Vector3d(0, 0, 1), 10)).size());
+        Assert.assertEquals(1, all.returnNeighbours(iD1,
+                TriangleFilter.orientedAs(new Vector3d(0, 0, -1), 10)).size());
+
+        // The first triangle is always in the block.
+        Assert.assertEquals(1, all.returnNeighbours(iD1,
+                TriangleFilter.closeTo(this.t1.getP1(), 0.5)).size());
+        Assert.assertEquals(3, all.returnNeighbours(iD1,
+                TriangleFilter.closeTo(this.t1.getP1(), 1.5)).size());
+    }
+}
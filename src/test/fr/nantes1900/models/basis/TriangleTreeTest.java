@@ -0,0 +1,122 @@
+package test.fr.nantes1900.models.basis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.basis.TriangleTree;
+
+/**
+ * A set of tests for the class TriangleTree.
+ * @author Daniel Lefevre
+ */
+public final class TriangleTreeTest extends TestCase {
+
+    /**
+     * The triangles of the tree : a row of 10 triangles along x, the triangle
+     * i having the points (i, 0, 0), (i + 0.5, 0, 0) and (i, 1, 0).
+     */
+    private final List<Triangle> triangles = new ArrayList<>();
+
+    /**
+     * Constructor.
+     */
+    public TriangleTreeTest() {
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        for (int i = 0; i < 10; i = i + 1) {
+            final Point p1 = new Point(i, 0, 0);
+            final Point p2 = new Point(i + 0.5, 0, 0);
+            final Point p3 = new Point(i, 1, 0);
+            this.triangles.add(new Triangle(p1, p2, p3, new Edge(p1, p2),
+                    new Edge(p2, p3), new Edge(p3, p1), vect));
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.TriangleTree#inBox(double[], double[])}
+     * .
+     */
+    @Test
+    public final void testInBox() {
+        final TriangleTree tree = new TriangleTree(this.triangles);
+        final double[] min = {1.5, Double.NEGATIVE_INFINITY, -1};
+        final double[] max = {5.7, Double.POSITIVE_INFINITY, 1};
+        final List<Triangle> found = tree.inBox(min, max);
+        Assert.assertEquals(4, found.size());
+        Assert.assertTrue(found.containsAll(this.triangles.subList(2, 6)));
+
+        // The triangles must be strictly inside the box.
+        max[2] = 0;
+        Assert.assertTrue(tree.inBox(min, max).isEmpty());
+        Assert.assertNull(tree.oneInBox(min, max));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.TriangleTree#intersect(fr.nantes1900.models.basis.Point, javax.vecmath.Vector3d)}
+     * .
+     */
+    @Test
+    public final void testIntersect() {
+        final TriangleTree tree = new TriangleTree(this.triangles);
+        final Vector3d down = new Vector3d(0, 0, -1);
+        final Point origin = new Point(3.1, 0.1, 5);
+        Assert.assertSame(this.triangles.get(3), tree.intersect(origin, down));
+        Assert.assertEquals(5, TriangleTree.intersection(
+                this.triangles.get(3), origin, down), 1e-12);
+
+        // The ray goes away from the triangles, or between two of them.
+        Assert.assertNull(tree.intersect(origin, new Vector3d(0, 0, 1)));
+        Assert.assertNull(tree.intersect(new Point(3.8, 0.8, 5), down));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.TriangleTree#nearest(fr.nantes1900.models.basis.Point, int)}
+     * .
+     */
+    @Test
+    public final void testNearest() {
+        final TriangleTree tree = new TriangleTree(this.triangles);
+        final List<Triangle> found = tree.nearest(new Point(6.2, 0.3, 0), 3);
+        Assert.assertEquals(3, found.size());
+        Assert.assertSame(this.triangles.get(6), found.get(0));
+        Assert.assertTrue(found.contains(this.triangles.get(5)));
+        Assert.assertTrue(found.contains(this.triangles.get(7)));
+        Assert.assertEquals(this.triangles.size(),
+                tree.nearest(new Point(0, 0, 0), 20).size());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.TriangleTree#remove(fr.nantes1900.models.basis.Triangle)}
+     * and {@link fr.nantes1900.models.basis.TriangleTree#refit()}.
+     */
+    @Test
+    public final void testRemoveAndRefit() {
+        final TriangleTree tree = new TriangleTree(this.triangles);
+        final Vector3d down = new Vector3d(0, 0, -1);
+        tree.remove(this.triangles.get(3));
+        Assert.assertEquals(this.triangles.size() - 1, tree.size());
+        Assert.assertNull(tree.intersect(new Point(3.1, 0.1, 5), down));
+
+        // Moves the last triangle under the others.
+        final Triangle last = this.triangles.get(9);
+        for (final Point p : last.getPoints()) {
+            p.setZ(-2);
+        }
+        tree.refit();
+        Assert.assertSame(last, tree.minimum(2));
+        Assert.assertSame(last, tree.intersect(new Point(9.1, 0.1, 0), down));
+    }
+}
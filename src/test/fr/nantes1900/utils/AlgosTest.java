@@ -0,0 +1,101 @@
+package test.fr.nantes1900.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.utils.Algos;
+
+/**
+ * A set of tests for the class Algos.
+ * @author Daniel Lefevre
+ */
+public final class AlgosTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public AlgosTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.Algos#blockNeighbours(java.util.List)}.
+     * Checks that two meshes sharing an edge of their bounds are neighbours,
+     * that an edge used twice in one mesh doesn't make this mesh a neighbour
+     * of another mesh using it, and that the ground, given as the last mesh,
+     * is a neighbour of the surfaces touching it.
+     */
+    @Test
+    public final void testBlockNeighbours() {
+        final Point p1 = new Point(0, 0, 0);
+        final Point p2 = new Point(1, 0, 0);
+        final Point p3 = new Point(0, 0, 1);
+        final Point p4 = new Point(1, 0, 1);
+        final Point p5 = new Point(0, 1, 1);
+        final Point p6 = new Point(1, 1, 2);
+        final Point p7 = new Point(0, -1, 0);
+        final Vector3d vect = new Vector3d(0, 1, 0);
+
+        final Edge e12 = new Edge(p1, p2);
+        final Edge e23 = new Edge(p2, p3);
+        final Edge e43 = new Edge(p4, p3);
+
+        // The wall : the edge e23 is used by its two triangles.
+        final Mesh wall = new Mesh();
+        wall.add(new Triangle(p1, p2, p3, e12, e23, new Edge(p3, p1), vect));
+        wall.add(new Triangle(p2, p4, p3, new Edge(p2, p4), e43, e23, vect));
+
+        // The noise uses only the edge e23 of the wall, which is not in its
+        // bounds.
+        final Mesh noise = new Mesh();
+        noise.add(new Triangle(p2, p3, p5, e23, new Edge(p3, p5), new Edge(
+                p5, p2), vect));
+
+        // The roof shares the edge e43 of the bounds of the wall.
+        final Mesh roof = new Mesh();
+        roof.add(new Triangle(p4, p3, p6, e43, new Edge(p3, p6), new Edge(p6,
+                p4), vect));
+
+        // The ground shares the edge e12 of the bounds of the wall.
+        final Mesh ground = new Mesh();
+        ground.add(new Triangle(p1, p7, p2, new Edge(p1, p7), new Edge(p7,
+                p2), e12, vect));
+
+        final List<Mesh> meshes = new ArrayList<>();
+        meshes.add(wall);
+        meshes.add(noise);
+        meshes.add(roof);
+        meshes.add(ground);
+        final int groundIndex = meshes.size() - 1;
+
+        final List<BitSet> neighbours = Algos.blockNeighbours(meshes);
+        Assert.assertEquals(meshes.size(), neighbours.size());
+
+        final BitSet wallNeighbours = new BitSet();
+        wallNeighbours.set(2);
+        wallNeighbours.set(groundIndex);
+        Assert.assertEquals(wallNeighbours, neighbours.get(0));
+        Assert.assertTrue(neighbours.get(1).isEmpty());
+
+        final BitSet roofNeighbours = new BitSet();
+        roofNeighbours.set(0);
+        Assert.assertEquals(roofNeighbours, neighbours.get(2));
+        Assert.assertFalse(neighbours.get(2).get(groundIndex));
+
+        final BitSet groundNeighbours = new BitSet();
+        groundNeighbours.set(0);
+        Assert.assertEquals(groundNeighbours, neighbours.get(groundIndex));
+    }
+}
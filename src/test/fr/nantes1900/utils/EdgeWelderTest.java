@@ -0,0 +1,58 @@
+package test.fr.nantes1900.utils;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.utils.EdgeWelder;
+import fr.nantes1900.utils.VertexWelder;
+
+/**
+ * A set of tests for the class EdgeWelder.
+ * @author Daniel Lefevre
+ */
+public final class EdgeWelderTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public EdgeWelderTest() {
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.EdgeWelder#weld(int, int)}.
+     * Checks that the edges between the same vertices are welded in both
+     * directions, even when the table is resized.
+     */
+    @Test
+    public final void testWeld() {
+        final VertexWelder vertices = new VertexWelder();
+        final int size = 500;
+        for (int i = 0; i < size; i = i + 1) {
+            vertices.weld(new Point(i, i, i));
+        }
+
+        final EdgeWelder welder = new EdgeWelder(vertices, 2);
+        final Edge[] edges = new Edge[size];
+        for (int i = 0; i < size; i = i + 1) {
+            edges[i] = welder.weld(i, (i + 1) % size);
+            Assert.assertSame(vertices.getPoint(i), edges[i].getP1());
+            Assert.assertSame(vertices.getPoint((i + 1) % size),
+                    edges[i].getP2());
+        }
+        Assert.assertEquals(size, welder.size());
+
+        for (int i = 0; i < size; i = i + 1) {
+            Assert.assertSame(edges[i], welder.weld(i, (i + 1) % size));
+            Assert.assertSame(edges[i], welder.weld((i + 1) % size, i));
+        }
+        Assert.assertEquals(size, welder.size());
+
+        welder.clear();
+        Assert.assertEquals(0, welder.size());
+        Assert.assertNotSame(edges[0], welder.weld(0, 1));
+    }
+}
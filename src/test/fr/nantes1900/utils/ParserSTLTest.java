@@ -1,9 +1,16 @@
 package test.fr.nantes1900.utils;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
 
 import javax.vecmath.Vector3d;
 
@@ -17,6 +24,8 @@ import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
 import fr.nantes1900.models.basis.Triangle;
 import fr.nantes1900.utils.ParserSTL;
+import fr.nantes1900.utils.RegionOfInterest;
+import fr.nantes1900.utils.TilerSTL;
 import fr.nantes1900.utils.WriterSTL;
 
 /**
@@ -31,6 +40,23 @@ public final class ParserSTLTest extends TestCase {
     public ParserSTLTest() {
     }
 
+    /**
+     * Returns the edges of the triangles of a mesh, as the lists of their two
+     * points, in their order.
+     * @param mesh
+     *            the mesh
+     * @return the set of the oriented edges
+     */
+    private static Set<List<Point>> orientedEdges(final Mesh mesh) {
+        final Set<List<Point>> edges = new HashSet<>();
+        for (final Triangle t : mesh) {
+            for (final Edge e : t.getEdges()) {
+                edges.add(Arrays.asList(e.getP1(), e.getP2()));
+            }
+        }
+        return edges;
+    }
+
     /**
      * Test method for {@link nantes1900.utils.ParserSTL#read(java.lang.String)}
      * and
@@ -98,4 +124,666 @@ public final class ParserSTLTest extends TestCase {
         Assert.assertTrue(new File("WriterTestA.stl").delete());
         Assert.assertTrue(new File("WriterTestB.stl").delete());
     }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.ParserSTL#read()} with the
+     * mapped mode. Checks that the mesh read is the same as the mesh read with
+     * the stream mode.
+     */
+    @Test
+    public final void testReadMappedSTL() {
+        try {
+            final Point p1 = new Point(1, 0, -1);
+            final Point p2 = new Point(0, 1, 0);
+            final Point p3 = new Point(-1, 2, 1);
+            final Point p4 = new Point(2, 2, 2);
+            final Vector3d vect = new Vector3d(0, 0, 1);
+            final Edge e1 = new Edge(p1, p2);
+            final Edge e2 = new Edge(p2, p3);
+            final Edge e3 = new Edge(p3, p1);
+            final Edge e4 = new Edge(p2, p4);
+            final Edge e5 = new Edge(p4, p3);
+            final Triangle t1 = new Triangle(p1, p2, p3, e1, e2, e3, vect);
+            final Triangle t2 = new Triangle(p2, p4, p3, e4, e5, e2, vect);
+
+            final Mesh write = new Mesh();
+            write.add(t1);
+            write.add(t2);
+
+            final WriterSTL writer = new WriterSTL("MappedTest.stl",
+                    WriterSTL.BINARY_MODE);
+            writer.setMesh(write);
+            writer.write();
+
+            final Mesh readStream = new ParserSTL("MappedTest.stl",
+                    ParserSTL.STREAM_MODE).read();
+            final Mesh readMapped = new ParserSTL("MappedTest.stl",
+                    ParserSTL.MAPPED_MODE).read();
+
+            Assert.assertEquals(2, readMapped.size());
+            Assert.assertEquals(readStream, readMapped);
+            Assert.assertTrue(readMapped.contains(t1));
+            Assert.assertTrue(readMapped.contains(t2));
+
+            // The shared edge must have been given the same reference.
+            Assert.assertEquals(4, readMapped.returnUnsortedBounds()
+                    .edgeSize());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("MappedTest.stl").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.ParserSTL#read()} with an
+     * ASCII file written by hand. Checks the parsing of the numbers written in
+     * the different notations.
+     */
+    @Test
+    public final void testReadASCIINumbers() {
+        try {
+            final FileWriter writer = new FileWriter("NumbersTest.stl");
+            writer.write("solid numbers\n");
+            writer.write("  facet normal 0 0 1.0E0\r\n");
+            writer.write("    outer loop\n");
+            writer.write("      vertex 1.5 -2.25e-1 +3\n");
+            writer.write("      vertex 0.000123 1E2 -0.0\n");
+            writer.write("      vertex 12345.678901234567890 7 8\n");
+            writer.write("    endloop\n");
+            writer.write("  endfacet\n");
+            writer.write("endsolid numbers");
+            writer.close();
+
+            final Mesh read = new ParserSTL("NumbersTest.stl").read();
+            Assert.assertEquals(1, read.size());
+
+            final Triangle t = read.getOne();
+            Assert.assertEquals(new Point(1.5, -0.225f, 3), t.getP1());
+            Assert.assertEquals(new Point(0.000123f, 100, -0.0), t.getP2());
+            Assert.assertEquals(new Point(12345.678901234567890f, 7, 8),
+                    t.getP3());
+            Assert.assertEquals(new Vector3d(0, 0, 1), t.getNormal());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("NumbersTest.stl").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.ParserSTL#read()} with
+     * several threads. Checks that the mesh read is the same as the mesh read
+     * with one thread, on a mesh big enough to be divided in several tasks.
+     */
+    @Test
+    public final void testReadParallelSTL() {
+        final int size = 60;
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Point[][] grid = new Point[size + 1][size + 1];
+        for (int i = 0; i <= size; i = i + 1) {
+            for (int j = 0; j <= size; j = j + 1) {
+                grid[i][j] = new Point(i, j, (i * j) % 7);
+            }
+        }
+
+        final Mesh write = new Mesh();
+        for (int i = 0; i < size; i = i + 1) {
+            for (int j = 0; j < size; j = j + 1) {
+                final Point p1 = grid[i][j];
+                final Point p2 = grid[i + 1][j];
+                final Point p3 = grid[i + 1][j + 1];
+                final Point p4 = grid[i][j + 1];
+                write.add(new Triangle(p1, p2, p3, new Edge(p1, p2),
+                        new Edge(p2, p3), new Edge(p3, p1), vect));
+                write.add(new Triangle(p1, p3, p4, new Edge(p1, p3),
+                        new Edge(p3, p4), new Edge(p4, p1), vect));
+            }
+        }
+
+        try {
+            final WriterSTL writer = new WriterSTL("ParallelTest.stl",
+                    WriterSTL.BINARY_MODE);
+            writer.setMesh(write);
+            writer.write();
+
+            final Mesh readSerial = new ParserSTL("ParallelTest.stl",
+                    ParserSTL.MAPPED_MODE).read();
+            final ParserSTL parser = new ParserSTL("ParallelTest.stl",
+                    ParserSTL.MAPPED_MODE);
+            parser.setThreadsNumber(4);
+            final Mesh readParallel = parser.read();
+
+            Assert.assertEquals(2 * size * size, readParallel.size());
+            Assert.assertEquals(readSerial, readParallel);
+
+            // The shared points and edges must have been given the same
+            // references.
+            Assert.assertEquals(readSerial.returnUnsortedBounds().edgeSize(),
+                    readParallel.returnUnsortedBounds().edgeSize());
+            Assert.assertEquals(readSerial.returnUnsortedBounds()
+                    .pointSize(), readParallel.returnUnsortedBounds()
+                    .pointSize());
+
+            // The edges must have their points in the same order, given by
+            // the first triangle of the file using them.
+            Assert.assertEquals(ParserSTLTest.orientedEdges(readSerial),
+                    ParserSTLTest.orientedEdges(readParallel));
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("ParallelTest.stl").delete());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.WriterSTL#setPrecision(int)}. Checks the
+     * numbers written with a fixed number of decimals in an ASCII file.
+     */
+    @Test
+    public final void testWriteASCIIPrecision() {
+        final Point p1 = new Point(1.23456, -0.0004, 99999.9996);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Mesh write = new Mesh();
+        write.add(new Triangle(p1, p2, p3, new Edge(p1, p2), new Edge(p2, p3),
+                new Edge(p3, p1), vect));
+
+        try {
+            final WriterSTL writer = new WriterSTL("PrecisionTest.stl",
+                    WriterSTL.ASCII_MODE);
+            writer.setPrecision(3);
+            writer.setMesh(write);
+            writer.write();
+
+            final Scanner scanner = new Scanner(new File("PrecisionTest.stl"));
+            final String content = scanner.useDelimiter("\\A").next();
+            scanner.close();
+            Assert.assertTrue(content
+                    .contains("\nfacet normal 0.000 0.000 1.000"));
+            Assert.assertTrue(content
+                    .contains("\nvertex 1.235 -0.000 100000.000"));
+            Assert.assertTrue(content.contains("\nvertex -1.000 2.000 1.000"));
+
+            final Triangle t = new ParserSTL("PrecisionTest.stl").read()
+                    .getOne();
+            Assert.assertEquals(new Point(0, 1, 0), t.getP2());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("PrecisionTest.stl").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.WriterSTL#write()} in ASCII
+     * mode with the shortest precision. Checks that each coordinate written is
+     * read back as the same double, and that it is not longer than the
+     * representation of Double.toString.
+     */
+    @Test
+    public final void testWriteASCIIShortest() {
+        final double[] values = {0.1, -0.0, 1e7, 9999999.0, 0.001, 9.99e-4,
+                -123456.789, Double.MIN_VALUE, 3 * Double.MIN_VALUE,
+                Double.MIN_NORMAL, Double.MAX_VALUE, 1e23, 4.35, 1 / 3.0,
+                -2e-5, };
+        final Mesh write = new Mesh();
+        for (int i = 0; i + 2 < values.length; i = i + 3) {
+            final Point p1 = new Point(values[i], values[i + 1],
+                    values[i + 2]);
+            final Point p2 = new Point(0, 1, 0);
+            final Point p3 = new Point(-1, 2, 1);
+            write.add(new Triangle(p1, p2, p3, new Edge(p1, p2), new Edge(p2,
+                    p3), new Edge(p3, p1), new Vector3d(0, 0, 1)));
+        }
+
+        try {
+            final WriterSTL writer = new WriterSTL("ShortestTest.stl",
+                    WriterSTL.ASCII_MODE);
+            writer.setMesh(write);
+            writer.write();
+
+            final Scanner scanner = new Scanner(new File("ShortestTest.stl"));
+            final String content = scanner.useDelimiter("\\A").next();
+            scanner.close();
+            for (int i = 0; i < values.length; i = i + 1) {
+                final String expected = Double.toString(values[i]);
+                boolean found = false;
+                for (final String word : content.split("\\s+")) {
+                    if (word.length() <= expected.length()
+                            && word.matches("-?[0-9].*")
+                            && Double.doubleToLongBits(Double
+                                    .parseDouble(word)) == Double
+                                    .doubleToLongBits(values[i])) {
+                        found = true;
+                    }
+                }
+                Assert.assertTrue(expected, found);
+            }
+            Assert.assertTrue(content.contains("\nvertex 0.1 -0.0 1.0E7"));
+            Assert.assertTrue(content
+                    .contains("\nvertex 9999999.0 0.001 9.99E-4"));
+            Assert.assertTrue(content.contains(" 4.9E-324 "));
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("ShortestTest.stl").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.ParserSTL#read()} with the
+     * cache file. Checks that the mesh read in the cache file is the same as
+     * the mesh parsed, and that the cache file is not used anymore when the
+     * STL file is modified.
+     */
+    @Test
+    public final void testReadCache() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Point p4 = new Point(2, 2, 2);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e2 = new Edge(p2, p3);
+        final Triangle t1 = new Triangle(p1, p2, p3, new Edge(p1, p2), e2,
+                new Edge(p3, p1), vect);
+        final Triangle t2 = new Triangle(p2, p4, p3, new Edge(p2, p4),
+                new Edge(p4, p3), e2, vect);
+
+        final Mesh write = new Mesh();
+        write.add(t1);
+        write.add(t2);
+
+        try {
+            final WriterSTL writer = new WriterSTL("CacheTest.stl",
+                    WriterSTL.BINARY_MODE);
+            writer.setMesh(write);
+            writer.write();
+
+            final ParserSTL parser = new ParserSTL("CacheTest.stl");
+            parser.setCacheUsed(true);
+            final Mesh parsed = parser.read();
+            Assert.assertTrue(new File("CacheTest.stl.cache").exists());
+
+            final Mesh cached = parser.read();
+            Assert.assertEquals(parsed, cached);
+            Assert.assertEquals(4, cached.returnUnsortedBounds().edgeSize());
+            for (final Triangle t : cached) {
+                Assert.assertEquals(1, t.getNumNeighbours());
+            }
+
+            // The temporary file has been moved.
+            for (final String name : new File(".").list()) {
+                Assert.assertFalse(name.startsWith("CacheTest.stl.cache")
+                        && name.endsWith(".tmp"));
+            }
+
+            // A damaged cache file is ignored : the number of points or the
+            // index of a point is out of the file.
+            final int countPosition = 32;
+            final int edgePosition = countPosition + 4 + 4 * 12 + 4;
+            for (final int position : new int[] {countPosition, edgePosition}) {
+                final RandomAccessFile cache = new RandomAccessFile(
+                        "CacheTest.stl.cache", "rw");
+                cache.seek(position);
+                cache.writeInt(Integer.MAX_VALUE);
+                cache.close();
+                Assert.assertEquals(parsed, parser.read());
+            }
+
+            // The STL file is modified : the cache file is not valid anymore.
+            write.remove(t2);
+            writer.write();
+            Assert.assertEquals(1, parser.read().size());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("CacheTest.stl").delete());
+        Assert.assertTrue(new File("CacheTest.stl.cache").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.ParserSTL#probe()}. Checks
+     * the number of triangles and the bounding box of a binary and an ASCII
+     * file.
+     */
+    @Test
+    public final void testProbe() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Point p4 = new Point(2, 2, 2);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e2 = new Edge(p2, p3);
+        final Mesh write = new Mesh();
+        write.add(new Triangle(p1, p2, p3, new Edge(p1, p2), e2, new Edge(p3,
+                p1), vect));
+        write.add(new Triangle(p2, p4, p3, new Edge(p2, p4),
+                new Edge(p4, p3), e2, vect));
+
+        try {
+            for (final int mode : new int[] { WriterSTL.BINARY_MODE,
+                    WriterSTL.ASCII_MODE,
+            }) {
+                final WriterSTL writer = new WriterSTL("ProbeTest.stl", mode);
+                writer.setMesh(write);
+                writer.write();
+
+                final ParserSTL.Probe probe = new ParserSTL("ProbeTest.stl")
+                        .probe();
+                Assert.assertEquals(mode == WriterSTL.ASCII_MODE,
+                        probe.isASCII());
+                Assert.assertFalse(probe.isSampled());
+                Assert.assertEquals(2, probe.getTrianglesNumber());
+                Assert.assertEquals(new File("ProbeTest.stl").length(),
+                        probe.getFileSize());
+                Assert.assertEquals(-1.0, probe.getMin()[0]);
+                Assert.assertEquals(0.0, probe.getMin()[1]);
+                Assert.assertEquals(-1.0, probe.getMin()[2]);
+                Assert.assertEquals(2.0, probe.getMax()[0]);
+                Assert.assertEquals(2.0, probe.getMax()[1]);
+                Assert.assertEquals(2.0, probe.getMax()[2]);
+            }
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("ProbeTest.stl").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.ParserSTL#read()} with a
+     * region of interest. Checks that only the triangles whose centroid is in
+     * the region are read, with a box and with a polygon.
+     */
+    @Test
+    public final void testReadRegion() {
+        final int size = 10;
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Mesh write = new Mesh();
+        for (int i = 0; i < size; i = i + 1) {
+            for (int j = 0; j < size; j = j + 1) {
+                final Point p1 = new Point(i, j, 0);
+                final Point p2 = new Point(i + 1, j, 0);
+                final Point p3 = new Point(i + 1, j + 1, 0);
+                final Point p4 = new Point(i, j + 1, 0);
+                write.add(new Triangle(p1, p2, p3, new Edge(p1, p2),
+                        new Edge(p2, p3), new Edge(p3, p1), vect));
+                write.add(new Triangle(p1, p3, p4, new Edge(p1, p3),
+                        new Edge(p3, p4), new Edge(p4, p1), vect));
+            }
+        }
+
+        try {
+            for (final int mode : new int[] { WriterSTL.BINARY_MODE,
+                    WriterSTL.ASCII_MODE,
+            }) {
+                final WriterSTL writer = new WriterSTL("RegionTest.stl", mode);
+                writer.setMesh(write);
+                writer.write();
+
+                // The box contains the squares from (0, 0) to (4, 3).
+                final ParserSTL parser = new ParserSTL("RegionTest.stl");
+                parser.setRegion(new RegionOfInterest(new Point(0, 0, -1),
+                        new Point(4, 3, 1)));
+                final Mesh box = parser.read();
+                Assert.assertEquals(2 * 4 * 3, box.size());
+                Assert.assertEquals(0.0, box.xMin());
+                Assert.assertEquals(4.0, box.xMax());
+                Assert.assertEquals(3.0, box.yMax());
+
+                // The centroids of the two triangles of the square (i, j) are
+                // on the line x + y = i + j + 1 : the triangle (0, 0),
+                // (6.5, 0), (0, 6.5) contains the 21 squares with i + j <= 5.
+                final List<Point> polygon = new ArrayList<>();
+                polygon.add(new Point(0, 0, 0));
+                polygon.add(new Point(6.5, 0, 0));
+                polygon.add(new Point(0, 6.5, 0));
+                parser.setRegion(new RegionOfInterest(polygon));
+                Assert.assertEquals(2 * 21, parser.read().size());
+            }
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("RegionTest.stl").delete());
+    }
+
+    /**
+     * Test method for the gzip-compressed files : a mesh is written and read
+     * again through gzip, in ASCII and in binary.
+     */
+    @Test
+    public final void testReadGzip() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Point p4 = new Point(2, 2, 2);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e2 = new Edge(p2, p3);
+        final Triangle t1 = new Triangle(p1, p2, p3, new Edge(p1, p2), e2,
+                new Edge(p3, p1), vect);
+        final Triangle t2 = new Triangle(p2, p4, p3, new Edge(p2, p4),
+                new Edge(p4, p3), e2, vect);
+
+        final Mesh write = new Mesh();
+        write.add(t1);
+        write.add(t2);
+
+        try {
+            final WriterSTL writer = new WriterSTL("GzipTest.stl.gz");
+            writer.setMesh(write);
+
+            writer.setWriteMode(WriterSTL.ASCII_MODE);
+            writer.write();
+            Mesh read = new ParserSTL("GzipTest.stl.gz").read();
+            Assert.assertEquals(write, read);
+            ParserSTL.Probe probe = new ParserSTL("GzipTest.stl.gz").probe();
+            Assert.assertTrue(probe.isASCII());
+            Assert.assertEquals(2, probe.getTrianglesNumber());
+
+            writer.setWriteMode(WriterSTL.BINARY_MODE);
+            writer.write();
+            read = new ParserSTL("GzipTest.stl.gz").read();
+            Assert.assertEquals(write, read);
+            Assert.assertEquals(4, read.returnUnsortedBounds().edgeSize());
+            probe = new ParserSTL("GzipTest.stl.gz").probe();
+            Assert.assertFalse(probe.isASCII());
+            Assert.assertEquals(2, probe.getTrianglesNumber());
+            Assert.assertEquals(-1.0, probe.getMin()[0]);
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("GzipTest.stl.gz").delete());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.WriterSTL#setMeshes(java.util.List)}. Checks
+     * that the meshes are written one after the other in the same file, in
+     * ASCII and in binary.
+     */
+    @Test
+    public final void testWriteMeshes() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Point p4 = new Point(2, 2, 2);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e2 = new Edge(p2, p3);
+        final Mesh m1 = new Mesh();
+        m1.add(new Triangle(p1, p2, p3, new Edge(p1, p2), e2,
+                new Edge(p3, p1), vect));
+        final Mesh m2 = new Mesh();
+        m2.add(new Triangle(p2, p4, p3, new Edge(p2, p4), new Edge(p4, p3),
+                e2, vect));
+
+        final List<Mesh> meshes = new ArrayList<>();
+        meshes.add(m1);
+        meshes.add(m2);
+
+        try {
+            final WriterSTL writer = new WriterSTL("MeshesTest.stl");
+            writer.setMeshes(meshes);
+            writer.write();
+            Mesh read = new ParserSTL("MeshesTest.stl").read();
+            Assert.assertEquals(2, read.size());
+            Assert.assertTrue(read.containsAll(m1));
+            Assert.assertTrue(read.containsAll(m2));
+
+            writer.setWriteMode(WriterSTL.ASCII_MODE);
+            writer.write();
+            read = new ParserSTL("MeshesTest.stl").read();
+            Assert.assertEquals(2, read.size());
+            Assert.assertTrue(read.containsAll(m1));
+            Assert.assertTrue(read.containsAll(m2));
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(new File("MeshesTest.stl").delete());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.ParserSTL#tile(java.lang.String, double, double)}
+     * . Checks that each triangle is written in the tile containing its
+     * centroid, and in the tiles whose halo contains it.
+     */
+    @Test
+    public final void testTile() {
+        final Point p1 = new Point(1, 1, 0);
+        final Point p2 = new Point(4, 1, 0);
+        final Point p3 = new Point(1, 4, 0);
+        final Point p4 = new Point(11, 1, 0);
+        final Point p5 = new Point(18, 1, 0);
+        final Point p6 = new Point(11, 8, 0);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+
+        final Mesh write = new Mesh();
+        final Triangle t1 = new Triangle(p1, p2, p3, new Edge(p1, p2),
+                new Edge(p2, p3), new Edge(p3, p1), vect);
+        final Triangle t2 = new Triangle(p4, p5, p6, new Edge(p4, p5),
+                new Edge(p5, p6), new Edge(p6, p4), vect);
+        write.add(t1);
+        write.add(t2);
+
+        final File directory = new File("TileTest");
+        try {
+            final WriterSTL writer = new WriterSTL("TileTest.stl",
+                    WriterSTL.ASCII_MODE);
+            writer.setMesh(write);
+            writer.write();
+
+            // The centroids are (2, 2) and (13.33, 3.33) : one triangle per
+            // tile.
+            final ParserSTL parser = new ParserSTL("TileTest.stl");
+            List<String> tiles = parser.tile(directory.getPath(), 10, 0);
+            Assert.assertEquals(2, tiles.size());
+            final TilerSTL tiler = new TilerSTL("TileTest.stl",
+                    directory.getPath(), 10, 0);
+            Assert.assertEquals(tiler.returnTileName(0, 0), tiles.get(0));
+            Assert.assertTrue(tiler.readTile(0, 0).contains(t1));
+            Assert.assertTrue(tiler.readTile(1, 0).contains(t2));
+            Assert.assertNull(tiler.readTile(2, 0));
+
+            // With a halo of 5, the second triangle is also in the first
+            // tile, and each triangle is in the tiles around its own one.
+            writer.setWriteMode(WriterSTL.BINARY_MODE);
+            writer.write();
+            for (final String tile : tiles) {
+                Assert.assertTrue(new File(tile).delete());
+            }
+            tiles = parser.tile(directory.getPath(), 10, 5);
+            Assert.assertEquals(6, tiles.size());
+            Assert.assertEquals(write, tiler.readTile(0, 0));
+            Assert.assertEquals(1, tiler.readTile(-1, -1).size());
+
+            for (final String tile : tiles) {
+                Assert.assertTrue(new File(tile).delete());
+            }
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(new File("TileTest.stl").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.TilerSTL#tile()}. Checks
+     * that no triangle is lost when there are more tiles than buffers, and
+     * that the buffers released are written.
+     */
+    @Test
+    public final void testTileManyTiles() {
+        final int tilesNumber = 100;
+        final int perTile = 3;
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Mesh write = new Mesh();
+        for (int i = 0; i < tilesNumber; i = i + 1) {
+            for (int j = 0; j < perTile; j = j + 1) {
+                final Point p1 = new Point(i * 10 + 1, j * 3 + 1, 0);
+                final Point p2 = new Point(i * 10 + 2, j * 3 + 1, 0);
+                final Point p3 = new Point(i * 10 + 1, j * 3 + 2, 0);
+                write.add(new Triangle(p1, p2, p3, new Edge(p1, p2),
+                        new Edge(p2, p3), new Edge(p3, p1), vect));
+            }
+        }
+
+        final File directory = new File("TileTest");
+        try {
+            final WriterSTL writer = new WriterSTL("TileTest.stl",
+                    WriterSTL.BINARY_MODE);
+            writer.setMesh(write);
+            writer.write();
+
+            final TilerSTL tiler = new TilerSTL("TileTest.stl",
+                    directory.getPath(), 10, 0);
+            final List<String> tiles = tiler.tile();
+            Assert.assertEquals(tilesNumber, tiles.size());
+            final Mesh read = new Mesh();
+            for (int i = 0; i < tilesNumber; i = i + 1) {
+                final Mesh tile = tiler.readTile(i, 0);
+                Assert.assertEquals(perTile, tile.size());
+                read.addAll(tile);
+            }
+            Assert.assertEquals(write, read);
+
+            for (final String tile : tiles) {
+                Assert.assertTrue(new File(tile).delete());
+            }
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(new File("TileTest.stl").delete());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.TilerSTL#TilerSTL(java.lang.String, java.lang.String, double, double)}
+     * . Checks that the sizes of tile and the halos which could not end the
+     * tiling are refused.
+     */
+    @Test
+    public final void testTileParameters() {
+        final double[][] wrongs = { {0, 0}, {-1, 0}, {Double.NaN, 0},
+                {Double.POSITIVE_INFINITY, 0}, {10, -1}, {10, Double.NaN},
+                {10, Double.POSITIVE_INFINITY},
+        };
+        for (final double[] wrong : wrongs) {
+            try {
+                new TilerSTL("TileTest.stl", "TileTest", wrong[0], wrong[1]);
+                Assert.fail();
+            } catch (final InvalidParameterException e) {
+                // Expected.
+            }
+        }
+    }
 }
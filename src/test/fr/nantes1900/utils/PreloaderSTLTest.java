@@ -0,0 +1,138 @@
+package test.fr.nantes1900.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.utils.CacheSTL;
+import fr.nantes1900.utils.PreloaderSTL;
+import fr.nantes1900.utils.WriterSTL;
+
+/**
+ * A set of tests for the class PreloaderSTL.
+ * @author Daniel Lefevre
+ */
+public final class PreloaderSTLTest extends TestCase {
+
+    /**
+     * Names of the files loaded.
+     */
+    private final List<String> fileNames = new ArrayList<>();
+
+    /**
+     * The mesh written in the files.
+     */
+    private final Mesh mesh = new Mesh();
+
+    /**
+     * Constructor.
+     */
+    public PreloaderSTLTest() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Point p4 = new Point(2, 2, 2);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        final Edge e2 = new Edge(p2, p3);
+        this.mesh.add(new Triangle(p1, p2, p3, new Edge(p1, p2), e2,
+                new Edge(p3, p1), vect));
+        this.mesh.add(new Triangle(p2, p4, p3, new Edge(p2, p4), new Edge(p4,
+                p3), e2, vect));
+
+        this.fileNames.add("PreloaderTest1.stl");
+        this.fileNames.add("PreloaderTest2.stl");
+    }
+
+    /**
+     * Writes the files loaded.
+     * @throws IOException
+     *             if a file cannot be written
+     */
+    private void writeFiles() throws IOException {
+        for (final String fileName : this.fileNames) {
+            final WriterSTL writer = new WriterSTL(fileName);
+            writer.setMesh(this.mesh);
+            writer.write();
+        }
+    }
+
+    /**
+     * Deletes the files loaded and their cache files.
+     */
+    private void deleteFiles() {
+        for (final String fileName : this.fileNames) {
+            Assert.assertTrue(new File(fileName).delete());
+            new File(CacheSTL.cacheName(fileName)).delete();
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.PreloaderSTL#take(java.lang.String)}. Checks
+     * that the meshes are kept when they fit in the budget, and that the
+     * memory is released when they are taken.
+     */
+    @Test
+    public final void testTake() {
+        final PreloaderSTL preloader = new PreloaderSTL(Long.MAX_VALUE, 2);
+
+        try {
+            this.writeFiles();
+            preloader.load(this.fileNames);
+            for (final String fileName : this.fileNames) {
+                Assert.assertEquals(this.mesh, preloader.take(fileName));
+            }
+            Assert.assertEquals(0, preloader.getMemoryReserved());
+
+            // A mesh taken can be taken again : it is parsed again.
+            Assert.assertEquals(this.mesh,
+                    preloader.take(this.fileNames.get(0)));
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        } finally {
+            preloader.shutdown();
+        }
+
+        this.deleteFiles();
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.PreloaderSTL#take(java.lang.String)} with a
+     * budget too small to keep any mesh. Checks that the meshes can be taken,
+     * and that their cache files are written when they are parsed at the
+     * taking.
+     */
+    @Test
+    public final void testTakeOverBudget() {
+        final PreloaderSTL preloader = new PreloaderSTL(0, 2);
+
+        try {
+            this.writeFiles();
+            preloader.load(this.fileNames);
+            for (final String fileName : this.fileNames) {
+                Assert.assertEquals(this.mesh, preloader.take(fileName));
+                Assert.assertTrue(CacheSTL.isValid(fileName));
+            }
+            Assert.assertEquals(0, preloader.getMemoryReserved());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        } finally {
+            preloader.shutdown();
+        }
+
+        this.deleteFiles();
+    }
+}
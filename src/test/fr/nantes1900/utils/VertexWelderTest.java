@@ -0,0 +1,63 @@
+package test.fr.nantes1900.utils;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.utils.VertexWelder;
+
+/**
+ * A set of tests for the class VertexWelder.
+ * @author Daniel Lefevre
+ */
+public final class VertexWelderTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public VertexWelderTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.VertexWelder#weld(float, float, float)} and
+     * {@link fr.nantes1900.utils.VertexWelder#weldPoint(fr.nantes1900.models.basis.Point)}
+     * . Checks that the points having the same values as a Point are welded,
+     * even when the table is resized.
+     */
+    @Test
+    public final void testWeld() {
+        final VertexWelder welder = new VertexWelder(2);
+        final int size = 1000;
+
+        for (int i = 0; i < size; i = i + 1) {
+            Assert.assertEquals(i, welder.weld(i, -i, i * 0.1f));
+        }
+        Assert.assertEquals(size, welder.size());
+
+        for (int i = 0; i < size; i = i + 1) {
+            final Point p = new Point(i, -i, i * 0.1f);
+            Assert.assertEquals(i, welder.weld(p));
+            Assert.assertEquals(p, welder.getPoint(i));
+            Assert.assertNotSame(p, welder.weldPoint(p));
+        }
+        Assert.assertEquals(size, welder.size());
+
+        // The points are equal if their coordinates cast in float are equal.
+        final Point p1 = new Point(1.0000000001, 2, 3);
+        final Point p2 = new Point(1, 2, 3);
+        Assert.assertEquals(p1, p2);
+        Assert.assertSame(p1, welder.weldPoint(p1));
+        Assert.assertSame(p1, welder.weldPoint(p2));
+
+        // Zero and minus zero are different, as in Point.
+        Assert.assertNotSame(welder.weldPoint(new Point(0, 0, 0.0)),
+                welder.weldPoint(new Point(0, 0, -0.0)));
+
+        welder.clear();
+        Assert.assertEquals(0, welder.size());
+        Assert.assertSame(p2, welder.weldPoint(p2));
+    }
+}
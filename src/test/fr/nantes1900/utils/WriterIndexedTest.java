@@ -0,0 +1,209 @@
+package test.fr.nantes1900.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Scanner;
+import java.util.zip.GZIPInputStream;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.utils.WriterIndexed;
+
+/**
+ * A set of tests for the class WriterIndexed.
+ * @author Daniel Lefevre
+ */
+public final class WriterIndexedTest extends TestCase {
+
+    /**
+     * First mesh : one triangle.
+     */
+    private final Mesh wall = new Mesh();
+
+    /**
+     * Second mesh : one triangle sharing an edge with the first one.
+     */
+    private final Mesh roof = new Mesh();
+
+    /**
+     * Constructor.
+     */
+    public WriterIndexedTest() {
+        final Point p1 = new Point(1, 0, -1);
+        final Point p2 = new Point(0, 1, 0);
+        final Point p3 = new Point(-1, 2, 1);
+        final Vector3d vect = new Vector3d(0, 0, 1);
+        this.wall.add(new Triangle(p1, p2, p3, new Edge(p1, p2), new Edge(
+                p2, p3), new Edge(p3, p1), vect));
+
+        // The shared points are copies : they are welded by their values.
+        final Point p4 = new Point(2, 2, 2);
+        final Point p5 = new Point(0, 1, 0);
+        final Point p6 = new Point(-1, 2, 1);
+        this.roof.add(new Triangle(p5, p4, p6, new Edge(p5, p4), new Edge(
+                p4, p6), new Edge(p6, p5), vect));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.WriterIndexed#returnMode(java.lang.String)}.
+     * Checks that the extension of gzip is ignored to find the format.
+     */
+    @Test
+    public final void testReturnMode() {
+        Assert.assertEquals(WriterIndexed.PLY_MODE,
+                WriterIndexed.returnMode("city.ply"));
+        Assert.assertEquals(WriterIndexed.PLY_MODE,
+                WriterIndexed.returnMode("city.ply.gz"));
+        Assert.assertEquals(WriterIndexed.OBJ_MODE,
+                WriterIndexed.returnMode("city.obj"));
+        Assert.assertEquals(WriterIndexed.OBJ_MODE,
+                WriterIndexed.returnMode("city.obj.gz"));
+        Assert.assertEquals(WriterIndexed.NOT_INDEXED,
+                WriterIndexed.returnMode("city.stl"));
+        Assert.assertEquals(WriterIndexed.NOT_INDEXED,
+                WriterIndexed.returnMode("city.stl.gz"));
+        Assert.assertEquals(WriterIndexed.NOT_INDEXED,
+                WriterIndexed.returnMode("city.gz"));
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.WriterIndexed#write()}.
+     * Checks that a file which cannot be written is reported.
+     */
+    @Test
+    public final void testWriteFailure() {
+        final WriterIndexed writer = new WriterIndexed(new File(
+                "MissingDirectory", "IndexedTest.ply").getPath());
+        writer.addMesh(this.wall, WriterIndexed.WALL_LABEL);
+        try {
+            writer.write();
+            Assert.fail();
+        } catch (final IOException e) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.WriterIndexed#write()} in
+     * OBJ. Checks that each vertex is written once, and that the faces are
+     * grouped by label.
+     */
+    @Test
+    public final void testWriteOBJ() {
+        final WriterIndexed writer = new WriterIndexed("IndexedTest.obj",
+                WriterIndexed.OBJ_MODE);
+        writer.addMesh(this.wall, WriterIndexed.WALL_LABEL);
+        writer.addMesh(this.roof, WriterIndexed.ROOF_LABEL);
+        try {
+            writer.write();
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        int vertices = 0;
+        int faces = 0;
+        int groups = 0;
+        try (Scanner scanner = new Scanner(new File("IndexedTest.obj"))) {
+            while (scanner.hasNextLine()) {
+                final String line = scanner.nextLine();
+                if (line.startsWith("v ")) {
+                    vertices = vertices + 1;
+                } else if (line.startsWith("f ")) {
+                    faces = faces + 1;
+                    for (final String index : line.substring(2).split(" ")) {
+                        Assert.assertTrue(Integer.parseInt(index) >= 1);
+                        Assert.assertTrue(Integer.parseInt(index) <= 4);
+                    }
+                } else if (line.startsWith("g ")) {
+                    groups = groups + 1;
+                }
+            }
+        } catch (final FileNotFoundException e) {
+            Assert.fail("FileNotFoundException !");
+        }
+
+        Assert.assertEquals(4, vertices);
+        Assert.assertEquals(2, faces);
+        Assert.assertEquals(2, groups);
+        Assert.assertTrue(new File("IndexedTest.obj").delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.WriterIndexed#write()} in
+     * PLY. Checks the numbers of vertices and of faces, and the size of the
+     * file.
+     */
+    @Test
+    public final void testWritePLY() {
+        final WriterIndexed writer = new WriterIndexed("IndexedTest.ply");
+        writer.addMesh(this.wall, WriterIndexed.WALL_LABEL);
+        writer.addMesh(this.roof, WriterIndexed.ROOF_LABEL);
+        Assert.assertEquals(4, writer.getVerticesNumber());
+        Assert.assertEquals(2, writer.getFacesNumber());
+
+        final File file = new File("IndexedTest.ply");
+        String header = "";
+        try {
+            writer.write();
+            final byte[] bytes = Files.readAllBytes(file.toPath());
+            final String content = new String(bytes,
+                    StandardCharsets.US_ASCII);
+            header = content.substring(0, content.indexOf("end_header\n")
+                    + "end_header\n".length());
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+        Assert.assertTrue(header.startsWith("ply\n"));
+        Assert.assertTrue(header.contains("\nelement vertex 4\n"));
+        Assert.assertTrue(header.contains("\nelement face 2\n"));
+
+        // Four vertices of three floats, and two faces of one byte, three
+        // int and one byte.
+        Assert.assertEquals(header.length() + 4 * 12 + 2 * 14, file.length());
+        Assert.assertTrue(file.delete());
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.WriterIndexed#write()} in
+     * PLY, in a file whose name ends with the extension of gzip. Checks that
+     * the file is a compressed PLY file.
+     */
+    @Test
+    public final void testWritePLYGzip() {
+        final WriterIndexed writer = new WriterIndexed("IndexedTest.ply.gz",
+                WriterIndexed.returnMode("IndexedTest.ply.gz"));
+        writer.addMesh(this.wall, WriterIndexed.WALL_LABEL);
+        try {
+            writer.write();
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+
+        final File file = new File("IndexedTest.ply.gz");
+        final byte[] magic = new byte[4];
+        try (InputStream stream = new GZIPInputStream(new FileInputStream(
+                file))) {
+            Assert.assertEquals(magic.length, stream.read(magic));
+        } catch (final IOException e) {
+            Assert.fail("IOException !");
+        }
+        Assert.assertEquals("ply\n", new String(magic,
+                StandardCharsets.US_ASCII));
+        Assert.assertTrue(file.delete());
+    }
+}